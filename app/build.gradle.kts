@@ -48,6 +48,7 @@ dependencies {
     implementation(libs.navigation.ui)
     implementation("com.google.android.flexbox:flexbox:3.0.0")
     implementation("com.google.android.material:material:1.12.0")
+    implementation("androidx.work:work-runtime:2.10.1") // scheduled lottery draws
 
     // --- Firebase (Bill of Materials) ---
     implementation(platform("com.google.firebase:firebase-bom:34.4.0"))
@@ -9,7 +9,6 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.events.Event;
 import com.example.pixel_events.waitinglist.WaitingList;
-import com.example.pixel_events.waitinglist.WaitlistUser;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +38,7 @@ public class AcceptDeclineParticipationTest {
     private ArrayList<String> tags;
     private String today;
 
+    private static final int STATUS_WAITING = 0;
     private static final int STATUS_CHOSEN = 1;
     private static final int STATUS_ACCEPTED = 2;
     private static final int STATUS_DECLINED = 3;
@@ -79,14 +79,12 @@ public class AcceptDeclineParticipationTest {
 
         // Create Waitlist
         CountDownLatch setupLatch = new CountDownLatch(1);
-        ArrayList<WaitlistUser> seededUsers = new ArrayList<>();
-        seededUsers.add(new WaitlistUser(userId, STATUS_CHOSEN));
         db.addWaitingList(new WaitingList(eventId));
 
-        // Wait and overwrite
+        // Wait, then seed the user as chosen
         Thread.sleep(500);
-        db.getWaitListCollection().document(String.valueOf(eventId))
-                .update("waitList", seededUsers)
+        db.joinWaitingList(eventId, userId)
+                .continueWithTask(t -> db.setEntrantStatus(eventId, userId, STATUS_WAITING, STATUS_CHOSEN))
                 .addOnSuccessListener(v -> setupLatch.countDown());
 
         if (!setupLatch.await(5, TimeUnit.SECONDS)) fail("Database setup timed out");
@@ -149,13 +147,12 @@ public class AcceptDeclineParticipationTest {
 
         // Create waitlist
         CountDownLatch setupLatch = new CountDownLatch(1);
-        ArrayList<WaitlistUser> seededUsers = new ArrayList<>();
-        seededUsers.add(new WaitlistUser(userId, STATUS_CHOSEN));
-
         db.addWaitingList(new WaitingList(eventId));
+
+        // Wait, then seed the user as chosen
         Thread.sleep(500);
-        db.getWaitListCollection().document(String.valueOf(eventId))
-                .update("waitList", seededUsers)
+        db.joinWaitingList(eventId, userId)
+                .continueWithTask(t -> db.setEntrantStatus(eventId, userId, STATUS_WAITING, STATUS_CHOSEN))
                 .addOnSuccessListener(v -> setupLatch.countDown());
 
         if (!setupLatch.await(5, TimeUnit.SECONDS)) fail("Database setup timed out");
@@ -1,7 +1,12 @@
 package com.example.pixel_events.organizerTest;
 
+import com.example.pixel_events.events.Event;
 import com.example.pixel_events.utils.Validator;
 import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.*;
 
 public class RegistrationPeriodValidationTest {
@@ -55,4 +60,27 @@ public class RegistrationPeriodValidationTest {
 
         assertTrue(exception.getMessage().contains("Registration end date must be on or after registration start date"));
     }
-}
\ No newline at end of file
+
+    /**
+     * US 02.01.04 WB: Test case 3: the Event setter rejects a regEndDate after
+     * eventStartDate on a detached event and keeps the old value.
+     */
+    @Test
+    public void testDetachedEventSetterRejectsRegistrationEndAfterEventStart() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventStartDate", "2099-03-01");
+        data.put("eventEndDate", "2099-03-05");
+        data.put("registrationStartDate", "2099-01-01");
+        data.put("registrationEndDate", "2099-02-01");
+        data.put("eventStartTime", EVENT_TIME_START);
+        data.put("eventEndTime", EVENT_TIME_END);
+        Event event = Event.fromMap("1", data);
+        event.setAutoUpdateDatabase(false);
+
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> event.setRegistrationEndDate("2099-03-02"));
+
+        assertTrue(exception.getMessage().contains("Registration must end before or on the event start date"));
+        assertEquals("2099-02-01", event.getRegistrationEndDate());
+    }
+}
@@ -1,28 +1,24 @@
 package com.example.pixel_events.organizerTest;
 
-import com.example.pixel_events.utils.SavingData;
-
 import org.junit.Before;
 import org.junit.Test;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList; // ADDED: Import ArrayList
 import static org.junit.Assert.*;
 
 public class SavingDataTest {
-    private SavingData savingData;
     private Method csvFieldMethod;
 
     @Before
     public void setUp() throws Exception {
-
-        savingData = new SavingData(new ArrayList<>());
-        csvFieldMethod = SavingData.class.getDeclaredMethod("csvField", Object.class);
+        // SavingData escapes fields through the package-private CSV writer
+        Class<?> writer = Class.forName("com.example.pixel_events.utils.CsvEntrantWriter");
+        csvFieldMethod = writer.getDeclaredMethod("field", Object.class);
         csvFieldMethod.setAccessible(true);
     }
 
     private String callCsvField(Object input) throws Exception {
-        return (String) csvFieldMethod.invoke(savingData, input);
+        return (String) csvFieldMethod.invoke(null, input);
     }
 
     /**
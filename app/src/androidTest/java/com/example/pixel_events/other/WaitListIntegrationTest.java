@@ -8,10 +8,14 @@ import static org.junit.Assert.assertTrue;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EntrantCounts;
 import com.example.pixel_events.waitinglist.WaitingList;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import org.junit.Before;
 import org.junit.After;
@@ -87,6 +91,10 @@ public class WaitListIntegrationTest {
         assertFalse("USER_1 should be removed", waitList.contains(USER_1));
         assertTrue("USER_2 should remain", waitList.contains(USER_2));
         assertEquals("Count should be 1", 1, waitList.size());
+
+        EntrantCounts counts = await(db.getEntrantCounts(EVENT_ID));
+        assertEquals("Waiting counter should be 1", 1, counts.getWaiting());
+        assertEquals("Total should be 1", 1, counts.getTotal());
     }
 
     // Test 4: Duplicate joins should not increase count
@@ -119,46 +127,29 @@ public class WaitListIntegrationTest {
         return Tasks.await(task, TIMEOUT_SEC, TimeUnit.SECONDS);
     }
 
-    // Helper to coerce Firestore numeric array values to Integer
+    // Helper to read the user ids in the Entrants subcollection
     private List<Integer> getWaitListInts() throws Exception {
-        var snap = await(fs.collection("WaitListData").document(String.valueOf(EVENT_ID)).get());
-        java.util.List<?> raw = (java.util.List<?>) snap.get("waitList");
+        QuerySnapshot snap = await(entrants().get());
         java.util.ArrayList<Integer> ints = new java.util.ArrayList<>();
-        if (raw != null) {
-            for (Object o : raw) {
-                if (o instanceof Number) {
-                    ints.add(((Number) o).intValue());
-                } else if (o instanceof String) {
-                    try {
-                        ints.add(Integer.parseInt((String) o));
-                    } catch (NumberFormatException ignored) {
-                    }
-                } else if (o instanceof java.util.Map) {
-                    // WaitlistUser object stored as a map { userId: ..., status: ... }
-                    @SuppressWarnings("unchecked")
-                    java.util.Map<String, Object> map = (java.util.Map<String, Object>) o;
-                    Object idObj = map.get("userId");
-                    if (idObj == null) {
-                        idObj = map.get("id"); // fallback if different field name used
-                    }
-                    if (idObj instanceof Number) {
-                        ints.add(((Number) idObj).intValue());
-                    } else if (idObj instanceof String) {
-                        try {
-                            ints.add(Integer.parseInt((String) idObj));
-                        } catch (NumberFormatException ignored) {
-                        }
-                    }
-                }
+        for (DocumentSnapshot doc : snap.getDocuments()) {
+            Object idObj = doc.get("userId");
+            if (idObj instanceof Number) {
+                ints.add(((Number) idObj).intValue());
             }
         }
         return ints;
     }
 
+    private CollectionReference entrants() {
+        return fs.collection("WaitListData").document(String.valueOf(EVENT_ID)).collection("Entrants");
+    }
+
     @After
     public void tearDown() throws Exception {
         // Clean up the waitlist document created for the test
         if (fs != null) {
+            await(db.leaveWaitingList(EVENT_ID, USER_1));
+            await(db.leaveWaitingList(EVENT_ID, USER_2));
             await(fs.collection("WaitListData").document(String.valueOf(EVENT_ID)).delete());
         }
     }
@@ -9,6 +9,8 @@ import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 
 import com.example.pixel_events.R;
+import com.example.pixel_events.database.DataMigrator;
+import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.databinding.ActivityAdminBinding;
 import com.example.pixel_events.notifications.AdminNotificationLogFragment;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
@@ -32,6 +34,7 @@ import java.util.Set;
  * - AdminEventFragment, AdminProfileFragment, AdminImageFragment
  * - AdminNotificationLogFragment
  * - DatabaseHandler: Data access
+ * - DataMigrator: One-off data backfills
  */
 public class AdminActivity extends AppCompatActivity {
 
@@ -45,6 +48,9 @@ public class AdminActivity extends AppCompatActivity {
 
         if (getSupportActionBar() != null) getSupportActionBar().hide();
 
+        // Apply any pending one-off data backfills
+        new DataMigrator(this).runPending();
+
         BottomNavigationView navView = binding.adminBottomNavView;
 
         NavHostFragment navHostFragment =
@@ -110,4 +116,11 @@ public class AdminActivity extends AppCompatActivity {
                     .commit();
         });
     }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Don't lose debounced edits if the app is backgrounded and killed
+        DatabaseHandler.getInstance().flushPendingUpdates();
+    }
 }
@@ -12,7 +12,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.pixel_events.R;
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EventQuery;
 import com.example.pixel_events.events.Event;
+import com.example.pixel_events.utils.EventPager;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,12 +32,14 @@ import java.util.List;
  * Collaborators:
  * - Event: Displayed event data
  * - DatabaseHandler: Delete operations
+ * - EventPager: Paged event loading
  * - Notification: Deletion alerts
  */
 public class AdminEventFragment extends Fragment {
 	private RecyclerView recyclerView;
 	private AdminAdapter adapter;
 	private final List<Event> events = new ArrayList<>();
+	private EventPager pager;
 
 	@Nullable
 	@Override
@@ -71,14 +75,29 @@ public class AdminEventFragment extends Fragment {
 	}
 
 	private void loadEvents() {
-		try {
-			DatabaseHandler.getInstance().getAllEvents(list -> {
-				events.clear();
-				if (list != null) events.addAll(list);
-				if (isAdded()) requireActivity().runOnUiThread(() -> adapter.notifyDataSetChanged());
-			}, e -> Log.e("AdminEventFragment", "Failed to load events", e));
-		} catch (Exception e) {
-			Log.e("AdminEventFragment", "listAllEvents not implemented", e);
+		if (pager == null) {
+			pager = new EventPager(EventPager.DEFAULT_PAGE_SIZE, new EventPager.Listener() {
+				@Override
+				public void onPage(List<Event> page, boolean firstPage) {
+					if (!isAdded()) return;
+					if (firstPage) {
+						events.clear();
+						events.addAll(page);
+						adapter.notifyDataSetChanged();
+					} else {
+						int start = events.size();
+						events.addAll(page);
+						adapter.notifyItemRangeInserted(start, page.size());
+					}
+				}
+
+				@Override
+				public void onError(Exception e) {
+					Log.e("AdminEventFragment", "Failed to load events", e);
+				}
+			});
+			pager.attachTo(recyclerView);
 		}
+		pager.reset(new EventQuery());
 	}
 }
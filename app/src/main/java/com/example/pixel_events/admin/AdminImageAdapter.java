@@ -48,6 +48,13 @@ public class AdminImageAdapter extends RecyclerView.Adapter<AdminImageAdapter.Ho
         notifyDataSetChanged();
     }
 
+    public void appendData(List<Event> events) {
+        if (events == null || events.isEmpty()) return;
+        int start = data.size();
+        data.addAll(events);
+        notifyItemRangeInserted(start, events.size());
+    }
+
     @NonNull
     @Override
     public Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
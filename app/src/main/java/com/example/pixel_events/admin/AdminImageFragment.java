@@ -13,9 +13,10 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.pixel_events.R;
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EventQuery;
 import com.example.pixel_events.events.Event;
+import com.example.pixel_events.utils.EventPager;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,6 +39,7 @@ public class AdminImageFragment extends Fragment {
 	private AdminImageAdapter adapter;
 	private TextView empty;
 	private View progress;
+	private EventPager pager;
 
 	@Nullable
 	@Override
@@ -53,6 +55,9 @@ public class AdminImageFragment extends Fragment {
 		recycler.setLayoutManager(new androidx.recyclerview.widget.LinearLayoutManager(requireContext()));
 		recycler.setAdapter(adapter);
 
+		pager = new EventPager(EventPager.DEFAULT_PAGE_SIZE, pageListener());
+		pager.attachTo(recycler);
+
 		loadImages();
 
 		return view;
@@ -81,25 +86,30 @@ public class AdminImageFragment extends Fragment {
 
 	private void loadImages() {
 		if (progress != null) progress.setVisibility(View.VISIBLE);
-		DatabaseHandler.getInstance().getAllEvents(list -> {
-			if (isAdded()) requireActivity().runOnUiThread(() -> {
+		pager.reset(new EventQuery().withImage());
+	}
+
+	private EventPager.Listener pageListener() {
+		return new EventPager.Listener() {
+			@Override
+			public void onPage(List<Event> page, boolean firstPage) {
+				if (!isAdded()) return;
 				if (progress != null) progress.setVisibility(View.GONE);
-				List<Event> withImages = new ArrayList<>();
-				if (list != null) {
-					for (Event ev : list) {
-						if (ev == null) continue;
-						String img = ev.getImageUrl();
-						if (img != null && !img.trim().isEmpty()) withImages.add(ev);
-					}
+				if (adapter == null) return;
+				if (firstPage) {
+					adapter.setData(page);
+					if (empty != null) empty.setVisibility(page.isEmpty() ? View.VISIBLE : View.GONE);
+				} else {
+					adapter.appendData(page);
 				}
-				if (adapter != null) adapter.setData(withImages);
-				if (empty != null) empty.setVisibility(withImages.isEmpty() ? View.VISIBLE : View.GONE);
-			} );
-		}, e -> {
-			if (isAdded()) requireActivity().runOnUiThread(() -> {
+			}
+
+			@Override
+			public void onError(Exception e) {
+				if (!isAdded()) return;
 				if (progress != null) progress.setVisibility(View.GONE);
-				if (empty != null) empty.setVisibility(View.VISIBLE);
-			});
-		});
+				if (empty != null && adapter != null && adapter.getItemCount() == 0) empty.setVisibility(View.VISIBLE);
+			}
+		};
 	}
 }
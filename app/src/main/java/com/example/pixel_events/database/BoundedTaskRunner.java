@@ -0,0 +1,95 @@
+package com.example.pixel_events.database;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BoundedTaskRunner
+ *
+ * Starts a list of asynchronous Firestore operations with at most
+ * {@code maxInFlight} running at once. The returned Task completes after every
+ * operation has settled and yields the individual Tasks in submission order,
+ * so callers can inspect per-operation success or failure.
+ *
+ * Collaborators:
+ * - NotificationFanout: Parallel batch commits
+ * - DatabaseHandler: Chunked bulk reads
+ */
+public final class BoundedTaskRunner<T> {
+
+    /**
+     * Lazily starts one operation; invoked only when a slot is free.
+     */
+    public interface TaskFactory<T> {
+        Task<T> start();
+    }
+
+    private final List<TaskFactory<T>> factories;
+    private final List<Task<T>> started;
+    private final AtomicInteger next = new AtomicInteger(0);
+    private final AtomicInteger settled = new AtomicInteger(0);
+    private final TaskCompletionSource<List<Task<T>>> done = new TaskCompletionSource<>();
+
+    private BoundedTaskRunner(List<TaskFactory<T>> factories) {
+        this.factories = factories;
+        this.started = new ArrayList<>(factories.size());
+        for (int i = 0; i < factories.size(); i++) {
+            started.add(null);
+        }
+    }
+
+    /**
+     * Run every factory with bounded parallelism.
+     *
+     * @param factories   operations to start, in order
+     * @param maxInFlight maximum number of operations running concurrently
+     * @return task resolving to the settled tasks, in submission order; it never
+     *         fails itself
+     */
+    public static <T> Task<List<Task<T>>> runAll(List<TaskFactory<T>> factories, int maxInFlight) {
+        if (factories == null || factories.isEmpty()) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        BoundedTaskRunner<T> runner = new BoundedTaskRunner<>(new ArrayList<>(factories));
+        int lanes = Math.min(maxInFlight, factories.size());
+        for (int i = 0; i < lanes; i++) {
+            runner.launchNext();
+        }
+        return runner.done.getTask();
+    }
+
+    private void launchNext() {
+        int index = next.getAndIncrement();
+        if (index >= factories.size()) {
+            return;
+        }
+
+        Task<T> task;
+        try {
+            task = factories.get(index).start();
+        } catch (RuntimeException e) {
+            task = Tasks.forException(e);
+        }
+        synchronized (started) {
+            started.set(index, task);
+        }
+
+        task.addOnCompleteListener(t -> {
+            if (settled.incrementAndGet() == factories.size()) {
+                synchronized (started) {
+                    done.setResult(new ArrayList<>(started));
+                }
+            } else {
+                launchNext();
+            }
+        });
+    }
+}
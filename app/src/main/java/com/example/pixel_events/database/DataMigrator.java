@@ -0,0 +1,87 @@
+package com.example.pixel_events.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataMigrator
+ *
+ * Runs one-off Firestore data migrations (backfills) in order.
+ * Records the last completed step in SharedPreferences so each step runs at
+ * most once per install; a failed step stops the chain and is retried on the
+ * next launch.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Executes the individual backfills
+ * - AdminActivity: Triggers pending migrations on admin launch
+ */
+public class DataMigrator {
+    private static final String TAG = "DataMigrator";
+    private static final String PREFS_NAME = "pixels_prefs";
+    private static final String KEY_VERSION = "data_migration_version";
+
+    private interface Step {
+        Task<?> run();
+    }
+
+    private final Context context;
+    private final DatabaseHandler db;
+
+    public DataMigrator(Context context) {
+        this.context = context.getApplicationContext();
+        this.db = DatabaseHandler.getInstance();
+    }
+
+    /**
+     * Migration steps, in order. Append new steps; never reorder or remove.
+     */
+    private List<Step> steps() {
+        List<Step> steps = new ArrayList<>();
+        // 1: per-user membership index (AccountData/{id}/Memberships)
+        steps.add(db::backfillMemberships);
+        // 2: derived query fields on EventData (epoch-millis dates, tagsLower)
+        steps.add(db::backfillEventIndexFields);
+        // 3: waitList arrays -> WaitListData/{id}/Entrants + per-status Counters;
+        //    records MetaData/legacyWaitlists when none are left
+        steps.add(db::migrateWaitlistEntrants);
+        return steps;
+    }
+
+    /**
+     * Run every step that has not yet completed on this install.
+     */
+    public Task<Void> runPending() {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int completed = prefs.getInt(KEY_VERSION, 0);
+        List<Step> steps = steps();
+
+        Task<Void> chain = Tasks.forResult(null);
+        for (int i = completed; i < steps.size(); i++) {
+            final int version = i + 1;
+            final Step step = steps.get(i);
+            chain = chain.continueWithTask(previous -> {
+                if (!previous.isSuccessful()) {
+                    return previous;
+                }
+                return step.run().continueWith(t -> {
+                    if (!t.isSuccessful()) {
+                        Log.e(TAG, "Migration step " + version + " failed", t.getException());
+                        throw t.getException() != null ? t.getException()
+                                : new RuntimeException("Migration step " + version + " failed");
+                    }
+                    prefs.edit().putInt(KEY_VERSION, version).apply();
+                    Log.d(TAG, "Migration step " + version + " complete");
+                    return null;
+                });
+            });
+        }
+        return chain;
+    }
+}
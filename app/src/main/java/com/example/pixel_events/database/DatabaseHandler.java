@@ -4,20 +4,46 @@ import android.util.Log;
 
 import com.example.pixel_events.events.Event;
 import com.example.pixel_events.profile.Profile;
+import com.example.pixel_events.waitinglist.DrawResult;
+import com.example.pixel_events.waitinglist.LotteryEngine;
 import com.example.pixel_events.waitinglist.WaitingList;
 import com.example.pixel_events.waitinglist.WaitlistUser;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.TransactionOptions;
+import com.google.firebase.firestore.WriteBatch;
 import com.example.pixel_events.notifications.Notification;
+import com.example.pixel_events.utils.FieldCoercion;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 
@@ -47,11 +73,69 @@ import com.google.android.gms.tasks.Tasks;
  * - All fragments: Data access layer
  */
 public class DatabaseHandler {
+    // Per-user subcollection (AccountData/{userId}/Memberships/{eventId}) indexing joined waitlists
+    private static final String MEMBERSHIPS = "Memberships";
+    // Marker in Memberships: the user's legacy waitlist entries have been indexed
+    private static final String MEMBERSHIPS_INDEXED = "_indexed";
+    // MetaData/legacyWaitlists records that no WaitListData document embeds a waitList array
+    private static final String LEGACY_WAITLISTS_DOC = "legacyWaitlists";
+    // Per-event subcollections: one document per entrant, sharded counters per status
+    private static final String ENTRANTS = "Entrants";
+    private static final String COUNTERS = "Counters";
+    // WaitListData/{eventId}/Draw/alternates: seeded replacement order saved by the last draw
+    private static final String DRAW = "Draw";
+    private static final String ALTERNATES = "alternates";
+    // Alternates saved per draw; keeps the queue document around 10 KB
+    private static final int ALTERNATE_QUEUE_SIZE = 1000;
+    // Shards per status counter; each absorbs roughly one write per second
+    private static final int COUNTER_SHARDS = 8;
+    // WaitlistUser status codes
+    private static final int STATUS_WAITING = 0;
+    private static final int STATUS_SELECTED = 1;
+    private static final int STATUS_ACCEPTED = 2;
+    private static final int STATUS_DECLINED = 3;
+    // Firestore caps "in" filters at 30 values per query
+    private static final int WHERE_IN_LIMIT = 30;
+    // whereIn chunk queries running at once for one bulk read
+    private static final int MAX_READS_IN_FLIGHT = 4;
+    // Firestore caps a single WriteBatch at 500 operations
+    private static final int MAX_BATCH_OPS = 500;
+    // Admission slots (Admission/{shard}) splitting maxWaitlistSize between shards
+    private static final String ADMISSION = "Admission";
+    private static final int ADMISSION_SHARDS = 8;
+    // How long a scheduled draw may hold its claim before another device may retry it
+    private static final long SCHEDULED_DRAW_LEASE_MS = 10 * 60 * 1000L;
+    // MetaData/eventIndex records which derived EventData query fields are backfilled
+    private static final String EVENT_INDEX_DOC = "eventIndex";
+    // 1: epoch-millis date fields, 2: tagsLower, 3: dates in EventDates.EVENT_ZONE.
+    // Bump when a derived field is added or its derivation changes
+    private static final int EVENT_INDEX_VERSION = 3;
+    // Restarts of a lottery draw that lost the race to a concurrent draw
+    private static final int DRAW_CONFLICT_RETRIES = 3;
+    // Bounded retries for contended waitlist transactions; the SDK backs off
+    // exponentially between attempts
+    private static final TransactionOptions WAITLIST_TRANSACTION_OPTIONS = new TransactionOptions.Builder()
+            .setMaxAttempts(8)
+            .build();
+
     private static DatabaseHandler instance;
     private final FirebaseFirestore db;
     private final CollectionReference accRef;
     private final CollectionReference eventRef;
     private final CollectionReference waitListRef;
+    private final CollectionReference metaRef;
+    private final NotificationFanout notificationFanout;
+    private final NotificationPreferenceResolver preferenceResolver;
+    private final ProfileCache profileCache;
+    private final WriteCoalescer writeCoalescer;
+    private final RedrawCoordinator redrawCoordinator;
+    // Events whose legacy waitList array is known to be migrated, and migrations in flight
+    private final Set<Integer> migratedEntrantEvents = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Task<Integer>> entrantMigrations = new HashMap<>();
+    // Resolves to whether every event carries the indexed query fields
+    private Task<Boolean> eventIndexReady;
+    // Resolves to whether every legacy waitList array has been migrated
+    private Task<Boolean> legacyWaitlistsMigrated;
 
     /**
      * Initialize the database
@@ -78,6 +162,12 @@ public class DatabaseHandler {
         accRef = db.collection("AccountData");
         eventRef = db.collection("EventData");
         waitListRef = db.collection("WaitListData");
+        metaRef = db.collection("MetaData");
+        notificationFanout = new NotificationFanout(db, accRef);
+        preferenceResolver = new NotificationPreferenceResolver(this);
+        profileCache = new ProfileCache(this::loadProfile);
+        writeCoalescer = new WriteCoalescer(this);
+        redrawCoordinator = new RedrawCoordinator(this);
     }
 
     public static synchronized DatabaseHandler getInstance() {
@@ -148,45 +238,86 @@ public class DatabaseHandler {
             Object id,
             Map<String, Object> updates,
             Consumer<String> errorCallback) {
-        // First check if the document exists
-        reference.document(String.valueOf(id))
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot.exists()) {
-                        // Document exists, perform update
-                        reference.document(String.valueOf(id))
-                                .update(updates)
-                                .addOnSuccessListener(unused -> {
-                                    Log.d("DB", "Updated user " + id + " with " +
-                                            updates.size() + " field(s)");
-                                    if (errorCallback != null) {
-                                        errorCallback.accept(null); // Success, no error
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("DB", "Error updating user " + id, e);
-                                    if (errorCallback != null) {
-                                        errorCallback.accept("Failed to update: " +
-                                                e.getMessage());
-                                    }
-                                });
+        update(reference, id, updates)
+                .addOnSuccessListener(unused -> {
+                    if (errorCallback != null) {
+                        errorCallback.accept(null); // Success, no error
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (errorCallback == null)
+                        return;
+                    if (isNotFound(e)) {
+                        errorCallback.accept("User ID " + id + " does not exist in database");
                     } else {
-                        // Document doesn't exist
-                        String errorMsg = "User ID " + id + " does not exist in database";
-                        Log.e("DB", errorMsg);
-                        if (errorCallback != null) {
-                            errorCallback.accept(errorMsg);
-                        }
+                        errorCallback.accept("Failed to update: " + e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Write the given fields to an existing document in one round trip.
+     * update() carries an exists precondition, so a missing document fails
+     * with NOT_FOUND instead of needing a read first.
+     */
+    public Task<Void> update(CollectionReference reference, Object id, Map<String, Object> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        if (reference == accRef) {
+            invalidateProfile(id);
+        }
+        return reference.document(String.valueOf(id))
+                .update(new HashMap<>(updates))
+                .addOnSuccessListener(unused -> {
+                    if (reference == accRef) {
+                        // Drop anything read while the write was pending
+                        invalidateProfile(id);
                     }
+                    Log.d("DB", "Updated " + reference.getId() + "/" + id + " with " +
+                            updates.size() + " field(s)");
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("DB", "Error checking if user exists: " + id, e);
-                    if (errorCallback != null) {
-                        errorCallback.accept("Error checking user existence: " + e.getMessage());
+                    if (isNotFound(e)) {
+                        Log.e("DB", reference.getId() + "/" + id + " does not exist in database");
+                    } else {
+                        Log.e("DB", "Error updating " + reference.getId() + "/" + id, e);
                     }
                 });
     }
 
+    /**
+     * Queue fields for a debounced write. Edits to the same document within
+     * WriteCoalescer.DEBOUNCE_MS merge into a single update().
+     */
+    public Task<Void> enqueueUpdate(CollectionReference reference, Object id, Map<String, Object> updates) {
+        return writeCoalescer.enqueue(reference, id, updates);
+    }
+
+    /**
+     * Write any debounced updates now (e.g. when a screen is closing).
+     */
+    public void flushPendingUpdates() {
+        writeCoalescer.flushAll();
+    }
+
+    static boolean isNotFound(Exception e) {
+        return e instanceof FirebaseFirestoreException
+                && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.NOT_FOUND;
+    }
+
+    /**
+     * Drop any cached data derived from a profile that is being written.
+     */
+    private void invalidateProfile(Object id) {
+        try {
+            int userId = Integer.parseInt(String.valueOf(id));
+            profileCache.invalidate(userId);
+            preferenceResolver.invalidate(userId);
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
     // NOTIFICATION FUNCTIONS
     // -----------------------------------------------------------------------
 
@@ -211,6 +342,17 @@ public class DatabaseHandler {
                 .set(notification);
     }
 
+    /**
+     * Delivers many notifications at once using batched inbox + log writes.
+     * Each notification must have its recipientId set.
+     *
+     * @return task that completes once every batch is durable or has failed,
+     *         with a per-batch report
+     */
+    public Task<NotificationFanout.Result> addNotifications(List<Notification> notifications) {
+        return notificationFanout.send(notifications);
+    }
+
     /**
      * Listens for real-time notifications for a specific user.
      */
@@ -242,134 +384,252 @@ public class DatabaseHandler {
     // -----------------------------------------------------------------------
 
     public void sendInviteNotification(int eventId, String eventTitle, int userId) {
-        checkNotificationPreferences(userId, prefs -> {
-            if (prefs == null || prefs.isEmpty() || prefs.size() < 1 || prefs.get(0)) {
-                Notification n = new Notification("Event Invitation",
-                    "You have been invited to sign up for " + eventTitle,
-                    "INVITE", eventId, userId);
-                addNotification(userId, n);
-            }
-        });
+        sendIfAllowed(userId, NotificationPreferenceResolver.PREF_INVITE, () -> new Notification("Event Invitation",
+                "You have been invited to sign up for " + eventTitle,
+                "INVITE", eventId, userId));
     }
 
     public void sendWinNotification(int eventId, String eventTitle, int userId) {
-        checkNotificationPreferences(userId, prefs -> {
-            if (prefs == null || prefs.isEmpty() || prefs.size() < 2 || prefs.get(1)) {
-                Notification n = new Notification("Lottery Won!",
-                        "You have been selected for " + eventTitle + ". Please sign up!",
-                        "LOTTERY_WIN", eventId, userId);
-                addNotification(userId, n);
-            }
-        });
+        sendIfAllowed(userId, NotificationPreferenceResolver.PREF_WIN, () -> winNotification(eventId, eventTitle, userId));
     }
 
     public void sendLossNotification(int eventId, String eventTitle, int userId) {
-        checkNotificationPreferences(userId, prefs -> {
-            if (prefs == null || prefs.isEmpty() || prefs.size() < 3 || prefs.get(2)) {
-                Notification n = new Notification("Lottery Result",
-                    "Unfortunately you were not selected for " + eventTitle + ".",
-                    "LOTTERY_LOSS", eventId, userId);
-                addNotification(userId, n);
-            }
-        });
+        sendIfAllowed(userId, NotificationPreferenceResolver.PREF_LOSS, () -> lossNotification(eventId, eventTitle, userId));
     }
 
-    private void checkNotificationPreferences(int userId,
-            java.util.function.Consumer<java.util.List<Boolean>> callback) {
-        getProfile(userId, profile -> {
-            if (profile != null && profile.getNotify() != null) {
-                callback.accept(profile.getNotify());
-            } else {
-                callback.accept(null); // Default: send all notifications
-            }
-        }, e -> callback.accept(null)); // On error, send notifications anyway
+    /**
+     * US 01.04.01, 01.04.02 - Notify every winner and loser of a draw.
+     * Preferences for all recipients are resolved in bulk and the permitted
+     * notifications are written with batched commits.
+     */
+    public Task<NotificationFanout.Result> sendLotteryResultNotifications(int eventId, String eventTitle,
+            List<Integer> winnerIds, List<Integer> loserIds) {
+        return sendLotteryResultNotifications(eventId, eventTitle, winnerIds, loserIds, null);
+    }
+
+    /**
+     * @param drawSeed when set, each notification id is derived from the
+     *                 draw and the recipient, so sending the same result
+     *                 again overwrites instead of duplicating
+     */
+    private Task<NotificationFanout.Result> sendLotteryResultNotifications(int eventId, String eventTitle,
+            List<Integer> winnerIds, List<Integer> loserIds, Long drawSeed) {
+        List<Integer> recipients = new ArrayList<>(winnerIds);
+        recipients.addAll(loserIds);
+        return preferenceResolver.resolve(recipients)
+                .continueWith(task -> {
+                    // On error, send notifications anyway
+                    Map<Integer, List<Boolean>> prefs = task.isSuccessful() ? task.getResult()
+                            : java.util.Collections.emptyMap();
+                    if (!task.isSuccessful()) {
+                        Log.e("DB", "Failed to resolve notification preferences", task.getException());
+                    }
+                    List<Notification> notifications = new ArrayList<>();
+                    for (Integer id : winnerIds) {
+                        if (NotificationPreferenceResolver.allows(prefs.get(id), NotificationPreferenceResolver.PREF_WIN))
+                            notifications.add(winNotification(eventId, eventTitle, id));
+                    }
+                    for (Integer id : loserIds) {
+                        if (NotificationPreferenceResolver.allows(prefs.get(id), NotificationPreferenceResolver.PREF_LOSS))
+                            notifications.add(lossNotification(eventId, eventTitle, id));
+                    }
+                    if (drawSeed != null) {
+                        for (Notification n : notifications) {
+                            n.setNotificationId("lottery-" + eventId + "-" + drawSeed + "-" + n.getRecipientId());
+                        }
+                    }
+                    return notifications;
+                })
+                .continueWithTask(task -> addNotifications(task.getResult()));
+    }
+
+    private Notification winNotification(int eventId, String eventTitle, int userId) {
+        return new Notification("Lottery Won!",
+                "You have been selected for " + eventTitle + ". Please sign up!",
+                "LOTTERY_WIN", eventId, userId);
+    }
+
+    private Notification lossNotification(int eventId, String eventTitle, int userId) {
+        return new Notification("Lottery Result",
+                "Unfortunately you were not selected for " + eventTitle + ".",
+                "LOTTERY_LOSS", eventId, userId);
+    }
+
+    private void sendIfAllowed(int userId, int prefIndex, java.util.function.Supplier<Notification> notification) {
+        preferenceResolver.resolve(java.util.Collections.singletonList(userId))
+                .addOnSuccessListener(prefs -> {
+                    if (NotificationPreferenceResolver.allows(prefs.get(userId), prefIndex)) {
+                        addNotification(userId, notification.get());
+                    }
+                })
+                // On error, send notifications anyway
+                .addOnFailureListener(e -> addNotification(userId, notification.get()));
     }
 
     /**
      * US 02.07.01 - Send notification to all entrants on waiting list
      */
     public void sendNotificationToAllWaitlist(int eventId, String eventTitle, String message, int senderId) {
-        getWaitingList(eventId, waitList -> {
-            if (waitList != null && waitList.getWaitList() != null) {
-                for (WaitlistUser user : waitList.getWaitList()) {
-                    Notification n = new Notification(
-                        "Message from Organizer",
-                        message,
-                        "ORGANIZER_MESSAGE",
-                        eventId,
-                        user.getUserId(),
-                        senderId);
-                    addNotification(user.getUserId(), n);
-                }
-            }
-        }, e -> Log.e("DB", "Failed to get waitlist for sending notifications", e));
+        sendOrganizerMessage(eventId, message, senderId, null);
     }
 
     /**
      * US 02.07.02 - Send notification to selected entrants
      */
     public void sendNotificationToSelected(int eventId, String eventTitle, String message, int senderId) {
-        getWaitingList(eventId, waitList -> {
-            if (waitList != null && waitList.getWaitList() != null) {
-                for (WaitlistUser user : waitList.getWaitList()) {
-                    if (user.getStatus() == 1) { // Selected (won lottery)
-                        Notification n = new Notification(
-                            "Message from Organizer",
-                            message,
-                            "ORGANIZER_MESSAGE",
-                            eventId,
-                            user.getUserId(),
-                            senderId
-                        );
-                        addNotification(user.getUserId(), n);
-                    }
-                }
-            }
-        }, e -> Log.e("DB", "Failed to get waitlist for sending notifications", e));
+        sendOrganizerMessage(eventId, message, senderId, 1); // Selected (won lottery)
     }
 
     /**
      * US 02.07.03 - Send notification to cancelled entrants
      */
     public void sendNotificationToCancelled(int eventId, String eventTitle, String message, int senderId) {
-        getWaitingList(eventId, waitList -> {
-            if (waitList != null && waitList.getWaitList() != null) {
-                for (WaitlistUser user : waitList.getWaitList()) {
-                    if (user.getStatus() == 3) { // Declined/cancelled
-                        Notification n = new Notification(
-                            "Message from Organizer",
-                            message,
-                            "ORGANIZER_MESSAGE",
-                            eventId,
-                            user.getUserId(),
-                            senderId
-                        );
-                        addNotification(user.getUserId(), n);
-                    }
+        sendOrganizerMessage(eventId, message, senderId, 3); // Declined/cancelled
+    }
+
+    /**
+     * Fan an organizer message out to the event's entrants.
+     *
+     * @param status only entrants with this status, or null for everyone
+     */
+    private void sendOrganizerMessage(int eventId, String message, int senderId, Integer status) {
+        // The status filter runs server-side on the indexed entrant field
+        Query entrants = status == null ? entrantsRef(eventId) : entrantsRef(eventId).whereEqualTo("status", status);
+        entrants.get().addOnSuccessListener(snapshot -> {
+            List<Notification> batch = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : snapshot) {
+                WaitlistUser user = WaitlistUser.fromValue(doc.getData());
+                if (user == null) {
+                    continue;
                 }
+                batch.add(new Notification(
+                    "Message from Organizer",
+                    message,
+                    "ORGANIZER_MESSAGE",
+                    eventId,
+                    user.getUserId(),
+                    senderId));
             }
-        }, e -> Log.e("DB", "Failed to get waitlist for sending notifications", e));
+            addNotifications(batch);
+        }).addOnFailureListener(e -> Log.e("DB", "Failed to get waitlist for sending notifications", e));
     }
 
     // ACCOUNT INFO FUNCTIONS
     // ---------------------------------------------------------------------
 
+    /**
+     * Add a newly signed-up account. A new user has no entries in the legacy
+     * waitList arrays, so the membership index is marked as complete with it.
+     */
+    public void createAcc(Profile newUser) {
+        invalidateProfile(newUser.getUserId());
+        DocumentReference account = accRef.document(String.valueOf(newUser.getUserId()));
+        Map<String, Object> marker = new HashMap<>();
+        marker.put("indexedAt", FieldValue.serverTimestamp());
+        WriteBatch batch = db.batch();
+        batch.set(account, newUser);
+        batch.set(account.collection(MEMBERSHIPS).document(MEMBERSHIPS_INDEXED), marker);
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    invalidateProfile(newUser.getUserId());
+                    Log.d("DB", "Added User: " + newUser.getUserName());
+                })
+                .addOnFailureListener(e -> Log.w("DB", "Error adding user!", e));
+    }
+
     public void addAcc(Profile newUser) {
+        invalidateProfile(newUser.getUserId());
         // Add the account to DB
         accRef.document(String.valueOf(newUser.getUserId()))
                 .set(newUser)
-                .addOnSuccessListener(unused -> Log.d("DB", "Added User: " + newUser.getUserName()))
+                .addOnSuccessListener(unused -> {
+                    invalidateProfile(newUser.getUserId());
+                    Log.d("DB", "Added User: " + newUser.getUserName());
+                })
                 .addOnFailureListener(e -> Log.w("DB", "Error adding user!", e));
     }
 
+    /**
+     * Fetch a profile by id. Served from the in-memory profile cache when
+     * possible; concurrent lookups for the same id share one read.
+     *
+     * @param id            The user id
+     * @param listener      Success callback with the Profile object (or null if not
+     *                      found)
+     * @param errorListener Failure callback
+     */
     public void getProfile(int id,
             OnSuccessListener<Profile> listener,
             OnFailureListener errorListener) {
+        profileCache.get(id, listener, errorListener);
+    }
+
+    /**
+     * Hit/miss counters of the profile cache.
+     */
+    public ProfileCache.Stats getProfileCacheStats() {
+        return profileCache.getStats();
+    }
+
+    /**
+     * Read many profiles at once. Ids are de-duplicated and cached profiles
+     * are reused; the rest are read with whereIn queries of at most 30 ids,
+     * {@link #MAX_READS_IN_FLIGHT} at a time, and added to the profile cache.
+     * The task fails if any chunk fails.
+     *
+     * @return task resolving to the profiles in the order of userIds; ids
+     *         without an account map to null
+     */
+    public Task<Map<Integer, Profile>> getProfiles(Collection<Integer> userIds) {
+        Map<Integer, Profile> found = new HashMap<>();
+        Set<Integer> wanted = new LinkedHashSet<>(userIds);
+        wanted.remove(null);
+        List<Integer> missing = profileCache.collect(wanted, found);
+        Set<Integer> uncached = new HashSet<>(missing);
+        Task<List<DocumentSnapshot>> read = missing.isEmpty()
+                ? Tasks.forResult(new ArrayList<>())
+                : fetchDocumentsByIds(accRef, missing);
+        return read.continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read profiles");
+            }
+            for (DocumentSnapshot doc : task.getResult()) {
+                try {
+                    Profile profile = decodeProfile(doc);
+                    if (profile != null) {
+                        found.put(profile.getUserId(), profile);
+                    }
+                } catch (RuntimeException ex) {
+                    Log.e("DB", "Failed to deserialize Profile doc: " + doc.getId(), ex);
+                }
+            }
+            Map<Integer, Profile> profiles = new LinkedHashMap<>();
+            int notFound = 0;
+            for (Integer id : wanted) {
+                Profile profile = found.get(id);
+                profiles.put(id, profile);
+                if (profile == null)
+                    notFound++;
+                if (uncached.contains(id)) {
+                    profileCache.put(id, profile);
+                }
+            }
+            if (notFound > 0) {
+                Log.d("DB", notFound + " of " + wanted.size() + " profiles not found");
+            }
+            return profiles;
+        });
+    }
+
+    private void loadProfile(int id,
+            OnSuccessListener<Profile> listener,
+            OnFailureListener errorListener) {
         accRef.document(String.valueOf(id))
                 .get()
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot.exists()) {
-                        listener.onSuccess(snapshot.toObject(Profile.class));
+                        listener.onSuccess(decodeProfile(snapshot));
                     } else {
                         listener.onSuccess(null);
                     }
@@ -398,36 +658,7 @@ public class DatabaseHandler {
                     if (!querySnapshot.isEmpty()) {
                         DocumentSnapshot document = querySnapshot.getDocuments().get(0);
                         try {
-                            // Manually map fields to avoid strict type issues if any
-                            int id = 0;
-                            Object idObj = document.get("userId"); // Try "userId" first
-                            if (idObj == null)
-                                idObj = document.get("id"); // Fallback to "id"
-
-                            if (idObj instanceof Number) {
-                                id = ((Number) idObj).intValue();
-                            } else if (idObj instanceof String) {
-                                try {
-                                    id = Integer.parseInt((String) idObj);
-                                } catch (NumberFormatException e) {
-                                    id = 0;
-                                }
-                            }
-
-                            if (id == 0) {
-                                // Try to parse from document ID if it's an int
-                                try {
-                                    id = Integer.parseInt(document.getId());
-                                } catch (NumberFormatException e) {
-                                    // ignore
-                                }
-                            }
-
-                            Profile profile = document.toObject(Profile.class);
-                            // Ensure ID is set if toObject didn't catch it (e.g. if field name mismatch)
-                            if (profile != null && profile.getUserId() == 0) {
-                                profile.setUserId(id);
-                            }
+                            Profile profile = decodeProfile(document);
                             listener.onSuccess(profile);
                         } catch (Exception e) {
                             Log.e("DB", "Error parsing profile", e);
@@ -444,6 +675,7 @@ public class DatabaseHandler {
     }
 
     public void deleteAcc(int userID) {
+        invalidateProfile(userID);
         // 1. Notify User
         Notification notice = new Notification(
             "Profile Deleted",
@@ -456,7 +688,10 @@ public class DatabaseHandler {
 
         accRef.document(String.valueOf(userID))
                 .delete()
-                .addOnSuccessListener(unused -> Log.d("DB", "Deleted user: " + userID))
+                .addOnSuccessListener(unused -> {
+                    invalidateProfile(userID);
+                    Log.d("DB", "Deleted user: " + userID);
+                })
                 .addOnFailureListener(e -> Log.e("DB", "Error deleting user " + userID, e));
 
         
@@ -472,61 +707,22 @@ public class DatabaseHandler {
                     }
                 });
 
-        // 2) Remove user from waitlists and redraw if they had accepted
-        waitListRef.get()
-                .addOnSuccessListener(querySnapshot -> {
-                    java.util.List<com.google.android.gms.tasks.Task<Void>> removals = new java.util.ArrayList<>();
-                    java.util.List<Integer> redrawEvents = new java.util.ArrayList<>();
-
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        int eventId;
-                        try {
-                            eventId = Integer.parseInt(doc.getId());
-                        } catch (NumberFormatException ex) {
-                            continue;
-                        }
-
-                        // Coerce to WaitingList for simple inspection
-                        WaitingList wl = safeMapWaitingList(doc);
-                        if (wl == null || wl.getWaitList() == null)
-                            continue;
-
-                        boolean containsUser = false;
-                        boolean accepted = false;
-                        for (com.example.pixel_events.waitinglist.WaitlistUser u : wl.getWaitList()) {
-                            if (u.getUserId() == userID) {
-                                containsUser = true;
-                                if (u.getStatus() == 2)
-                                    accepted = true;
-                                break;
-                            }
-                        }
-
-                        if (containsUser) {
-                            removals.add(leaveWaitingList(eventId, userID));
-                            if (accepted)
-                                redrawEvents.add(eventId);
-                        }
+        // 2) Remove user from the waitlists in their membership index and
+        // redraw where they had accepted
+        getEventIdsForUser(userID)
+                .addOnSuccessListener(eventIds -> {
+                    List<Task<Integer>> removals = new ArrayList<>();
+                    for (Integer eventId : eventIds) {
+                        removals.add(removeEntrant(eventId, userID));
                     }
 
-                    Tasks.whenAll(removals).addOnSuccessListener(unused -> {
-                        // Trigger redraws for freed accepted slots
-                        for (Integer eid : redrawEvents) {
-                            getWaitingList(eid, wl -> {
-                                if (wl != null) {
-                                    wl.drawLottery(new WaitingList.OnLotteryDrawnListener() {
-                                        @Override
-                                        public void onSuccess(int n) {
-                                            Log.d("DB", "Redrew lottery for " + eid + "; selected=" + n);
-                                        }
-
-                                        @Override
-                                        public void onFailure(Exception e) {
-                                            Log.e("DB", "Redraw failed for " + eid, e);
-                                        }
-                                    });
-                                }
-                            }, e -> Log.e("DB", "Failed to load waitlist for redraw: " + eid, e));
+                    Tasks.<Integer>whenAllSuccess(removals).addOnSuccessListener(statuses -> {
+                        // Fill seats freed by selected or accepted entrants
+                        for (int i = 0; i < eventIds.size(); i++) {
+                            Integer removed = statuses.get(i);
+                            if (removed == null || (removed != STATUS_SELECTED && removed != STATUS_ACCEPTED))
+                                continue;
+                            requestRedraw(eventIds.get(i));
                         }
 
                         // 3) Delete account document
@@ -564,7 +760,7 @@ public class DatabaseHandler {
                     java.util.List<Profile> profiles = new java.util.ArrayList<>();
                     for (QueryDocumentSnapshot document : querySnapshot) {
                         try {
-                            Profile p = document.toObject(Profile.class);
+                            Profile p = decodeProfile(document);
                             if (p != null) {
                                 profiles.add(p);
                             }
@@ -604,7 +800,7 @@ public class DatabaseHandler {
                 .addOnSuccessListener(snapshot -> {
                     if (snapshot.exists()) {
                         try {
-                            Event ev = safeMapEvent(snapshot);
+                            Event ev = decodeEvent(snapshot);
                             listener.onSuccess(ev);
                         } catch (RuntimeException ex) {
                             Log.e("DB", "Failed to deserialize Event", ex);
@@ -627,7 +823,7 @@ public class DatabaseHandler {
                     java.util.List<Event> events = new java.util.ArrayList<>();
                     for (QueryDocumentSnapshot document : querySnapshot) {
                         try {
-                            Event ev = safeMapEvent(document);
+                            Event ev = decodeEvent(document);
                             if (ev != null) {
                                 events.add(ev);
                             }
@@ -643,6 +839,105 @@ public class DatabaseHandler {
                 });
     }
 
+    /**
+     * US 01.01.03, 01.01.04 - Read one page of events matching a server-side
+     * filter. Until the indexed query fields are known to be backfilled on
+     * every event, the filter runs on the client over all events instead, so
+     * older events are not left out; that result is a single page.
+     *
+     * @param query         Filter to apply; use an empty EventQuery for all events
+     * @param pageSize      Maximum number of events in the page
+     * @param cursor        getCursor() of the previous page, or null for the first
+     * @param listener      Success callback with the page
+     * @param errorListener Failure callback
+     */
+    public void queryEvents(EventQuery query, int pageSize, DocumentSnapshot cursor,
+            OnSuccessListener<EventPage> listener,
+            OnFailureListener errorListener) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        ensureEventIndex().addOnCompleteListener(ready -> {
+            if (Boolean.TRUE.equals(ready.getResult())) {
+                queryIndexedEvents(query, pageSize, cursor, listener, errorListener);
+            } else {
+                filterAllEvents(query, listener, errorListener);
+            }
+        });
+    }
+
+    private void queryIndexedEvents(EventQuery query, int pageSize, DocumentSnapshot cursor,
+            OnSuccessListener<EventPage> listener,
+            OnFailureListener errorListener) {
+        Query q = query.build(eventRef);
+        if (cursor != null) {
+            q = q.startAfter(cursor);
+        }
+        // Read one extra document to learn whether another page exists
+        q.limit(pageSize + 1L)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    boolean hasMore = docs.size() > pageSize;
+                    List<DocumentSnapshot> page = hasMore ? docs.subList(0, pageSize) : docs;
+                    DocumentSnapshot last = page.isEmpty() ? null : page.get(page.size() - 1);
+                    listener.onSuccess(new EventPage(mapEvents(page), last, hasMore));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error querying events", e);
+                    errorListener.onFailure(e);
+                });
+    }
+
+    private void filterAllEvents(EventQuery query,
+            OnSuccessListener<EventPage> listener,
+            OnFailureListener errorListener) {
+        eventRef.orderBy(FieldPath.documentId())
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    List<Event> matched = new ArrayList<>();
+                    for (Event ev : mapEvents(querySnapshot.getDocuments())) {
+                        if (query.matches(ev)) {
+                            matched.add(ev);
+                        }
+                    }
+                    Log.d("DB", "Filtered " + matched.size() + " events on the client");
+                    listener.onSuccess(new EventPage(matched, null, false));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error querying events", e);
+                    errorListener.onFailure(e);
+                });
+    }
+
+    /**
+     * Check once per process that the derived query fields are backfilled,
+     * running the backfill if no client has completed it yet. A failed
+     * check is retried by the next query.
+     */
+    private synchronized Task<Boolean> ensureEventIndex() {
+        if (eventIndexReady == null) {
+            eventIndexReady = metaRef.document(EVENT_INDEX_DOC).get().continueWithTask(task -> {
+                if (task.isSuccessful()) {
+                    Long version = FieldCoercion.asLong(task.getResult().get("version"));
+                    if (version != null && version >= EVENT_INDEX_VERSION) {
+                        return Tasks.forResult(true);
+                    }
+                }
+                return backfillEventIndexFields().continueWith(backfill -> backfill.isSuccessful());
+            }).continueWith(task -> {
+                boolean ready = task.isSuccessful() && Boolean.TRUE.equals(task.getResult());
+                if (!ready) {
+                    synchronized (this) {
+                        eventIndexReady = null;
+                    }
+                }
+                return ready;
+            });
+        }
+        return eventIndexReady;
+    }
+
     public void deleteEvent(int eventID) {
         // 0. Notify Organizer
         getEvent(eventID, event -> {
@@ -659,47 +954,40 @@ public class DatabaseHandler {
             }
         }, e -> Log.e("DB", "Error fetching event for organizer notification", e));
 
-        // 1. Notify all entrants in waitlist and selected list
+        // 1. Notify all entrants (selected users are part of the waitlist too)
         getWaitingList(eventID, waitList -> {
-            if (waitList != null) {
-                // Notify waitlist
-                if (waitList.getWaitList() != null) {
-                    for (com.example.pixel_events.waitinglist.WaitlistUser user : waitList.getWaitList()) {
-                        Notification notice = new Notification(
-                            "Event Cancelled",
-                            "The event you interacted with has been cancelled by the Admin.",
-                            "ADMIN_DELETE",
-                            eventID,
-                            user.getUserId()
-                        );
-                        addNotification(user.getUserId(), notice);
-                    }
-                }
-                // Notify selected
-                if (waitList.getSelected() != null) {
-                    for (com.example.pixel_events.waitinglist.WaitlistUser user : waitList.getSelected()) {
-                        Notification notice = new Notification(
-                            "Event Cancelled",
-                            "The event you interacted with has been cancelled by the Admin.",
-                            "ADMIN_DELETE",
-                            eventID,
-                            user.getUserId()
-                        );
-                        addNotification(user.getUserId(), notice);
-                    }
+            List<Notification> notices = new ArrayList<>();
+            if (waitList != null && waitList.getWaitList() != null) {
+                java.util.Set<Integer> notified = new java.util.HashSet<>();
+                for (WaitlistUser user : waitList.getWaitList()) {
+                    if (!notified.add(user.getUserId()))
+                        continue;
+                    notices.add(new Notification(
+                        "Event Cancelled",
+                        "The event you interacted with has been cancelled by the Admin.",
+                        "ADMIN_DELETE",
+                        eventID,
+                        user.getUserId()
+                    ));
                 }
+
+                // 2. Drop the entrants' membership index entries for this event
+                deleteMemberships(eventID, waitList.getWaitList());
             }
-            
-            // 2. Delete event and waitlist after notifying
-            eventRef.document(String.valueOf(eventID))
-                    .delete()
-                    .addOnSuccessListener(unused -> Log.d("DB", "Deleted event: " + eventID))
-                    .addOnFailureListener(e -> Log.e("DB", "Error deleting event " + eventID, e));
-            waitListRef.document(String.valueOf(eventID))
-                    .delete()
-                    .addOnSuccessListener(unused -> Log.d("DB", "Deleted Waitlist for event: " + eventID))
-                    .addOnFailureListener(e -> Log.e("DB", "Error deleting event " + eventID, e));
-            
+            List<WaitlistUser> entrants = waitList != null && waitList.getWaitList() != null
+                    ? waitList.getWaitList() : new ArrayList<>();
+
+            // 3. Delete event and waitlist once the notices are durable
+            addNotifications(notices).addOnCompleteListener(sent -> {
+                eventRef.document(String.valueOf(eventID))
+                        .delete()
+                        .addOnSuccessListener(unused -> Log.d("DB", "Deleted event: " + eventID))
+                        .addOnFailureListener(e -> Log.e("DB", "Error deleting event " + eventID, e));
+                deleteWaitlistDocuments(eventID, entrants)
+                        .addOnSuccessListener(unused -> Log.d("DB", "Deleted Waitlist for event: " + eventID))
+                        .addOnFailureListener(e -> Log.e("DB", "Error deleting event " + eventID, e));
+            });
+
         }, e -> Log.e("DB", "Error fetching waitlist for delete notification", e));
     }
 
@@ -707,145 +995,1068 @@ public class DatabaseHandler {
     // -----------------------------------------------------------------------
 
     /**
-     * Ensures the waitlist document exists for the given event.
-     * If it does not exist, creates a minimal document with empty arrays.
+     * Adds the user to the event waitlist (idempotent).
+     * The entrant is its own document (WaitListData/{eventId}/Entrants/{userId}),
+     * so concurrent joins touch different documents; only the per-status
+     * counter is shared. Duplicate detection, admission, the counter and the
+     * membership index entry are written in one transaction.
+     * <p>
+     * maxWaitlistSize is split into ADMISSION_SHARDS quotas, each tracked by
+     * an Admission/{shard} document. A join takes a slot from a random shard
+     * with room, so the limit is exact and simultaneous joins rarely contend
+     * on the same document. When every shard is full the waitlist records
+     * admissionFullAt, and later joins fail with WaitlistFullException after
+     * reading only the entrant and waitlist documents.
      */
-    private Task<Void> ensureWaitListExists(int eventId) {
-        String docId = String.valueOf(eventId);
-        return waitListRef.document(docId)
-                .get()
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) {
-                        Exception e = task.getException();
-                        return Tasks.forException(e != null ? e : new RuntimeException("Failed to read waitlist"));
-                    }
-                    DocumentSnapshot snapshot = task.getResult();
-                    if (snapshot != null && snapshot.exists()) {
-                        return Tasks.forResult(null);
-                    }
-                    java.util.Map<String, Object> init = new java.util.HashMap<>();
-                    init.put("eventId", eventId);
-                    init.put("waitList", java.util.Collections.emptyList());
-                    return waitListRef.document(docId).set(init).continueWith(t -> null);
-                });
+    public Task<Void> joinWaitingList(int eventId, int userId) {
+        return afterEntrantMigration(eventId, () -> addEntrant(eventId, userId));
     }
 
-    /**
-     * Adds the user id to the event waitlist (idempotent).
-     */
-    public Task<Void> joinWaitingList(int eventId, int userId) {
-        String docId = String.valueOf(eventId);
-        return ensureWaitListExists(eventId)
-                .continueWithTask(t -> waitListRef.document(docId).get())
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) {
-                        return Tasks.forException(task.getException() != null ? task.getException()
-                                : new RuntimeException("Failed to read waitlist"));
+    private Task<Void> addEntrant(int eventId, int userId) {
+        DocumentReference waitListDoc = waitListRef.document(String.valueOf(eventId));
+        DocumentReference entrantDoc = entrantRef(eventId, userId);
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            DocumentSnapshot entrant = transaction.get(entrantDoc);
+            if (entrant.exists()) {
+                // Already joined; only repair the membership index if it is missing
+                transaction.set(membershipRef(userId, eventId), membershipData(eventId, false), SetOptions.merge());
+                return Boolean.TRUE;
+            }
+            DocumentSnapshot parent = transaction.get(waitListDoc);
+            Long max = parent.exists() ? FieldCoercion.asLong(parent.get("maxWaitlistSize")) : null;
+            int shard = -1;
+            if (max != null) {
+                Long fullAt = FieldCoercion.asLong(parent.get("admissionFullAt"));
+                if (max.equals(fullAt)) {
+                    throw new WaitlistFullException(eventId);
+                }
+                shard = findAdmissionShard(transaction, eventId, max);
+                if (shard < 0) {
+                    // The waitlist document is hot; only write the marker when it changes
+                    if (!max.equals(fullAt)) {
+                        transaction.update(waitListDoc, "admissionFullAt", max);
                     }
+                    return Boolean.FALSE;
+                }
+            }
+            if (!parent.exists()) {
+                Map<String, Object> init = new HashMap<>();
+                init.put("eventId", eventId);
+                init.put("status", "waiting");
+                transaction.set(waitListDoc, init);
+            }
 
-                    DocumentSnapshot snapshot = task.getResult();
-                    if (snapshot == null || !snapshot.exists()) {
-                        return Tasks.forException(new RuntimeException("Waitlist not found"));
-                    }
+            Map<String, Object> data = entrantData(userId, STATUS_WAITING);
+            if (shard >= 0) {
+                data.put("admissionShard", shard);
+                transaction.set(admissionRef(eventId, shard), admissionDelta(1), SetOptions.merge());
+            }
+            transaction.set(entrantDoc, data);
+            transaction.set(counterShard(eventId, STATUS_WAITING), counterDelta(STATUS_WAITING, 1), SetOptions.merge());
+            transaction.set(membershipRef(userId, eventId), membershipData(eventId, true));
+            return Boolean.TRUE;
+        }).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to join waitlist");
+            }
+            if (!task.getResult()) {
+                throw new WaitlistFullException(eventId);
+            }
+            return null;
+        });
+    }
 
-                    // Get current waitList
-                    java.util.List<Object> waitList = (java.util.List<Object>) snapshot.get("waitList");
-                    if (waitList == null) {
-                        waitList = new java.util.ArrayList<>();
-                    }
+    /**
+     * Find an admission shard with a free slot, starting from a random one.
+     * Shards whose quota is zero are not read.
+     *
+     * @return the shard, or -1 if every shard is full
+     */
+    private int findAdmissionShard(Transaction transaction, int eventId, long max)
+            throws FirebaseFirestoreException {
+        int start = ThreadLocalRandom.current().nextInt(ADMISSION_SHARDS);
+        for (int i = 0; i < ADMISSION_SHARDS; i++) {
+            int shard = (start + i) % ADMISSION_SHARDS;
+            long quota = admissionQuota(max, shard);
+            if (quota == 0)
+                continue;
+            Long admitted = FieldCoercion.asLong(transaction.get(admissionRef(eventId, shard)).get("admitted"));
+            if (admitted == null || admitted < quota)
+                return shard;
+        }
+        return -1;
+    }
 
-                    // Check if user already exists
-                    boolean userExists = false;
-                    for (Object obj : waitList) {
-                        if (obj instanceof java.util.Map) {
-                            java.util.Map<String, Object> userMap = (java.util.Map<String, Object>) obj;
-                            Object uid = userMap.get("userId");
-                            int existingUserId = 0;
-                            if (uid instanceof Number) {
-                                existingUserId = ((Number) uid).intValue();
-                            } else if (uid instanceof String) {
-                                try {
-                                    existingUserId = Integer.parseInt((String) uid);
-                                } catch (NumberFormatException e) {
-                                    // ignore
-                                }
-                            }
-                            if (existingUserId == userId) {
-                                userExists = true;
-                                break;
-                            }
-                        }
-                    }
+    /**
+     * Slots of maxWaitlistSize given to one shard; the quotas sum to max.
+     */
+    private static long admissionQuota(long max, int shard) {
+        if (max <= 0)
+            return 0;
+        return max / ADMISSION_SHARDS + (shard < max % ADMISSION_SHARDS ? 1 : 0);
+    }
 
-                    // If user doesn't exist, add them
-                    if (!userExists) {
-                        java.util.Map<String, Object> newUser = new java.util.HashMap<>();
-                        newUser.put("userId", userId);
-                        newUser.put("status", 0); // 0 = waiting/undecided
-                        return waitListRef.document(docId)
-                                .update("waitList", com.google.firebase.firestore.FieldValue.arrayUnion(newUser));
-                    } else {
-                        // User already exists, do nothing
-                        return Tasks.forResult(null);
-                    }
-                });
+    /**
+     * Thrown by joinWaitingList when the waitlist has reached maxWaitlistSize.
+     */
+    public static final class WaitlistFullException extends IllegalStateException {
+        WaitlistFullException(int eventId) {
+            super("Waitlist for event " + eventId + " is full");
+        }
     }
 
     /**
-     * Removes the user from the event waitlist by finding and removing their
-     * WaitlistUser object.
+     * Removes the user from the event waitlist. Deleting the entrant document
+     * and decrementing its status counter happen in one transaction.
      */
     public Task<Void> leaveWaitingList(int eventId, int userId) {
-        String docId = String.valueOf(eventId);
-        return ensureWaitListExists(eventId)
-                .continueWithTask(t -> waitListRef.document(docId).get())
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) {
-                        return Tasks.forException(task.getException() != null ? task.getException()
-                                : new RuntimeException("Failed to read waitlist"));
-                    }
-
-                    DocumentSnapshot snapshot = task.getResult();
-                    if (snapshot == null || !snapshot.exists()) {
-                        return Tasks.forException(new RuntimeException("Waitlist not found"));
-                    }
+        return removeEntrant(eventId, userId).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to leave waitlist");
+            }
+            return null;
+        });
+    }
 
-                    // Get current waitList
-                    java.util.List<Object> waitList = (java.util.List<Object>) snapshot.get("waitList");
-                    if (waitList == null || waitList.isEmpty()) {
-                        return Tasks.forResult(null); // Nothing to remove
-                    }
+    /**
+     * @return task resolving to the removed entrant's status, or -1 if the
+     *         user was not on the waitlist
+     */
+    private Task<Integer> removeEntrant(int eventId, int userId) {
+        return afterEntrantMigration(eventId, () -> deleteEntrant(eventId, userId));
+    }
 
-                    // Find and remove the user's entry
-                    java.util.List<Object> updatedWaitList = new java.util.ArrayList<>();
-                    for (Object obj : waitList) {
-                        if (obj instanceof java.util.Map) {
-                            java.util.Map<String, Object> userMap = (java.util.Map<String, Object>) obj;
-                            Object uid = userMap.get("userId");
-                            int existingUserId = 0;
-                            if (uid instanceof Number) {
-                                existingUserId = ((Number) uid).intValue();
-                            } else if (uid instanceof String) {
-                                try {
-                                    existingUserId = Integer.parseInt((String) uid);
-                                } catch (NumberFormatException e) {
-                                    // ignore
-                                }
-                            }
-                            // Keep all users except the one leaving
-                            if (existingUserId != userId) {
-                                updatedWaitList.add(obj);
-                            }
-                        }
+    private Task<Integer> deleteEntrant(int eventId, int userId) {
+        DocumentReference entrantDoc = entrantRef(eventId, userId);
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            DocumentSnapshot entrant = transaction.get(entrantDoc);
+            int status = -1;
+            if (entrant.exists()) {
+                status = FieldCoercion.asInt(entrant.get("status"), STATUS_WAITING);
+                int shard = FieldCoercion.asInt(entrant.get("admissionShard"), -1);
+                if (shard >= 0) {
+                    // Give the slot back and let joins past the full marker again
+                    DocumentReference waitListDoc = waitListRef.document(String.valueOf(eventId));
+                    if (transaction.get(waitListDoc).get("admissionFullAt") != null) {
+                        transaction.update(waitListDoc, "admissionFullAt", FieldValue.delete());
                     }
-
-                    // Update the waitlist with the filtered list
-                    return waitListRef.document(docId).update("waitList", updatedWaitList);
-                });
+                    transaction.set(admissionRef(eventId, shard), admissionDelta(-1), SetOptions.merge());
+                }
+                transaction.delete(entrantDoc);
+                transaction.set(counterShard(eventId, status), counterDelta(status, -1), SetOptions.merge());
+            }
+            transaction.delete(membershipRef(userId, eventId));
+            return status;
+        });
+    }
+
+    /**
+     * Move one entrant from expectedStatus to newStatus and between the
+     * status counters. This is a compare-and-set on the entrant's own
+     * document: it fails with StatusConflictException if the stored status
+     * is no longer expectedStatus, so an accept cannot overwrite a concurrent
+     * cancel or redraw, or the other way round. It succeeds without writing
+     * if the entrant already has newStatus. Only the entrant document and two
+     * counter shards are written, whatever the waitlist length. Fails if the
+     * user is not on the waitlist or the transition is not allowed by
+     * {@link WaitlistUser#canTransition}.
+     */
+    public Task<Void> setEntrantStatus(int eventId, int userId, int expectedStatus, int newStatus) {
+        if (!WaitlistUser.canTransition(expectedStatus, newStatus)) {
+            return Tasks.<Void>forException(new IllegalArgumentException(
+                    "Status cannot change from " + expectedStatus + " to " + newStatus));
+        }
+        return afterEntrantMigration(eventId,
+                () -> compareAndSetStatus(eventId, userId, expectedStatus, newStatus));
+    }
+
+    private Task<Void> compareAndSetStatus(int eventId, int userId, int expectedStatus, int newStatus) {
+        DocumentReference entrantDoc = entrantRef(eventId, userId);
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            DocumentSnapshot entrant = transaction.get(entrantDoc);
+            if (!entrant.exists()) {
+                throw new FirebaseFirestoreException("User not found in waitList",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            int oldStatus = FieldCoercion.asInt(entrant.get("status"), STATUS_WAITING);
+            if (oldStatus == newStatus) {
+                return null;
+            }
+            if (oldStatus != expectedStatus) {
+                // Not a Firestore exception, so the transaction is not retried
+                throw new StatusConflictException(userId, expectedStatus, oldStatus);
+            }
+            transaction.update(entrantDoc, "status", newStatus);
+            transaction.set(counterShard(eventId, oldStatus), counterDelta(oldStatus, -1), SetOptions.merge());
+            transaction.set(counterShard(eventId, newStatus), counterDelta(newStatus, 1), SetOptions.merge());
+            return null;
+        });
+    }
+
+    /**
+     * Thrown by setEntrantStatus when the entrant's status changed since the
+     * caller read it.
+     */
+    public static final class StatusConflictException extends IllegalStateException {
+        private final int expectedStatus;
+        private final int actualStatus;
+
+        StatusConflictException(int userId, int expectedStatus, int actualStatus) {
+            super("Status of " + userId + " is " + actualStatus + ", expected " + expectedStatus);
+            this.expectedStatus = expectedStatus;
+            this.actualStatus = actualStatus;
+        }
+
+        public int getExpectedStatus() {
+            return expectedStatus;
+        }
+
+        public int getActualStatus() {
+            return actualStatus;
+        }
+    }
+
+    /**
+     * Draw and commit a lottery against the current entrants. Only the
+     * waiting entrants are re-read, ordered by document id (the user id as a
+     * string, so "10" sorts before "9") so that every entrant is included and
+     * the pool order is reproducible, and shuffled with
+     * LotteryEngine; winners are then committed in transactions of at most
+     * {@link #MAX_BATCH_OPS} writes. Each transaction re-reads the selected
+     * and accepted counters to get the free seats and re-checks that every
+     * candidate is still waiting. It writes the winners, the counter deltas
+     * and the draw record together. Concurrent joins, leaves and declines make
+     * Firestore retry the transaction. A second concurrent draw is detected
+     * through the waitlist's drawVersion and restarts from a fresh read, so
+     * seats are never allocated twice.
+     *
+     * @param capacity event capacity (selected plus accepted entrants)
+     * @param seed     recorded as drawSeed, with drawPoolSize and
+     *                 drawPoolDigest identifying the pool; see LotteryEngine
+     *                 for what a replay needs
+     */
+    public Task<DrawResult> drawLottery(int eventId, int capacity, long seed) {
+        if (capacity <= 0) {
+            return Tasks.forException(new IllegalArgumentException("Capacity must be positive"));
+        }
+        return afterEntrantMigration(eventId, () -> drawLottery(eventId, capacity, seed, DRAW_CONFLICT_RETRIES));
+    }
+
+    private Task<DrawResult> drawLottery(int eventId, int capacity, long seed, int retriesLeft) {
+        Task<DocumentSnapshot> parentRead = waitListRef.document(String.valueOf(eventId)).get();
+        Task<QuerySnapshot> entrantsRead = entrantsRef(eventId)
+                .whereEqualTo("status", STATUS_WAITING)
+                .orderBy(FieldPath.documentId())
+                .get();
+        return Tasks.whenAllComplete(parentRead, entrantsRead).continueWithTask(done -> {
+            if (!parentRead.isSuccessful() || !entrantsRead.isSuccessful()) {
+                Exception e = !parentRead.isSuccessful() ? parentRead.getException() : entrantsRead.getException();
+                return Tasks.<DrawResult>forException(e != null ? e : new RuntimeException("Failed to read waitlist"));
+            }
+            if (!parentRead.getResult().exists()) {
+                return Tasks.<DrawResult>forException(new FirebaseFirestoreException("Waitlist not found",
+                        FirebaseFirestoreException.Code.NOT_FOUND));
+            }
+            Long version = FieldCoercion.asLong(parentRead.getResult().get("drawVersion"));
+
+            List<Integer> waiting = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : entrantsRead.getResult()) {
+                waiting.add(FieldCoercion.asInt(doc.get("userId"), FieldCoercion.asInt(doc.getId(), 0)));
+            }
+            if (waiting.isEmpty()) {
+                return Tasks.<DrawResult>forException(
+                        new NothingToDrawException("No participants in the waiting list to draw from"));
+            }
+            int[] pool = new int[waiting.size()];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = waiting.get(i);
+            }
+            LotteryEngine.Draw candidates = LotteryEngine.draw(pool, 0, seed);
+            return commitDrawChunk(eventId, capacity, candidates, version == null ? 0 : version,
+                    new ArrayList<>(), new ArrayList<>(), 0);
+        }).continueWithTask(task -> {
+            if (!task.isSuccessful() && task.getException() instanceof DrawConflictException && retriesLeft > 0) {
+                Log.d("DB", "Concurrent draw on " + eventId + ", retrying");
+                return drawLottery(eventId, capacity, seed, retriesLeft - 1);
+            }
+            return task;
+        }).addOnSuccessListener(result -> Log.d("DB", "Drew " + result.getWinners().size()
+                + " entrants for " + eventId + " (seed " + seed + ")"))
+                .addOnFailureListener(e -> Log.e("DB", "Failed to draw lottery for " + eventId, e));
+    }
+
+    /**
+     * Commit the next winners of a draw in one transaction and continue with
+     * the following chunk until the seats or the candidates run out.
+     *
+     * @param winners candidates selected by earlier chunks
+     * @param skipped candidates no longer waiting when their chunk ran
+     * @param cursor  position of the next untried candidate in draw order
+     */
+    private Task<DrawResult> commitDrawChunk(int eventId, int capacity, LotteryEngine.Draw candidates,
+            long expectedVersion, List<Integer> winners, List<Integer> skipped, int cursor) {
+        DocumentReference parentDoc = waitListRef.document(String.valueOf(eventId));
+        // Leave room for the two counter updates, the draw record and the queue
+        int perChunk = MAX_BATCH_OPS - 4;
+        int[] next = new int[1];
+        List<Integer> chunkSkipped = new ArrayList<>();
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            chunkSkipped.clear(); // the function reruns on contention
+            DocumentSnapshot parent = transaction.get(parentDoc);
+            Long version = FieldCoercion.asLong(parent.get("drawVersion"));
+            if (!parent.exists() || (version == null ? 0 : version) != expectedVersion) {
+                throw new DrawConflictException();
+            }
+            long seats = capacity - occupiedSeats(transaction, eventId);
+            if (seats <= 0 && winners.isEmpty()) {
+                throw new NothingToDrawException("Lottery already drawn or capacity full");
+            }
+
+            // All reads happen before the writes, as transactions require
+            List<Integer> chunk = new ArrayList<>();
+            int limit = (int) Math.min(Math.max(seats, 0), perChunk);
+            int position = cursor;
+            while (chunk.size() < limit && position < candidates.getPoolSize()) {
+                if (position == candidates.winnerCount()) {
+                    candidates.extend(limit - chunk.size());
+                }
+                int userId = candidates.winnerAt(position++);
+                DocumentSnapshot entrant = transaction.get(entrantRef(eventId, userId));
+                // Skip entrants who left or changed status since the pool was read
+                if (entrant.exists()
+                        && FieldCoercion.asInt(entrant.get("status"), STATUS_WAITING) == STATUS_WAITING) {
+                    chunk.add(userId);
+                } else {
+                    chunkSkipped.add(userId);
+                }
+            }
+            if (chunk.isEmpty() && winners.isEmpty()) {
+                throw new NothingToDrawException("No participants in the waiting list to draw from");
+            }
+
+            for (Integer userId : chunk) {
+                transaction.update(entrantRef(eventId, userId), "status", STATUS_SELECTED);
+            }
+            if (!chunk.isEmpty()) {
+                transaction.set(counterShard(eventId, STATUS_WAITING), counterDelta(STATUS_WAITING, -chunk.size()),
+                        SetOptions.merge());
+                transaction.set(counterShard(eventId, STATUS_SELECTED), counterDelta(STATUS_SELECTED, chunk.size()),
+                        SetOptions.merge());
+            }
+            Map<String, Object> drawn = new HashMap<>();
+            drawn.put("status", "drawn");
+            drawn.put("drawSeed", candidates.getSeed());
+            drawn.put("drawPoolSize", candidates.getPoolSize());
+            drawn.put("drawPoolDigest", candidates.getPoolDigest());
+            drawn.put("drawnAt", FieldValue.serverTimestamp());
+            drawn.put("drawVersion", expectedVersion + 1);
+            transaction.update(parentDoc, drawn);
+
+            boolean last = chunk.size() < perChunk || position >= candidates.getPoolSize();
+            if (last) {
+                // The shuffle continues past the winners; its next entries become the
+                // replacement order used by fillOpenSeats
+                int wanted = position + ALTERNATE_QUEUE_SIZE - candidates.winnerCount();
+                if (wanted > 0)
+                    candidates.extend(wanted);
+                List<Integer> queue = new ArrayList<>();
+                for (int i = position; i < candidates.winnerCount() && queue.size() < ALTERNATE_QUEUE_SIZE; i++) {
+                    queue.add(candidates.winnerAt(i));
+                }
+                Map<String, Object> alternates = new HashMap<>();
+                alternates.put("queue", queue);
+                alternates.put("cursor", 0);
+                alternates.put("drawSeed", candidates.getSeed());
+                alternates.put("drawVersion", expectedVersion + 1);
+                transaction.set(alternatesRef(eventId), alternates);
+            }
+            next[0] = position;
+            return chunk;
+        }).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<DrawResult>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to commit draw"));
+            }
+            List<Integer> chunk = task.getResult();
+            List<Integer> allWinners = new ArrayList<>(winners);
+            allWinners.addAll(chunk);
+            List<Integer> allSkipped = new ArrayList<>(skipped);
+            allSkipped.addAll(chunkSkipped);
+            // A chunk filled to the write limit may leave seats for another
+            if (chunk.size() >= perChunk && next[0] < candidates.getPoolSize()) {
+                return commitDrawChunk(eventId, capacity, candidates, expectedVersion + 1,
+                        allWinners, allSkipped, next[0]);
+            }
+            return Tasks.forResult(drawResult(candidates, allWinners, allSkipped));
+        });
+    }
+
+    /**
+     * Draw an event whose registration has closed, at most once across all
+     * devices. A transaction claims the waitlist document first
+     * (scheduledDraw "running" plus a lease deadline). Waitlists that are
+     * already drawn, already done, or held by a live lease are skipped.
+     * Results go out through the batched notification fan-out, and
+     * scheduledDraw is set to "done" only once every notification is
+     * delivered. A draw that cannot run (no entrants, no free seats, no
+     * capacity) is marked done as well.
+     * <p>
+     * If the fan-out fails, or the process dies after the draw committed,
+     * the waitlist is left drawn with scheduledDraw "notify" (or an expired
+     * "running" lease). The next run claims it again and resends the results
+     * to the entrants currently selected and waiting, under the same
+     * notification ids, so nobody gets a duplicate. Other failures let the
+     * lease expire and a later run retries the draw.
+     *
+     * @return task resolving to true if this call drew the event
+     */
+    public Task<Boolean> runScheduledDraw(int eventId, String eventTitle, int capacity) {
+        DocumentReference parentDoc = waitListRef.document(String.valueOf(eventId));
+        // Set by the claim: the seed of a committed draw whose results still need sending
+        Long[] pendingSeed = new Long[1];
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            pendingSeed[0] = null; // the function reruns on contention
+            DocumentSnapshot parent = transaction.get(parentDoc);
+            if (!parent.exists()) {
+                return false; // nobody joined
+            }
+            String state = FieldCoercion.asString(parent.get("scheduledDraw"));
+            Long leaseUntil = FieldCoercion.asLong(parent.get("scheduledDrawLeaseUntil"));
+            long now = System.currentTimeMillis();
+            boolean drawn = "drawn".equals(FieldCoercion.asString(parent.get("status")));
+            // Only a draw this job started (state set) can be left waiting for its results
+            boolean unsent = drawn && ("notify".equals(state) || "running".equals(state));
+            if ((drawn && !unsent) || "done".equals(state)
+                    || ("running".equals(state) && leaseUntil != null && leaseUntil > now)) {
+                return false;
+            }
+            if (unsent) {
+                pendingSeed[0] = FieldCoercion.asLong(parent.get("drawSeed"));
+                if (pendingSeed[0] == null)
+                    return false; // drawn before draws recorded their seed
+            }
+            Map<String, Object> claim = new HashMap<>();
+            claim.put("scheduledDraw", "running");
+            claim.put("scheduledDrawLeaseUntil", now + SCHEDULED_DRAW_LEASE_MS);
+            transaction.update(parentDoc, claim);
+            return true;
+        }).continueWithTask(claimed -> {
+            if (!claimed.isSuccessful() || !Boolean.TRUE.equals(claimed.getResult())) {
+                return claimed;
+            }
+            if (pendingSeed[0] != null) {
+                Log.d("DB", "Resending scheduled draw results for " + eventId);
+                return resendScheduledDrawResults(eventId, eventTitle, pendingSeed[0]).continueWith(sent -> {
+                    if (!sent.isSuccessful()) {
+                        throw sent.getException() != null ? sent.getException()
+                                : new RuntimeException("Failed to resend draw results for " + eventId);
+                    }
+                    return false;
+                });
+            }
+            return drawLottery(eventId, capacity, LotteryEngine.newSeed()).continueWithTask(draw -> {
+                if (draw.isSuccessful()) {
+                    DrawResult result = draw.getResult();
+                    return sendScheduledDrawResults(eventId, eventTitle, result.getSeed(),
+                            result.getWinners(), result.getLosers()).continueWith(sent -> {
+                        if (!sent.isSuccessful()) {
+                            throw sent.getException() != null ? sent.getException()
+                                    : new RuntimeException("Failed to send draw results for " + eventId);
+                        }
+                        return true;
+                    });
+                }
+                Exception e = draw.getException();
+                if (e instanceof NothingToDrawException || e instanceof IllegalArgumentException) {
+                    Log.d("DB", "Nothing to draw for " + eventId + ": " + e.getMessage());
+                    return markScheduledDraw(parentDoc, "done").continueWith(done -> false);
+                }
+                return Tasks.<Boolean>forException(e != null ? e : new RuntimeException("Scheduled draw failed"));
+            });
+        });
+    }
+
+    /**
+     * Send the results of a scheduled draw and mark it done once every
+     * notification is delivered. Otherwise mark it "notify" for the next run
+     * and fail with the undelivered count.
+     */
+    private Task<Void> sendScheduledDrawResults(int eventId, String eventTitle, long seed,
+            List<Integer> winners, List<Integer> losers) {
+        DocumentReference parentDoc = waitListRef.document(String.valueOf(eventId));
+        return sendLotteryResultNotifications(eventId, eventTitle, winners, losers, seed).continueWithTask(sent -> {
+            if (sent.isSuccessful() && sent.getResult().isFullyDelivered()) {
+                return markScheduledDraw(parentDoc, "done");
+            }
+            Exception error = sent.isSuccessful()
+                    ? new RuntimeException(sent.getResult().getFailedCount() + " of "
+                            + (winners.size() + losers.size()) + " draw notifications not delivered")
+                    : sent.getException();
+            if (sent.isSuccessful()) {
+                Log.e("DB", "Scheduled draw of " + eventId + ": delivered "
+                        + sent.getResult().getDeliveredCount() + ", failed " + sent.getResult().getFailedCount());
+            } else {
+                Log.e("DB", "Scheduled draw of " + eventId + ": notifications failed", error);
+            }
+            return markScheduledDraw(parentDoc, "notify").continueWithTask(marked -> {
+                if (!marked.isSuccessful()) {
+                    // The lease still expires, so a later run resends anyway
+                    Log.e("DB", "Failed to mark " + eventId + " for notification retry", marked.getException());
+                }
+                return Tasks.<Void>forException(error != null ? error
+                        : new RuntimeException("Failed to send draw results for " + eventId));
+            });
+        });
+    }
+
+    /**
+     * Rebuild the result of a committed draw from the current entrants
+     * (selected entrants won, waiting entrants lost) and send it again.
+     */
+    private Task<Void> resendScheduledDrawResults(int eventId, String eventTitle, long seed) {
+        Task<QuerySnapshot> selectedRead = entrantsRef(eventId).whereEqualTo("status", STATUS_SELECTED).get();
+        Task<QuerySnapshot> waitingRead = entrantsRef(eventId).whereEqualTo("status", STATUS_WAITING).get();
+        return Tasks.whenAllComplete(selectedRead, waitingRead).continueWithTask(done -> {
+            if (!selectedRead.isSuccessful() || !waitingRead.isSuccessful()) {
+                Exception e = !selectedRead.isSuccessful() ? selectedRead.getException() : waitingRead.getException();
+                return Tasks.<Void>forException(e != null ? e : new RuntimeException("Failed to read entrants"));
+            }
+            return sendScheduledDrawResults(eventId, eventTitle, seed,
+                    entrantIds(selectedRead.getResult()), entrantIds(waitingRead.getResult()));
+        });
+    }
+
+    private static List<Integer> entrantIds(QuerySnapshot entrants) {
+        List<Integer> ids = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : entrants) {
+            ids.add(FieldCoercion.asInt(doc.get("userId"), FieldCoercion.asInt(doc.getId(), 0)));
+        }
+        return ids;
+    }
+
+    /**
+     * Record the scheduled draw state and release the lease.
+     */
+    private Task<Void> markScheduledDraw(DocumentReference parentDoc, String state) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("scheduledDraw", state);
+        update.put("scheduledDrawAt", FieldValue.serverTimestamp());
+        update.put("scheduledDrawLeaseUntil", FieldValue.delete());
+        return parentDoc.update(update);
+    }
+
+    /**
+     * Request a replacement draw for the event. Bursts of requests are merged
+     * and at most one runs per event at a time; see RedrawCoordinator.
+     *
+     * @return task resolving to the user ids moved to selected
+     */
+    public Task<List<Integer>> requestRedraw(int eventId) {
+        return redrawCoordinator.request(eventId);
+    }
+
+    /**
+     * Request, coalescing and run counts of the replacement draws.
+     */
+    public RedrawCoordinator getRedrawCoordinator() {
+        return redrawCoordinator;
+    }
+
+    /**
+     * Fill seats freed by declines or removed entrants from the alternates
+     * queue saved by the last draw. One transaction reads the event capacity,
+     * the occupied-seat counters and the queue. It promotes the next
+     * alternates that are still waiting and advances the queue cursor. The
+     * cost depends on the number of free seats, not the waitlist size. Falls
+     * back to a full draw, which saves a new queue, only when the queue is used up.
+     * Promoted entrants get the "selected" notification.
+     *
+     * @return task resolving to the user ids moved to selected
+     */
+    public Task<List<Integer>> fillOpenSeats(int eventId) {
+        return afterEntrantMigration(eventId, () -> promoteAlternates(eventId));
+    }
+
+    private Task<List<Integer>> promoteAlternates(int eventId) {
+        DocumentReference eventDoc = eventRef.document(String.valueOf(eventId));
+        DocumentReference queueDoc = alternatesRef(eventId);
+        boolean[] exhausted = new boolean[1];
+        int[] capacity = new int[1];
+        String[] title = new String[1];
+        return db.runTransaction(WAITLIST_TRANSACTION_OPTIONS, transaction -> {
+            exhausted[0] = false; // the function reruns on contention
+            DocumentSnapshot event = transaction.get(eventDoc);
+            if (!event.exists()) {
+                throw new FirebaseFirestoreException("Event not found", FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            capacity[0] = FieldCoercion.asInt(event.get("capacity"), 0);
+            title[0] = FieldCoercion.asString(event.get("title"));
+            DocumentSnapshot queueSnapshot = transaction.get(queueDoc);
+            long seats = capacity[0] - occupiedSeats(transaction, eventId);
+            List<Integer> promoted = new ArrayList<>();
+            if (seats <= 0) {
+                return promoted;
+            }
+
+            Object rawQueue = queueSnapshot.get("queue");
+            List<?> queue = rawQueue instanceof List ? (List<?>) rawQueue : new ArrayList<>();
+            int cursor = FieldCoercion.asInt(queueSnapshot.get("cursor"), 0);
+            while (promoted.size() < seats && cursor < queue.size()) {
+                int userId = FieldCoercion.asInt(queue.get(cursor++), 0);
+                DocumentSnapshot entrant = transaction.get(entrantRef(eventId, userId));
+                if (entrant.exists()
+                        && FieldCoercion.asInt(entrant.get("status"), STATUS_WAITING) == STATUS_WAITING) {
+                    promoted.add(userId);
+                }
+            }
+            exhausted[0] = promoted.size() < seats;
+
+            for (Integer userId : promoted) {
+                transaction.update(entrantRef(eventId, userId), "status", STATUS_SELECTED);
+            }
+            if (!promoted.isEmpty()) {
+                transaction.set(counterShard(eventId, STATUS_WAITING), counterDelta(STATUS_WAITING, -promoted.size()),
+                        SetOptions.merge());
+                transaction.set(counterShard(eventId, STATUS_SELECTED), counterDelta(STATUS_SELECTED, promoted.size()),
+                        SetOptions.merge());
+            }
+            if (queueSnapshot.exists()) {
+                transaction.update(queueDoc, "cursor", cursor);
+            }
+            return promoted;
+        }).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<List<Integer>>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to fill open seats"));
+            }
+            List<Integer> promoted = task.getResult();
+            notifyPromoted(eventId, title[0], promoted);
+            if (!exhausted[0]) {
+                return Tasks.forResult(promoted);
+            }
+            // Queue used up with seats still free: full draw over the remaining entrants
+            return drawLottery(eventId, capacity[0], LotteryEngine.newSeed()).continueWith(draw -> {
+                List<Integer> all = new ArrayList<>(promoted);
+                if (draw.isSuccessful()) {
+                    all.addAll(draw.getResult().getWinners());
+                    notifyPromoted(eventId, title[0], draw.getResult().getWinners());
+                } else {
+                    Log.d("DB", "No fallback draw for " + eventId + ": " + draw.getException());
+                }
+                return all;
+            });
+        }).addOnSuccessListener(promoted -> Log.d("DB", "Filled " + promoted.size() + " seats for " + eventId))
+                .addOnFailureListener(e -> Log.e("DB", "Failed to fill open seats for " + eventId, e));
+    }
+
+    // Replacement winners only; the rest were told they lost at the original draw
+    private void notifyPromoted(int eventId, String eventTitle, List<Integer> promoted) {
+        if (promoted.isEmpty())
+            return;
+        sendLotteryResultNotifications(eventId, eventTitle, promoted, new ArrayList<>())
+                .addOnFailureListener(e -> Log.e("DB", "Failed to notify replacements for " + eventId, e));
+    }
+
+    /**
+     * Seats taken by selected and accepted entrants, summed from every counter
+     * shard inside the transaction so concurrent status changes conflict.
+     */
+    private long occupiedSeats(Transaction transaction, int eventId) throws FirebaseFirestoreException {
+        long occupied = 0;
+        for (int status = STATUS_SELECTED; status <= STATUS_ACCEPTED; status++) {
+            for (DocumentReference counter : counterDocs(eventId, status)) {
+                Long count = FieldCoercion.asLong(transaction.get(counter).get("count"));
+                occupied += count == null ? 0 : count;
+            }
+        }
+        return occupied;
+    }
+
+    private static DrawResult drawResult(LotteryEngine.Draw candidates, List<Integer> winners,
+            List<Integer> skipped) {
+        java.util.Set<Integer> drawn = new java.util.HashSet<>(winners);
+        drawn.addAll(skipped);
+        List<Integer> losers = new ArrayList<>();
+        // Drawn candidates that did not win, then the part of the pool never drawn
+        for (int userId : candidates.getWinners()) {
+            if (!drawn.contains(userId))
+                losers.add(userId);
+        }
+        for (int userId : candidates.getLosers()) {
+            losers.add(userId);
+        }
+        return new DrawResult(candidates.getSeed(), candidates.getPoolSize(), winners, losers);
+    }
+
+    /**
+     * Thrown by drawLottery when there is nothing to draw: no waiting
+     * entrants, or no free seats left.
+     */
+    public static final class NothingToDrawException extends IllegalStateException {
+        NothingToDrawException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown inside a draw transaction when another draw committed first.
+     */
+    private static final class DrawConflictException extends IllegalStateException {
+        DrawConflictException() {
+            super("Waitlist was drawn concurrently");
+        }
+    }
+
+    /**
+     * Read one page of an event's entrants with the given statuses. Entrants
+     * are listed status by status in the order the statuses are given (e.g.
+     * {1, 0} lists selected before waiting), each status by join time, then
+     * user id. Every status is read with an equality filter, so whatever the
+     * order the only index needed is Entrants(status ASC, joinedAt ASC).
+     * Only the page's documents are read.
+     *
+     * @param cursor getCursor() of the previous page, or null for the first
+     */
+    public Task<EntrantPage> getEntrantPage(int eventId, int[] statuses, int pageSize, DocumentSnapshot cursor) {
+        checkEntrantPage(statuses, pageSize);
+        int segment = cursor != null ? statusSegment(statuses, cursor.getLong("status")) : 0;
+        UnaryOperator<Query> resume = cursor != null ? q -> q.startAfter(cursor) : q -> q;
+        return afterEntrantMigration(eventId,
+                () -> readEntrantPage(eventId, statuses, segment, resume, pageSize, new ArrayList<>(), null));
+    }
+
+    /**
+     * Like {@link #getEntrantPage(int, int[], int, DocumentSnapshot)},
+     * resuming after a saved position instead of a snapshot. The position's
+     * entrant does not have to exist any more.
+     */
+    public Task<EntrantPage> getEntrantPage(int eventId, int[] statuses, int pageSize,
+            EntrantPage.Position after) {
+        checkEntrantPage(statuses, pageSize);
+        int segment = after != null ? statusSegment(statuses, (long) after.getStatus()) : 0;
+        UnaryOperator<Query> resume = after != null
+                ? q -> q.startAfter(after.getJoinedAt(), String.valueOf(after.getUserId()))
+                : q -> q;
+        return afterEntrantMigration(eventId,
+                () -> readEntrantPage(eventId, statuses, segment, resume, pageSize, new ArrayList<>(), null));
+    }
+
+    private static void checkEntrantPage(int[] statuses, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        if (statuses == null || statuses.length == 0) {
+            throw new IllegalArgumentException("At least one status is required");
+        }
+    }
+
+    // Index of the cursor's status in the requested order
+    private static int statusSegment(int[] statuses, Long status) {
+        for (int i = 0; i < statuses.length; i++) {
+            if (status != null && statuses[i] == status) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Cursor status " + status + " was not requested");
+    }
+
+    /**
+     * Fill the page from statuses[segment], moving on to the next status
+     * once one is exhausted.
+     */
+    private Task<EntrantPage> readEntrantPage(int eventId, int[] statuses, int segment,
+            UnaryOperator<Query> resume, int pageSize, List<WaitlistUser> entrants, DocumentSnapshot last) {
+        if (segment >= statuses.length) {
+            return Tasks.forResult(new EntrantPage(entrants, last, false));
+        }
+        int wanted = pageSize - entrants.size();
+        Query q = resume.apply(entrantsRef(eventId)
+                .whereEqualTo("status", statuses[segment])
+                .orderBy("joinedAt")
+                .orderBy(FieldPath.documentId()));
+        // Read one extra document to learn whether another page exists
+        return q.limit(wanted + 1L).get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read entrants");
+            }
+            List<DocumentSnapshot> docs = task.getResult().getDocuments();
+            DocumentSnapshot end = last;
+            for (DocumentSnapshot doc : docs.subList(0, Math.min(docs.size(), wanted))) {
+                WaitlistUser user = WaitlistUser.fromValue(doc.getData());
+                if (user != null) {
+                    entrants.add(user);
+                }
+                end = doc;
+            }
+            if (docs.size() > wanted) {
+                return Tasks.forResult(new EntrantPage(entrants, end, true));
+            }
+            return readEntrantPage(eventId, statuses, segment + 1, next -> next, pageSize, entrants, end);
+        });
+    }
+
+    /**
+     * Read one entrant.
+     *
+     * @return task resolving to the entrant, or null if the user has not joined
+     */
+    public Task<WaitlistUser> getEntrant(int eventId, int userId) {
+        return afterEntrantMigration(eventId, () -> entrantRef(eventId, userId).get().continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read entrant");
+            }
+            DocumentSnapshot doc = task.getResult();
+            return doc.exists() ? WaitlistUser.fromValue(doc.getData()) : null;
+        }));
+    }
+
+    /**
+     * Read the user's own entrant document in each of the given events.
+     *
+     * @return task resolving to eventId -> entrant; events the user has not
+     *         joined are absent
+     */
+    public Task<Map<Integer, WaitlistUser>> getEntrantsForUser(int userId, Collection<Integer> eventIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(eventIds));
+        List<Task<WaitlistUser>> reads = new ArrayList<>();
+        for (Integer eventId : ids) {
+            reads.add(getEntrant(eventId, userId));
+        }
+        return Tasks.<WaitlistUser>whenAllSuccess(reads).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read entrants");
+            }
+            Map<Integer, WaitlistUser> result = new HashMap<>();
+            List<WaitlistUser> entrants = task.getResult();
+            for (int i = 0; i < ids.size(); i++) {
+                if (entrants.get(i) != null) {
+                    result.put(ids.get(i), entrants.get(i));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Read the per-status entrant counters of an event without loading the
+     * entrants: one small query over the counter shards, summed client-side.
+     */
+    public Task<EntrantCounts> getEntrantCounts(int eventId) {
+        return afterEntrantMigration(eventId, () -> readEntrantCounts(eventId));
+    }
+
+    private Task<EntrantCounts> readEntrantCounts(int eventId) {
+        return countersRef(eventId).get().continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read counters");
+            }
+            Map<Integer, Long> counts = new HashMap<>();
+            for (QueryDocumentSnapshot doc : task.getResult()) {
+                // Shards carry their status; unsharded counters are named by it
+                int status = FieldCoercion.asInt(doc.get("status"), FieldCoercion.asInt(doc.getId(), -1));
+                Long count = FieldCoercion.asLong(doc.get("count"));
+                if (status >= 0 && count != null) {
+                    Long sum = counts.get(status);
+                    counts.put(status, sum == null ? count : sum + count);
+                }
+            }
+            return new EntrantCounts(counts);
+        });
+    }
+
+    /**
+     * Rebuild the per-status counters of one event from its entrant documents
+     * using server-side count aggregations. The total goes on shard 0, the
+     * other shards are zeroed. Admission slots are rebuilt the same way.
+     * Entrants that joined before admission was tracked are stamped with the
+     * shard they are charged to, filling the shards with the most free room
+     * first, so the limit stays exact and they give their slot back when
+     * they leave. Used by the migration and to repair drift.
+     */
+    public Task<Void> recountEntrants(int eventId) {
+        List<Task<AggregateQuerySnapshot>> counts = new ArrayList<>();
+        for (int status = STATUS_WAITING; status <= STATUS_DECLINED; status++) {
+            counts.add(entrantsRef(eventId).whereEqualTo("status", status).count().get(AggregateSource.SERVER));
+        }
+        for (int shard = 0; shard < ADMISSION_SHARDS; shard++) {
+            counts.add(entrantsRef(eventId).whereEqualTo("admissionShard", shard).count().get(AggregateSource.SERVER));
+        }
+        Task<List<AggregateQuerySnapshot>> countsRead = Tasks.whenAllSuccess(counts);
+        Task<DocumentSnapshot> parentRead = waitListRef.document(String.valueOf(eventId)).get();
+        return Tasks.whenAllComplete(countsRead, parentRead).continueWithTask(all -> {
+            if (!countsRead.isSuccessful() || !parentRead.isSuccessful()) {
+                Exception e = !countsRead.isSuccessful() ? countsRead.getException() : parentRead.getException();
+                return Tasks.<Void>forException(e != null ? e : new RuntimeException("Failed to count entrants"));
+            }
+            List<AggregateQuerySnapshot> results = countsRead.getResult();
+            Long max = FieldCoercion.asLong(parentRead.getResult().get("maxWaitlistSize"));
+            long untracked = 0;
+            for (int status = STATUS_WAITING; status <= STATUS_DECLINED; status++) {
+                untracked += results.get(status).getCount();
+            }
+            int firstShard = STATUS_DECLINED + 1;
+            long[] admitted = new long[ADMISSION_SHARDS];
+            for (int shard = 0; shard < ADMISSION_SHARDS; shard++) {
+                admitted[shard] = results.get(firstShard + shard).getCount();
+                untracked -= admitted[shard];
+            }
+            Task<Void> stamped = untracked > 0
+                    ? stampUntrackedEntrants(eventId, max, admitted, null)
+                    : Tasks.<Void>forResult(null);
+            return stamped.continueWithTask(s -> {
+                if (!s.isSuccessful()) {
+                    return Tasks.<Void>forException(s.getException() != null ? s.getException()
+                            : new RuntimeException("Failed to assign admission slots"));
+                }
+                WriteBatch batch = db.batch();
+                for (int status = STATUS_WAITING; status <= STATUS_DECLINED; status++) {
+                    for (int shard = 0; shard < COUNTER_SHARDS; shard++) {
+                        Map<String, Object> counter = new HashMap<>();
+                        counter.put("status", status);
+                        counter.put("count", shard == 0 ? results.get(status).getCount() : 0L);
+                        batch.set(countersRef(eventId).document(status + "_" + shard), counter);
+                    }
+                    batch.delete(countersRef(eventId).document(String.valueOf(status)));
+                }
+                for (int shard = 0; shard < ADMISSION_SHARDS; shard++) {
+                    Map<String, Object> slots = new HashMap<>();
+                    slots.put("admitted", admitted[shard]);
+                    batch.set(admissionRef(eventId, shard), slots);
+                }
+                Map<String, Object> reopen = new HashMap<>();
+                reopen.put("admissionFullAt", FieldValue.delete());
+                batch.set(waitListRef.document(String.valueOf(eventId)), reopen, SetOptions.merge());
+                return batch.commit();
+            });
+        });
+    }
+
+    /**
+     * Page through the event's entrants and stamp every one without an
+     * admissionShard with the shard that has the most free room, counting
+     * it in admitted. Without a limit the shards are simply kept level.
+     */
+    private Task<Void> stampUntrackedEntrants(int eventId, Long max, long[] admitted, DocumentSnapshot after) {
+        Query q = entrantsRef(eventId).orderBy(FieldPath.documentId()).limit(MAX_BATCH_OPS);
+        if (after != null) {
+            q = q.startAfter(after);
+        }
+        return q.get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<Void>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read entrants"));
+            }
+            List<DocumentSnapshot> docs = task.getResult().getDocuments();
+            WriteBatch batch = db.batch();
+            int ops = 0;
+            for (DocumentSnapshot doc : docs) {
+                if (doc.get("admissionShard") != null)
+                    continue;
+                int shard = roomiestAdmissionShard(max, admitted);
+                admitted[shard]++;
+                batch.update(doc.getReference(), "admissionShard", shard);
+                ops++;
+            }
+            Task<Void> commit = ops > 0 ? batch.commit() : Tasks.<Void>forResult(null);
+            if (docs.size() < MAX_BATCH_OPS)
+                return commit;
+            DocumentSnapshot last = docs.get(docs.size() - 1);
+            return commit.continueWithTask(c -> c.isSuccessful()
+                    ? stampUntrackedEntrants(eventId, max, admitted, last)
+                    : c);
+        });
+    }
+
+    private static int roomiestAdmissionShard(Long max, long[] admitted) {
+        int best = 0;
+        long bestRoom = Long.MIN_VALUE;
+        for (int shard = 0; shard < ADMISSION_SHARDS; shard++) {
+            long room = (max != null ? admissionQuota(max, shard) : 0) - admitted[shard];
+            if (room > bestRoom) {
+                best = shard;
+                bestRoom = room;
+            }
+        }
+        return best;
+    }
+
+    // Entrants subcollection layout helpers
+    private CollectionReference entrantsRef(int eventId) {
+        return waitListRef.document(String.valueOf(eventId)).collection(ENTRANTS);
+    }
+
+    private DocumentReference entrantRef(int eventId, int userId) {
+        return entrantsRef(eventId).document(String.valueOf(userId));
+    }
+
+    private DocumentReference admissionRef(int eventId, int shard) {
+        return waitListRef.document(String.valueOf(eventId)).collection(ADMISSION).document(String.valueOf(shard));
+    }
+
+    private static Map<String, Object> admissionDelta(long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("admitted", FieldValue.increment(delta));
+        return data;
+    }
+
+    private DocumentReference alternatesRef(int eventId) {
+        return waitListRef.document(String.valueOf(eventId)).collection(DRAW).document(ALTERNATES);
+    }
+
+    private CollectionReference countersRef(int eventId) {
+        return waitListRef.document(String.valueOf(eventId)).collection(COUNTERS);
+    }
+
+    /**
+     * A random shard of the status counter (Counters/{status}_{shard}).
+     * Spreading increments over COUNTER_SHARDS documents keeps concurrent
+     * joins under Firestore's per-document write rate.
+     */
+    private DocumentReference counterShard(int eventId, int status) {
+        int shard = ThreadLocalRandom.current().nextInt(COUNTER_SHARDS);
+        return countersRef(eventId).document(status + "_" + shard);
+    }
+
+    /**
+     * Every document that may hold part of a status counter: its shards and
+     * the legacy unsharded document.
+     */
+    private List<DocumentReference> counterDocs(int eventId, int status) {
+        List<DocumentReference> docs = new ArrayList<>(COUNTER_SHARDS + 1);
+        for (int shard = 0; shard < COUNTER_SHARDS; shard++) {
+            docs.add(countersRef(eventId).document(status + "_" + shard));
+        }
+        docs.add(countersRef(eventId).document(String.valueOf(status)));
+        return docs;
+    }
+
+    private static Map<String, Object> counterDelta(int status, long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", status);
+        data.put("count", FieldValue.increment(delta));
+        return data;
+    }
+
+    // joinedAt must always be set: the entrant listing and paging queries order by it
+    private static Map<String, Object> entrantData(int userId, int status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userId", userId);
+        data.put("status", status);
+        data.put("joinedAt", FieldValue.serverTimestamp());
+        return data;
     }
 
     /**
      * Get all events that a user is part of (in any waitlist).
+     * Resolves event ids through the user's membership index and fetches only
+     * those events, so the cost scales with the user's events rather than the
+     * whole database.
      * 
      * @param userId        The user ID to search for
      * @param listener      Success callback with list of Events
@@ -854,183 +2065,665 @@ public class DatabaseHandler {
     public void getEventsForUser(int userId,
             OnSuccessListener<java.util.List<Event>> listener,
             OnFailureListener errorListener) {
-        // First get all waitlists
-        waitListRef.get()
-                .addOnSuccessListener(waitlistSnapshot -> {
-                    // Collect event IDs where user is in the waitlist
-                    java.util.List<Integer> eventIds = new java.util.ArrayList<>();
+        getEventIdsForUser(userId)
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.<List<DocumentSnapshot>>forException(task.getException() != null
+                                ? task.getException()
+                                : new RuntimeException("Failed to read memberships"));
+                    }
+                    return fetchDocumentsByIds(eventRef, task.getResult());
+                })
+                .addOnSuccessListener(docs -> listener.onSuccess(mapEvents(docs)))
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error getting events for user", e);
+                    errorListener.onFailure(e);
+                });
+    }
+
+    /**
+     * Get all events created by an organizer using an indexed equality query.
+     *
+     * @param organizerId   The organizer's user ID
+     * @param listener      Success callback with list of Events
+     * @param errorListener Failure callback
+     */
+    public void getEventsForOrganizer(int organizerId,
+            OnSuccessListener<java.util.List<Event>> listener,
+            OnFailureListener errorListener) {
+        eventRef.whereEqualTo("organizerId", organizerId)
+                .get()
+                .addOnSuccessListener(querySnapshot -> listener.onSuccess(mapEvents(querySnapshot.getDocuments())))
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error getting events for organizer", e);
+                    errorListener.onFailure(e);
+                });
+    }
+
+    /**
+     * Fetch the given events with chunked whereIn queries. Missing ids are
+     * skipped.
+     */
+    public void getEventsByIds(Collection<Integer> eventIds,
+            OnSuccessListener<java.util.List<Event>> listener,
+            OnFailureListener errorListener) {
+        fetchDocumentsByIds(eventRef, eventIds)
+                .addOnSuccessListener(docs -> listener.onSuccess(mapEvents(docs)))
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error getting events by id", e);
+                    errorListener.onFailure(e);
+                });
+    }
+
+    private List<Event> mapEvents(List<DocumentSnapshot> docs) {
+        List<Event> events = new ArrayList<>();
+        for (DocumentSnapshot document : docs) {
+            try {
+                Event ev = decodeEvent(document);
+                if (ev != null) {
+                    events.add(ev);
+                }
+            } catch (RuntimeException ex) {
+                Log.e("DB", "Failed to deserialize Event doc: " + document.getId(), ex);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Fetch documents by integer id, splitting the ids into whereIn chunks of
+     * at most {@link #WHERE_IN_LIMIT} and running the chunks in parallel.
+     */
+    Task<List<DocumentSnapshot>> fetchDocumentsByIds(CollectionReference reference,
+            Collection<Integer> ids) {
+        List<String> docIds = new ArrayList<>();
+        if (ids != null) {
+            for (Integer id : new LinkedHashSet<>(ids)) {
+                if (id != null) {
+                    docIds.add(String.valueOf(id));
+                }
+            }
+        }
+        if (docIds.isEmpty()) {
+            return Tasks.forResult(new ArrayList<>());
+        }
 
-                    for (QueryDocumentSnapshot doc : waitlistSnapshot) {
+        List<BoundedTaskRunner.TaskFactory<QuerySnapshot>> chunks = new ArrayList<>();
+        for (int i = 0; i < docIds.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = new ArrayList<>(docIds.subList(i, Math.min(i + WHERE_IN_LIMIT, docIds.size())));
+            chunks.add(() -> reference.whereIn(FieldPath.documentId(), chunk).get());
+        }
+        return BoundedTaskRunner.runAll(chunks, MAX_READS_IN_FLIGHT).continueWith(task -> {
+            List<DocumentSnapshot> docs = new ArrayList<>();
+            for (Task<QuerySnapshot> chunk : task.getResult()) {
+                if (!chunk.isSuccessful()) {
+                    throw chunk.getException() != null ? chunk.getException()
+                            : new RuntimeException("Failed to fetch documents");
+                }
+                docs.addAll(chunk.getResult().getDocuments());
+            }
+            return docs;
+        });
+    }
+
+    // MEMBERSHIP INDEX FUNCTIONS
+    // -----------------------------------------------------------------------
+
+    private DocumentReference membershipRef(int userId, int eventId) {
+        return accRef.document(String.valueOf(userId))
+                .collection(MEMBERSHIPS)
+                .document(String.valueOf(eventId));
+    }
+
+    private Map<String, Object> membershipData(int eventId, boolean stampJoinTime) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        if (stampJoinTime) {
+            data.put("joinedAt", FieldValue.serverTimestamp());
+        }
+        return data;
+    }
+
+    private void deleteMemberships(int eventId, List<WaitlistUser> users) {
+        WriteBatch batch = db.batch();
+        int ops = 0;
+        for (WaitlistUser user : users) {
+            batch.delete(membershipRef(user.getUserId(), eventId));
+            if (++ops == MAX_BATCH_OPS) {
+                batch.commit().addOnFailureListener(e -> Log.e("DB", "Failed to delete memberships", e));
+                batch = db.batch();
+                ops = 0;
+            }
+        }
+        if (ops > 0) {
+            batch.commit().addOnFailureListener(e -> Log.e("DB", "Failed to delete memberships", e));
+        }
+    }
+
+    /**
+     * Delete a waitlist document together with its entrant and counter
+     * subcollections (Firestore does not cascade deletes).
+     */
+    private Task<Void> deleteWaitlistDocuments(int eventId, List<WaitlistUser> entrants) {
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int ops = 0;
+        for (WaitlistUser user : entrants) {
+            batch.delete(entrantRef(eventId, user.getUserId()));
+            if (++ops == MAX_BATCH_OPS) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                ops = 0;
+            }
+        }
+        if (ops > 0) {
+            commits.add(batch.commit());
+        }
+        // Counters and the parent go last so a partial failure can be retried
+        return Tasks.whenAll(commits).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return task;
+            }
+            WriteBatch last = db.batch();
+            for (int status = STATUS_WAITING; status <= STATUS_DECLINED; status++) {
+                for (int shard = 0; shard < COUNTER_SHARDS; shard++) {
+                    last.delete(countersRef(eventId).document(status + "_" + shard));
+                }
+                last.delete(countersRef(eventId).document(String.valueOf(status)));
+            }
+            for (int shard = 0; shard < ADMISSION_SHARDS; shard++) {
+                last.delete(admissionRef(eventId, shard));
+            }
+            last.delete(alternatesRef(eventId));
+            last.delete(waitListRef.document(String.valueOf(eventId)));
+            return last.commit();
+        });
+    }
+
+    /**
+     * Read the ids of every event whose waitlist the user has joined.
+     * Until every legacy waitList array has been migrated, users without the
+     * indexed marker are indexed on the spot from those arrays (see
+     * indexLegacyMemberships).
+     */
+    public Task<List<Integer>> getEventIdsForUser(int userId) {
+        return accRef.document(String.valueOf(userId))
+                .collection(MEMBERSHIPS)
+                .get()
+                .continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
+                        return Tasks.<List<Integer>>forException(task.getException() != null ? task.getException()
+                                : new RuntimeException("Failed to read memberships"));
+                    }
+                    List<Integer> eventIds = new ArrayList<>();
+                    boolean indexed = false;
+                    for (QueryDocumentSnapshot doc : task.getResult()) {
+                        if (MEMBERSHIPS_INDEXED.equals(doc.getId())) {
+                            indexed = true;
+                            continue;
+                        }
                         try {
-                            java.util.List<Object> waitList = (java.util.List<Object>) doc.get("waitList");
-                            if (waitList != null) {
-                                for (Object obj : waitList) {
-                                    if (obj instanceof java.util.Map) {
-                                        java.util.Map<String, Object> userMap = (java.util.Map<String, Object>) obj;
-                                        Object uid = userMap.get("userId");
-                                        int existingUserId = 0;
-                                        if (uid instanceof Number) {
-                                            existingUserId = ((Number) uid).intValue();
-                                        } else if (uid instanceof String) {
-                                            try {
-                                                existingUserId = Integer.parseInt((String) uid);
-                                            } catch (NumberFormatException e) {
-                                                // ignore
-                                            }
-                                        }
-                                        if (existingUserId == userId) {
-                                            // Get event ID from document ID
-                                            try {
-                                                int eventId = Integer.parseInt(doc.getId());
-                                                eventIds.add(eventId);
-                                            } catch (NumberFormatException e) {
-                                                // ignore
-                                            }
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            Log.e("DB", "Error parsing waitlist document: " + doc.getId(), e);
+                            eventIds.add(Integer.parseInt(doc.getId()));
+                        } catch (NumberFormatException ignored) {
                         }
                     }
+                    if (indexed)
+                        return Tasks.forResult(eventIds);
+                    return legacyWaitlistsMigrated().continueWithTask(migrated -> migrated.getResult()
+                            ? Tasks.forResult(eventIds) : indexLegacyMemberships(userId, eventIds));
+                });
+    }
 
-                    // Now fetch all the events
-                    if (eventIds.isEmpty()) {
-                        listener.onSuccess(new java.util.ArrayList<>());
-                        return;
+    /**
+     * Check once per process whether migrateWaitlistEntrants has recorded
+     * that no legacy waitList arrays are left. A negative or failed check is
+     * repeated by the next caller.
+     */
+    private synchronized Task<Boolean> legacyWaitlistsMigrated() {
+        if (legacyWaitlistsMigrated == null) {
+            legacyWaitlistsMigrated = metaRef.document(LEGACY_WAITLISTS_DOC).get().continueWith(task -> {
+                boolean migrated = task.isSuccessful()
+                        && Boolean.TRUE.equals(task.getResult().getBoolean("migrated"));
+                if (!migrated) {
+                    synchronized (this) {
+                        legacyWaitlistsMigrated = null;
                     }
+                }
+                return migrated;
+            });
+        }
+        return legacyWaitlistsMigrated;
+    }
 
-                    getAllEvents(allEvents -> {
-                        java.util.List<Event> userEvents = new java.util.ArrayList<>();
-                        for (Event event : allEvents) {
-                            if (eventIds.contains(event.getEventId())) {
-                                userEvents.add(event);
-                            }
-                        }
-                        listener.onSuccess(userEvents);
-                    }, errorListener);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("DB", "Error getting waitlists for user", e);
-                    errorListener.onFailure(e);
-                });
+    /**
+     * Fallback for a user without the indexed marker: find their events in
+     * the waitlists that still embed a waitList array, add the missing
+     * membership entries and write the marker, so this scan runs once per
+     * user. Events already moved to the Entrants subcollection wrote their
+     * memberships when they were migrated.
+     *
+     * @param indexed event ids already in the user's membership index
+     * @return task resolving to every event id of the user
+     */
+    private Task<List<Integer>> indexLegacyMemberships(int userId, List<Integer> indexed) {
+        return waitListRef.get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<List<Integer>>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read waitlists"));
+            }
+            Set<Integer> eventIds = new LinkedHashSet<>(indexed);
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int ops = 0;
+            for (QueryDocumentSnapshot doc : task.getResult()) {
+                if (!(doc.get("waitList") instanceof List))
+                    continue;
+                int eventId;
+                try {
+                    eventId = Integer.parseInt(doc.getId());
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                WaitingList wl = decodeWaitingList(doc);
+                if (wl == null || !wl.isUserInWaitlist(userId) || !eventIds.add(eventId))
+                    continue;
+                batch.set(membershipRef(userId, eventId), membershipData(eventId, false), SetOptions.merge());
+                if (++ops == MAX_BATCH_OPS) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                    ops = 0;
+                }
+            }
+            if (ops > 0) {
+                commits.add(batch.commit());
+            }
+
+            List<Integer> result = new ArrayList<>(eventIds);
+            Log.d("DB", "Indexed " + (result.size() - indexed.size()) + " legacy memberships of user " + userId);
+            Map<String, Object> marker = new HashMap<>();
+            marker.put("indexedAt", FieldValue.serverTimestamp());
+            // Mark only once every entry is written; the ids are returned either
+            // way, and a failed write only means the scan repeats next time
+            return Tasks.whenAll(commits).continueWithTask(t -> t.isSuccessful()
+                    ? accRef.document(String.valueOf(userId)).collection(MEMBERSHIPS)
+                            .document(MEMBERSHIPS_INDEXED).set(marker)
+                    : t).continueWith(t -> {
+                if (!t.isSuccessful()) {
+                    Log.e("DB", "Failed to write legacy memberships of user " + userId, t.getException());
+                }
+                return result;
+            });
+        });
     }
 
-    // Map a Firestore snapshot to Event while coercing types (e.g., String -> int)
-    private Event safeMapEvent(DocumentSnapshot snapshot) {
-        try {
-            // Fast path
-            return snapshot.toObject(Event.class);
-        } catch (RuntimeException ex) {
-            // Coerce where necessary and try again via reflection
-            Map<String, Object> data = snapshot.getData();
-            if (data == null) {
-                throw ex;
-            }
-
-            // Coerce ID fields to Integer when persisted as String
-            Object eid = data.get("eventId");
-            if (eid instanceof String) {
+    /**
+     * One-off backfill that builds the membership index from the existing
+     * waitlist documents. Safe to re-run; entries are merged.
+     *
+     * @return task resolving to the number of membership entries written
+     */
+    public Task<Integer> backfillMemberships() {
+        return waitListRef.get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<Integer>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read waitlists"));
+            }
+
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int ops = 0;
+            int total = 0;
+            for (QueryDocumentSnapshot doc : task.getResult()) {
+                int eventId;
                 try {
-                    data.put("eventId", Integer.parseInt((String) eid));
-                } catch (NumberFormatException ignored) {
-                    /* keep as-is */ }
+                    eventId = Integer.parseInt(doc.getId());
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                WaitingList wl = decodeWaitingList(doc);
+                if (wl == null || wl.getWaitList() == null)
+                    continue;
+
+                for (WaitlistUser user : wl.getWaitList()) {
+                    batch.set(membershipRef(user.getUserId(), eventId), membershipData(eventId, false),
+                            SetOptions.merge());
+                    total++;
+                    if (++ops == MAX_BATCH_OPS) {
+                        commits.add(batch.commit());
+                        batch = db.batch();
+                        ops = 0;
+                    }
+                }
             }
-            Object oid = data.get("organizerId");
-            if (oid instanceof String) {
+            if (ops > 0) {
+                commits.add(batch.commit());
+            }
+
+            int written = total;
+            return Tasks.whenAll(commits).continueWith(t -> {
+                if (!t.isSuccessful()) {
+                    throw t.getException() != null ? t.getException()
+                            : new RuntimeException("Membership backfill failed");
+                }
+                Log.d("DB", "Backfilled " + written + " membership entries");
+                return written;
+            });
+        });
+    }
+
+    /**
+     * One-off backfill of the derived query fields: the epoch-millis date
+     * fields (eventStartAt, eventEndAt, registrationOpensAt,
+     * registrationClosesAt) and tagsLower, for events written before they
+     * existed or whose stored values disagree with the source fields. Once
+     * every write succeeds, MetaData/eventIndex records the version so
+     * queryEvents can rely on the indexed fields.
+     *
+     * @return task resolving to the number of events updated
+     */
+    public Task<Integer> backfillEventIndexFields() {
+        return eventRef.get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<Integer>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read events"));
+            }
+
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int ops = 0;
+            int total = 0;
+            for (QueryDocumentSnapshot doc : task.getResult()) {
+                Map<String, Object> derived = Event.deriveTimestamps(
+                        stringField(doc, "eventStartDate"), stringField(doc, "eventStartTime"),
+                        stringField(doc, "eventEndDate"), stringField(doc, "eventEndTime"),
+                        stringField(doc, "registrationStartDate"), stringField(doc, "registrationEndDate"));
+                derived.put("tagsLower", Event.normalizeTags(FieldCoercion.asStringList(doc.get("tags"))));
+                boolean changed = false;
+                for (Map.Entry<String, Object> field : derived.entrySet()) {
+                    Object stored = doc.get(field.getKey());
+                    if (stored == null ? field.getValue() != null : !stored.equals(field.getValue())) {
+                        changed = true;
+                        break;
+                    }
+                }
+                if (!changed)
+                    continue;
+
+                batch.update(doc.getReference(), derived);
+                total++;
+                if (++ops == MAX_BATCH_OPS) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                    ops = 0;
+                }
+            }
+            if (ops > 0) {
+                commits.add(batch.commit());
+            }
+
+            int written = total;
+            return Tasks.whenAll(commits).continueWithTask(t -> {
+                if (!t.isSuccessful()) {
+                    throw t.getException() != null ? t.getException()
+                            : new RuntimeException("Event index backfill failed");
+                }
+                Log.d("DB", "Backfilled query fields on " + written + " events");
+                Map<String, Object> marker = new HashMap<>();
+                marker.put("version", EVENT_INDEX_VERSION);
+                marker.put("indexedAt", FieldValue.serverTimestamp());
+                return metaRef.document(EVENT_INDEX_DOC).set(marker).continueWith(m -> {
+                    if (!m.isSuccessful()) {
+                        // The fields are in place; the next check just backfills again
+                        Log.e("DB", "Failed to record the event index version", m.getException());
+                    }
+                    return written;
+                });
+            });
+        });
+    }
+
+    /**
+     * Migration from the embedded waitList array to the Entrants
+     * subcollection for every event, at most MAX_READS_IN_FLIGHT events at a
+     * time. Events are also migrated one by one on first access (see
+     * afterEntrantMigration), so this only speeds the backfill up. Once
+     * every event succeeds, MetaData/legacyWaitlists records that no arrays
+     * are left, and getEventIdsForUser stops scanning for them. Safe to
+     * re-run.
+     *
+     * @return task resolving to the number of entrants migrated
+     */
+    public Task<Integer> migrateWaitlistEntrants() {
+        return waitListRef.get().continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                return Tasks.<Integer>forException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to read waitlists"));
+            }
+
+            List<BoundedTaskRunner.TaskFactory<Integer>> migrations = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : task.getResult()) {
+                if (!(doc.get("waitList") instanceof List))
+                    continue;
+                int eventId;
                 try {
-                    data.put("organizerId", Integer.parseInt((String) oid));
-                } catch (NumberFormatException ignored) {
-                    /* keep as-is */ }
-            }
-
-            // Build Event instance using reflection to avoid setters (which update DB)
-            Event ev = new Event();
-            ev.setAutoUpdateDatabase(false);
-            setIfPresent(ev, data, "eventId");
-            setIfPresent(ev, data, "title");
-            setIfPresent(ev, data, "imageUrl");
-            setIfPresent(ev, data, "location");
-            setIfPresent(ev, data, "capacity");
-            setIfPresent(ev, data, "description");
-            setIfPresent(ev, data, "organizerId");
-            setIfPresent(ev, data, "qrCode");
-            setIfPresent(ev, data, "eventStartDate");
-            setIfPresent(ev, data, "eventEndDate");
-            setIfPresent(ev, data, "registrationStartDate");
-            setIfPresent(ev, data, "registrationEndDate");
-            setIfPresent(ev, data, "eventStartTime");
-            setIfPresent(ev, data, "eventEndTime");
-            setIfPresent(ev, data, "fee");
-            setIfPresent(ev, data, "tags");
-            setIfPresent(ev, data, "geoLocation");
-            // waitingList is optional and has its own collection; skip here
-
-            return ev;
-        }
+                    eventId = Integer.parseInt(doc.getId());
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                migrations.add(() -> migrateEventEntrants(eventId));
+            }
+
+            return BoundedTaskRunner.runAll(migrations, MAX_READS_IN_FLIGHT).continueWithTask(t -> {
+                int migrated = 0;
+                for (Task<Integer> result : t.getResult()) {
+                    if (!result.isSuccessful()) {
+                        throw result.getException() != null ? result.getException()
+                                : new RuntimeException("Waitlist migration failed");
+                    }
+                    migrated += result.getResult();
+                }
+                Log.d("DB", "Migrated " + migrated + " entrants from " + migrations.size() + " waitlists");
+                int moved = migrated;
+                Map<String, Object> marker = new HashMap<>();
+                marker.put("migrated", true);
+                marker.put("migratedAt", FieldValue.serverTimestamp());
+                return metaRef.document(LEGACY_WAITLISTS_DOC).set(marker).continueWith(m -> {
+                    if (!m.isSuccessful()) {
+                        // Nothing is lost; users keep falling back to the scan until a re-run records it
+                        Log.e("DB", "Failed to record the waitlist migration", m.getException());
+                    }
+                    return moved;
+                });
+            });
+        });
     }
 
-    private void setIfPresent(Object target, Map<String, Object> data, String fieldName) {
-        if (!data.containsKey(fieldName))
-            return;
-        try {
-            java.lang.reflect.Field f = target.getClass().getDeclaredField(fieldName);
-            f.setAccessible(true);
-            Object value = data.get(fieldName);
-            // Handle numeric conversions for int fields
-            if (f.getType() == int.class) {
-                if (value instanceof String) {
-                    try {
-                        value = Integer.parseInt((String) value);
-                    } catch (NumberFormatException ignored) {
-                        /* leave unchanged */ }
-                } else if (value instanceof Long) {
-                    // Firestore returns numbers as Long, convert to int
-                    value = ((Long) value).intValue();
-                } else if (value instanceof Integer) {
-                    // Already an int, no conversion needed
-                    value = (Integer) value;
+    /**
+     * Run op once the event's legacy waitList array, if it has one, has been
+     * moved to the Entrants subcollection, so reads and writes never see a
+     * half-migrated event. The check costs one read of the waitlist document
+     * per event per process; concurrent callers share one migration.
+     */
+    private <T> Task<T> afterEntrantMigration(int eventId, BoundedTaskRunner.TaskFactory<T> op) {
+        if (migratedEntrantEvents.contains(eventId))
+            return op.start();
+        return migrateEventEntrants(eventId).continueWithTask(t -> {
+            if (!t.isSuccessful()) {
+                return Tasks.<T>forException(t.getException() != null ? t.getException()
+                        : new RuntimeException("Failed to migrate waitlist " + eventId));
+            }
+            return op.start();
+        });
+    }
+
+    /**
+     * @return task resolving to the number of entrants moved out of the
+     *         event's waitList array; 0 if it had none
+     */
+    private Task<Integer> migrateEventEntrants(int eventId) {
+        Task<Integer> migration;
+        synchronized (entrantMigrations) {
+            Task<Integer> running = entrantMigrations.get(eventId);
+            if (running != null)
+                return running;
+            migration = waitListRef.document(String.valueOf(eventId)).get().continueWithTask(task -> {
+                if (!task.isSuccessful()) {
+                    return Tasks.<Integer>forException(task.getException() != null ? task.getException()
+                            : new RuntimeException("Failed to read waitlist " + eventId));
                 }
+                DocumentSnapshot doc = task.getResult();
+                if (!(doc.get("waitList") instanceof List))
+                    return Tasks.forResult(0);
+                return migrateEntrants(eventId, decodeWaitingList(doc).getWaitList());
+            });
+            entrantMigrations.put(eventId, migration);
+        }
+        migration.addOnCompleteListener(t -> {
+            synchronized (entrantMigrations) {
+                entrantMigrations.remove(eventId);
+            }
+            if (t.isSuccessful()) {
+                migratedEntrantEvents.add(eventId);
+            }
+        });
+        return migration;
+    }
+
+    private Task<Integer> migrateEntrants(int eventId, List<WaitlistUser> users) {
+        // Users who joined again after the new layout keep their newer entrant document
+        return entrantsRef(eventId).get().continueWithTask(existing -> {
+            if (!existing.isSuccessful()) {
+                return Tasks.<Integer>forException(existing.getException() != null ? existing.getException()
+                        : new RuntimeException("Failed to read entrants of " + eventId));
             }
-            f.set(target, value);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            Log.w("DB", "Field set failed for " + fieldName + ": " + e.getMessage());
+            Set<String> joined = new HashSet<>();
+            for (QueryDocumentSnapshot doc : existing.getResult()) {
+                joined.add(doc.getId());
+            }
+            return writeLegacyEntrants(eventId, users, joined);
+        });
+    }
+
+    private Task<Integer> writeLegacyEntrants(int eventId, List<WaitlistUser> users, Set<String> joined) {
+        // Synthetic join times one millisecond apart keep the array order
+        long base = System.currentTimeMillis() - users.size();
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int ops = 0;
+        int written = 0;
+        for (int i = 0; i < users.size(); i++) {
+            WaitlistUser user = users.get(i);
+            if (!joined.add(String.valueOf(user.getUserId())))
+                continue;
+            written++;
+            Map<String, Object> data = new HashMap<>();
+            data.put("userId", user.getUserId());
+            data.put("status", user.getStatus());
+            data.put("joinedAt", new Timestamp(new Date(base + i)));
+            batch.set(entrantRef(eventId, user.getUserId()), data);
+            // Keep the user's membership index in step with the moved entrant
+            batch.set(membershipRef(user.getUserId(), eventId), membershipData(eventId, false), SetOptions.merge());
+            ops += 2;
+            if (ops > MAX_BATCH_OPS - 2) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                ops = 0;
+            }
+        }
+        if (ops > 0) {
+            commits.add(batch.commit());
         }
+
+        int moved = written;
+        return Tasks.whenAll(commits)
+                .continueWithTask(t -> t.isSuccessful() ? recountEntrants(eventId) : t)
+                .continueWithTask(t -> t.isSuccessful()
+                        ? waitListRef.document(String.valueOf(eventId)).update("waitList", FieldValue.delete())
+                        : t)
+                .continueWith(t -> {
+                    if (!t.isSuccessful()) {
+                        throw t.getException() != null ? t.getException()
+                                : new RuntimeException("Failed to migrate waitlist " + eventId);
+                    }
+                    return moved;
+                });
+    }
+
+    private static String stringField(DocumentSnapshot doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    // Decode snapshots with the per-model codecs (no reflection, no setters)
+    private Event decodeEvent(DocumentSnapshot snapshot) {
+        return Event.fromMap(snapshot.getId(), snapshot.getData());
+    }
+
+    private Profile decodeProfile(DocumentSnapshot snapshot) {
+        return Profile.fromMap(snapshot.getId(), snapshot.getData());
+    }
+
+    private WaitingList decodeWaitingList(DocumentSnapshot snapshot) {
+        return WaitingList.fromMap(snapshot.getId(), snapshot.getData());
     }
 
     // WAITING LIST FUNCTIONS
     // -----------------------------------------------------------------------
 
     public void addWaitingList(WaitingList newWaitingList) {
-        // Add the waitlist to DB (store under WaitListData)
-        waitListRef.document(String.valueOf(newWaitingList.getEventId()))
-                .set(newWaitingList)
+        // Waitlist settings live on WaitListData/{eventId}; entrants are
+        // separate documents, so only write whatever entrants it starts with
+        int eventId = newWaitingList.getEventId();
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        data.put("status", newWaitingList.getStatus());
+        data.put("maxWaitlistSize", newWaitingList.getMaxWaitlistSize());
+
+        WriteBatch batch = db.batch();
+        batch.set(waitListRef.document(String.valueOf(eventId)), data);
+        List<WaitlistUser> entrants = newWaitingList.getWaitList();
+        if (entrants != null && !entrants.isEmpty()) {
+            // New events start empty; this path only serves tests and tooling
+            for (WaitlistUser user : entrants) {
+                batch.set(entrantRef(eventId, user.getUserId()), entrantData(user.getUserId(), user.getStatus()));
+                batch.set(counterShard(eventId, user.getStatus()), counterDelta(user.getStatus(), 1), SetOptions.merge());
+            }
+        }
+        batch.commit()
                 .addOnSuccessListener(unused -> {
-                    Log.d("DB", "Successfully added waitlist: " + newWaitingList.getEventId());
+                    Log.d("DB", "Successfully added waitlist: " + eventId);
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("DB", "Error adding waitlist " + newWaitingList.getEventId(), e);
+                    Log.e("DB", "Error adding waitlist " + eventId, e);
                 });
     }
 
-    public void getWaitingList(int id,
+    /**
+     * Load only the waitlist settings (status, maxWaitlistSize) without its
+     * entrants. Pair with getEntrantCounts/getEntrant for screens that only
+     * need sizes and the current user's state.
+     *
+     * @param listener success callback with an entrant-less waitlist, or null
+     *                 if the event has none
+     */
+    public void getWaitingListInfo(int id,
             OnSuccessListener<WaitingList> listener,
             OnFailureListener errorListener) {
         waitListRef.document(String.valueOf(id))
                 .get()
                 .addOnSuccessListener(snapshot -> {
-                    if (snapshot.exists()) {
-                        try {
-                            WaitingList wl = safeMapWaitingList(snapshot);
-                            listener.onSuccess(wl);
-                        } catch (RuntimeException ex) {
-                            Log.e("DB", "Failed to deserialize WaitingList", ex);
-                            errorListener.onFailure(ex);
-                        }
-                    } else {
+                    if (!snapshot.exists()) {
                         listener.onSuccess(null);
+                        return;
+                    }
+                    try {
+                        Map<String, Object> data = new HashMap<>(snapshot.getData());
+                        // Ignore any unmigrated array; callers must not rely on entrants here
+                        data.remove("waitList");
+                        listener.onSuccess(WaitingList.fromMap(snapshot.getId(), data));
+                    } catch (RuntimeException ex) {
+                        Log.e("DB", "Failed to deserialize WaitingList", ex);
+                        errorListener.onFailure(ex);
                     }
                 })
                 .addOnFailureListener(e -> {
@@ -1039,82 +2732,39 @@ public class DatabaseHandler {
                 });
     }
 
-    private WaitingList safeMapWaitingList(DocumentSnapshot snapshot) {
-        try {
-            return snapshot.toObject(WaitingList.class);
-        } catch (RuntimeException ex) {
-            Map<String, Object> data = snapshot.getData();
-            if (data == null)
-                throw ex;
-
-            Object eid = data.get("eventId");
-            if (eid instanceof String) {
-                try {
-                    data.put("eventId", Integer.parseInt((String) eid));
-                } catch (NumberFormatException ignored) {
-                }
-            }
-            Object max = data.get("maxWaitlistSize");
-            if (max instanceof String) {
-                try {
-                    data.put("maxWaitlistSize", Integer.parseInt((String) max));
-                } catch (NumberFormatException ignored) {
-                }
-            }
-
-            // Coerce arrays to ArrayList<WaitlistUser>
-            Object wl = data.get("waitList");
-            if (wl instanceof java.util.List) {
-                java.util.ArrayList<com.example.pixel_events.waitinglist.WaitlistUser> coerced = new java.util.ArrayList<>();
-                for (Object o : (java.util.List<?>) wl) {
-                    if (o instanceof java.util.Map) {
-                        try {
-                            java.util.Map<String, Object> map = (java.util.Map<String, Object>) o;
-                            int userId = 0;
-                            int status = 0;
-                            if (map.containsKey("userId")) {
-                                Object uid = map.get("userId");
-                                if (uid instanceof Number)
-                                    userId = ((Number) uid).intValue();
-                                else if (uid instanceof String)
-                                    userId = Integer.parseInt((String) uid);
-                            }
-                            if (map.containsKey("status")) {
-                                Object st = map.get("status");
-                                if (st instanceof Number)
-                                    status = ((Number) st).intValue();
-                                else if (st instanceof String)
-                                    status = Integer.parseInt((String) st);
-                            }
-                            coerced.add(new com.example.pixel_events.waitinglist.WaitlistUser(userId, status));
-                        } catch (Exception e) {
-                            Log.e("DB", "Failed to parse WaitlistUser map", e);
-                        }
-                    } else if (o instanceof Number) {
-                        // Handle legacy data where waitList was just a list of user IDs
-                        coerced.add(new com.example.pixel_events.waitinglist.WaitlistUser(((Number) o).intValue(), 0));
-                    } else if (o instanceof String) {
-                        try {
-                            coerced.add(new com.example.pixel_events.waitinglist.WaitlistUser(
-                                    Integer.parseInt((String) o), 0));
-                        } catch (NumberFormatException ignored) {
+    /**
+     * Load a waitlist with all of its entrants, in join order.
+     *
+     * @param listener success callback with the waitlist, or null if the event
+     *                 has none
+     */
+    public void getWaitingList(int id,
+            OnSuccessListener<WaitingList> listener,
+            OnFailureListener errorListener) {
+        Task<DocumentSnapshot> parent = waitListRef.document(String.valueOf(id)).get();
+        Task<QuerySnapshot> entrants = afterEntrantMigration(id, () -> entrantsRef(id).orderBy("joinedAt").get());
+        Tasks.whenAll(parent, entrants)
+                .addOnSuccessListener(unused -> {
+                    DocumentSnapshot snapshot = parent.getResult();
+                    if (!snapshot.exists()) {
+                        listener.onSuccess(null);
+                        return;
+                    }
+                    try {
+                        List<Map<String, Object>> rows = new ArrayList<>();
+                        for (QueryDocumentSnapshot doc : entrants.getResult()) {
+                            rows.add(doc.getData());
                         }
+                        listener.onSuccess(WaitingList.fromMap(snapshot.getId(), snapshot.getData(), rows));
+                    } catch (RuntimeException ex) {
+                        Log.e("DB", "Failed to deserialize WaitingList", ex);
+                        errorListener.onFailure(ex);
                     }
-                }
-                data.put("waitList", coerced);
-            }
-
-            // Remove selected field handling as it's deprecated
-            data.remove("selected");
-
-            WaitingList wlObj = new WaitingList();
-            wlObj.setAutoUpdateDatabase(false);
-            setIfPresent(wlObj, data, "eventId");
-            setIfPresent(wlObj, data, "status");
-            setIfPresent(wlObj, data, "waitList");
-            setIfPresent(wlObj, data, "maxWaitlistSize");
-            return wlObj;
-        }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("DB", "Error getting waitlist", e);
+                    errorListener.onFailure(e);
+                });
     }
 
 }
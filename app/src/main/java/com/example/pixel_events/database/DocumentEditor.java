@@ -0,0 +1,160 @@
+package com.example.pixel_events.database;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DocumentEditor
+ *
+ * Base class for the model edit sessions (Event.edit(), Profile.edit(),
+ * WaitingList.edit()). Typed setters on the subclasses validate their input
+ * and stage a dirty field; commit() applies the staged values to the model
+ * and sends every dirty field in one update(). Firestore's update() only
+ * succeeds if the document exists, which replaces the old read-then-write.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Performs the immediate update
+ * - WriteCoalescer: Merges debounced commits from the auto-update setters
+ */
+public abstract class DocumentEditor<T extends DocumentEditor<T>> {
+    private final Map<String, Object> dirty = new LinkedHashMap<>();
+    private final List<Runnable> localChanges = new ArrayList<>();
+    private boolean committed;
+
+    protected abstract T self();
+
+    /**
+     * Collection holding the edited document.
+     */
+    protected abstract CollectionReference collection(DatabaseHandler db);
+
+    protected abstract Object documentId();
+
+    /**
+     * False when the model is detached (auto-update off or no id yet); the
+     * edit is then applied locally only.
+     */
+    protected abstract boolean isPersistent();
+
+    /**
+     * Cross-field validation against the staged and current values. Runs
+     * before anything is applied.
+     */
+    protected void validate() {
+    }
+
+    /**
+     * Hook to add derived fields once the staged values are applied.
+     */
+    protected void onApplied(Map<String, Object> dirty) {
+    }
+
+    /**
+     * Record a field write and the matching change to the local model.
+     * Staging the same field again replaces the earlier value.
+     */
+    protected final T stage(String field, Object value, Runnable applyLocally) {
+        if (committed) {
+            throw new IllegalStateException("Edit session already committed");
+        }
+        dirty.put(field, value);
+        localChanges.add(applyLocally);
+        return self();
+    }
+
+    protected final boolean isStaged(String field) {
+        return dirty.containsKey(field);
+    }
+
+    protected final Object stagedValue(String field) {
+        return dirty.get(field);
+    }
+
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    public Set<String> getDirtyFields() {
+        return Collections.unmodifiableSet(dirty.keySet());
+    }
+
+    /**
+     * Apply the edits locally and write all dirty fields now.
+     *
+     * @return completes when Firestore acknowledges the write; fails with
+     *         NOT_FOUND if the document does not exist
+     */
+    public Task<Void> commit() {
+        Map<String, Object> updates = apply();
+        if (updates == null)
+            return Tasks.forResult(null);
+        DatabaseHandler db = DatabaseHandler.getInstance();
+        return db.update(collection(db), documentId(), updates);
+    }
+
+    /**
+     * Apply the edits locally and queue the write so edits to the same
+     * document within WriteCoalescer.DEBOUNCE_MS go out together.
+     */
+    public Task<Void> commitDebounced() {
+        Map<String, Object> updates = apply();
+        if (updates == null)
+            return Tasks.forResult(null);
+        DatabaseHandler db = DatabaseHandler.getInstance();
+        return db.enqueueUpdate(collection(db), documentId(), updates);
+    }
+
+    /**
+     * Write all dirty fields now and apply the edits locally only once the
+     * write succeeds, so a failed save leaves the model as it was. The
+     * onApplied hook is not run, so only editors without derived fields
+     * make this public.
+     */
+    protected Task<Void> commitThenApply() {
+        if (committed) {
+            throw new IllegalStateException("Edit session already committed");
+        }
+        validate();
+        committed = true;
+        if (dirty.isEmpty() || !isPersistent()) {
+            applyLocally();
+            return Tasks.forResult(null);
+        }
+        DatabaseHandler db = DatabaseHandler.getInstance();
+        return db.update(collection(db), documentId(), new LinkedHashMap<>(dirty))
+                .onSuccessTask(unused -> {
+                    applyLocally();
+                    return Tasks.forResult(null);
+                });
+    }
+
+    /**
+     * @return the fields to write, or null when nothing needs persisting
+     */
+    private Map<String, Object> apply() {
+        if (committed) {
+            throw new IllegalStateException("Edit session already committed");
+        }
+        validate();
+        committed = true;
+        applyLocally();
+        if (dirty.isEmpty())
+            return null;
+        onApplied(dirty);
+        return isPersistent() ? new LinkedHashMap<>(dirty) : null;
+    }
+
+    private void applyLocally() {
+        for (Runnable change : localChanges) {
+            change.run();
+        }
+    }
+}
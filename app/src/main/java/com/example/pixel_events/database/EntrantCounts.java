@@ -0,0 +1,68 @@
+package com.example.pixel_events.database;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * EntrantCounts
+ *
+ * Per-status entrant totals for one event, summed from the sharded counter
+ * documents under WaitListData/{eventId}/Counters. Lets screens show
+ * waitlist sizes without downloading the entrants.
+ *
+ * Implements:
+ * - US 01.05.04 (Total entrant count)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Reads and sums the counter shards
+ * - EventDetailedFragment: Waiting list count and capacity check
+ */
+public class EntrantCounts {
+    private final Map<Integer, Long> byStatus;
+
+    EntrantCounts(Map<Integer, Long> byStatus) {
+        this.byStatus = new HashMap<>(byStatus);
+    }
+
+    /**
+     * Entrants with the given WaitlistUser status. Never negative; a shard
+     * can briefly dip below zero while concurrent updates land.
+     */
+    public long get(int status) {
+        Long count = byStatus.get(status);
+        return count == null ? 0 : Math.max(0, count);
+    }
+
+    public long getWaiting() {
+        return get(0);
+    }
+
+    public long getSelected() {
+        return get(1);
+    }
+
+    public long getAccepted() {
+        return get(2);
+    }
+
+    public long getDeclined() {
+        return get(3);
+    }
+
+    /**
+     * Everyone on the waitlist, regardless of status.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (Integer status : byStatus.keySet()) {
+            total += get(status);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "waiting=" + getWaiting() + " selected=" + getSelected()
+                + " accepted=" + getAccepted() + " declined=" + getDeclined();
+    }
+}
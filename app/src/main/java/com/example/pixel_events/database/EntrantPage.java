@@ -0,0 +1,125 @@
+package com.example.pixel_events.database;
+
+import com.example.pixel_events.waitinglist.WaitlistUser;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * EntrantPage
+ *
+ * One page of an event's entrants from DatabaseHandler.getEntrantPage,
+ * listed status by status in the requested order, then by join time, then
+ * user id.
+ * Pass getCursor() back into getEntrantPage to fetch the following page, or
+ * save getPosition() to resume from it later without the snapshot.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Produces pages
+ * - WaitingListFragment: Pages through an event's entrants
+ * - SavingData: Checkpoints exports by Position
+ */
+public class EntrantPage {
+    private final List<WaitlistUser> entrants;
+    private final DocumentSnapshot cursor;
+    private final boolean hasMore;
+
+    EntrantPage(List<WaitlistUser> entrants, DocumentSnapshot cursor, boolean hasMore) {
+        this.entrants = Collections.unmodifiableList(entrants);
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<WaitlistUser> getEntrants() {
+        return entrants;
+    }
+
+    /**
+     * Last document of this page, or null when the page is empty.
+     */
+    public DocumentSnapshot getCursor() {
+        return cursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sort key of the last entrant on this page, or null when the page is
+     * empty or the entrant has no join time yet.
+     */
+    public Position getPosition() {
+        return cursor != null ? Position.of(cursor) : null;
+    }
+
+    /**
+     * Sort key of one entrant (status, join time, user id). Unlike a
+     * snapshot it can be stored as a string and used after a restart.
+     */
+    public static final class Position {
+        private final int status;
+        private final long joinedAtSeconds;
+        private final int joinedAtNanos;
+        private final int userId;
+
+        private Position(int status, long joinedAtSeconds, int joinedAtNanos, int userId) {
+            this.status = status;
+            this.joinedAtSeconds = joinedAtSeconds;
+            this.joinedAtNanos = joinedAtNanos;
+            this.userId = userId;
+        }
+
+        static Position of(DocumentSnapshot doc) {
+            Long status = doc.getLong("status");
+            Timestamp joinedAt = doc.getTimestamp("joinedAt");
+            if (status == null || joinedAt == null)
+                return null;
+            try {
+                return new Position(status.intValue(), joinedAt.getSeconds(), joinedAt.getNanoseconds(),
+                        Integer.parseInt(doc.getId()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Timestamp getJoinedAt() {
+            return new Timestamp(joinedAtSeconds, joinedAtNanos);
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return "status:seconds:nanos:userId", readable by parse()
+         */
+        @Override
+        public String toString() {
+            return status + ":" + joinedAtSeconds + ":" + joinedAtNanos + ":" + userId;
+        }
+
+        /**
+         * @return the position, or null if value is null or malformed
+         */
+        public static Position parse(String value) {
+            if (value == null)
+                return null;
+            String[] parts = value.split(":");
+            if (parts.length != 4)
+                return null;
+            try {
+                return new Position(Integer.parseInt(parts[0]), Long.parseLong(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
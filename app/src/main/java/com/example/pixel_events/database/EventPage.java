@@ -0,0 +1,44 @@
+package com.example.pixel_events.database;
+
+import com.example.pixel_events.events.Event;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * EventPage
+ *
+ * One page of results from DatabaseHandler.queryEvents.
+ * Pass getCursor() back into queryEvents to fetch the following page.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Produces pages
+ * - EventQuery: Filter the page was read with
+ */
+public class EventPage {
+    private final List<Event> events;
+    private final DocumentSnapshot cursor;
+    private final boolean hasMore;
+
+    EventPage(List<Event> events, DocumentSnapshot cursor, boolean hasMore) {
+        this.events = Collections.unmodifiableList(events);
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * Last document of this page, or null when the page is empty.
+     */
+    public DocumentSnapshot getCursor() {
+        return cursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
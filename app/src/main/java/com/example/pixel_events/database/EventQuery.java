@@ -0,0 +1,176 @@
+package com.example.pixel_events.database;
+
+import com.example.pixel_events.events.Event;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * EventQuery
+ *
+ * Server-side filter for paging through EventData with
+ * DatabaseHandler.queryEvents. Date predicates run against the indexed
+ * epoch-millis fields that Event derives from its date/time strings, and
+ * tag predicates against its lowercased tagsLower field. matches() applies
+ * the same filter to a decoded event, for documents written before those
+ * fields existed.
+ *
+ * Implements:
+ * - US 01.01.03 (View list of available events)
+ * - US 01.01.04 (Filter events by interests and availability)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Runs the query one page at a time
+ * - DashboardFragment, AdminEventFragment, AdminImageFragment,
+ *   LotteryDrawWorker: Callers
+ */
+public class EventQuery {
+    // Firestore limit for array-contains-any
+    public static final int MAX_TAGS = 30;
+
+    private Integer organizerId;
+    private Long endsAtOrAfter;
+    private Long startFrom;
+    private Long startBefore;
+    private Long closesFrom;
+    private Long closesBefore;
+    private final List<String> anyTags = new ArrayList<>();
+    private boolean requireImage;
+
+    /**
+     * Only events organized by the given user.
+     */
+    public EventQuery organizedBy(int organizerId) {
+        this.organizerId = organizerId;
+        return this;
+    }
+
+    /**
+     * Only events that end at or after the given instant (epoch millis).
+     */
+    public EventQuery endingOnOrAfter(long millis) {
+        this.endsAtOrAfter = millis;
+        return this;
+    }
+
+    /**
+     * Only events that start within [from, before) (epoch millis, either may be null).
+     */
+    public EventQuery startingBetween(Long from, Long before) {
+        this.startFrom = from;
+        this.startBefore = before;
+        return this;
+    }
+
+    /**
+     * Only events whose registration closes within [from, before) (epoch millis,
+     * either may be null).
+     */
+    public EventQuery registrationClosingBetween(Long from, Long before) {
+        this.closesFrom = from;
+        this.closesBefore = before;
+        return this;
+    }
+
+    /**
+     * Only events carrying at least one of the given tags, ignoring case and
+     * surrounding whitespace.
+     */
+    public EventQuery withAnyTag(Collection<String> tags) {
+        anyTags.clear();
+        anyTags.addAll(Event.normalizeTags(tags));
+        if (anyTags.size() > MAX_TAGS) {
+            throw new IllegalArgumentException("At most " + MAX_TAGS + " tags can be queried at once");
+        }
+        return this;
+    }
+
+    /**
+     * Only events with a non-empty poster image.
+     */
+    public EventQuery withImage() {
+        this.requireImage = true;
+        return this;
+    }
+
+    /**
+     * Build the ordered Firestore query. Every inequality field is also an
+     * orderBy key so pages can resume with startAfter; the document id breaks
+     * ties.
+     */
+    Query build(CollectionReference eventRef) {
+        Query query = eventRef;
+        List<String> orderFields = new ArrayList<>();
+
+        if (organizerId != null) {
+            query = query.whereEqualTo("organizerId", organizerId);
+        }
+
+        if (endsAtOrAfter != null) {
+            query = query.whereGreaterThanOrEqualTo("eventEndAt", endsAtOrAfter);
+            orderFields.add("eventEndAt");
+        }
+        if (startFrom != null || startBefore != null) {
+            if (startFrom != null)
+                query = query.whereGreaterThanOrEqualTo("eventStartAt", startFrom);
+            if (startBefore != null)
+                query = query.whereLessThan("eventStartAt", startBefore);
+            orderFields.add("eventStartAt");
+        }
+        if (closesFrom != null || closesBefore != null) {
+            if (closesFrom != null)
+                query = query.whereGreaterThanOrEqualTo("registrationClosesAt", closesFrom);
+            if (closesBefore != null)
+                query = query.whereLessThan("registrationClosesAt", closesBefore);
+            orderFields.add("registrationClosesAt");
+        }
+        if (requireImage) {
+            query = query.whereGreaterThan("imageUrl", "");
+            orderFields.add("imageUrl");
+        }
+        if (!anyTags.isEmpty()) {
+            query = query.whereArrayContainsAny("tagsLower", new ArrayList<>(anyTags));
+        }
+
+        for (String field : orderFields) {
+            query = query.orderBy(field);
+        }
+        return query.orderBy(FieldPath.documentId());
+    }
+
+    /**
+     * Whether a decoded event passes this filter. Missing epoch-millis fields
+     * are derived from the date strings and tags are normalized, so events
+     * stored before the indexed fields existed are judged the same way.
+     */
+    public boolean matches(Event event) {
+        if (organizerId != null && event.getOrganizerId() != organizerId)
+            return false;
+        if (endsAtOrAfter != null && !inRange(event.getEventEndAt(), endsAtOrAfter, null))
+            return false;
+        if ((startFrom != null || startBefore != null) && !inRange(event.getEventStartAt(), startFrom, startBefore))
+            return false;
+        if ((closesFrom != null || closesBefore != null)
+                && !inRange(event.getRegistrationClosesAt(), closesFrom, closesBefore))
+            return false;
+        if (requireImage && (event.getImageUrl() == null || event.getImageUrl().isEmpty()))
+            return false;
+        if (!anyTags.isEmpty()) {
+            for (String tag : event.getTagsLower()) {
+                if (anyTags.contains(tag))
+                    return true;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Like the server, a missing value never satisfies a range
+    private static boolean inRange(Long value, Long from, Long before) {
+        return value != null && (from == null || value >= from) && (before == null || value < before);
+    }
+}
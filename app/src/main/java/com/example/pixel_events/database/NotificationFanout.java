@@ -0,0 +1,162 @@
+package com.example.pixel_events.database;
+
+import android.util.Log;
+
+import com.example.pixel_events.notifications.Notification;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * NotificationFanout
+ *
+ * Batched writer for delivering notifications to many users at once.
+ * Each notification costs two writes (the recipient's Notifications inbox and
+ * the global NotificationLogs entry); both land in the same WriteBatch, and
+ * batches of up to 500 operations are committed with bounded parallelism.
+ *
+ * Implements:
+ * - US 02.07.01, 02.07.02, 02.07.03 (Organizer notifications)
+ * - US 03.08.01 (Notification logging)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Owns the instance and exposes addNotifications
+ * - BoundedTaskRunner: Limits concurrent batch commits
+ * - Notification: Payload written per recipient
+ */
+public class NotificationFanout {
+    private static final String TAG = "NotificationFanout";
+    // Firestore caps a WriteBatch at 500 operations; each notification is two writes
+    private static final int NOTIFICATIONS_PER_BATCH = 250;
+    private static final int MAX_BATCHES_IN_FLIGHT = 4;
+
+    private final FirebaseFirestore db;
+    private final CollectionReference accRef;
+    private final CollectionReference logRef;
+
+    NotificationFanout(FirebaseFirestore db, CollectionReference accRef) {
+        this.db = db;
+        this.accRef = accRef;
+        this.logRef = db.collection("NotificationLogs");
+    }
+
+    /**
+     * Outcome of a single committed batch.
+     */
+    public static class BatchOutcome {
+        private final int index;
+        private final int notificationCount;
+        private final Exception error;
+
+        BatchOutcome(int index, int notificationCount, Exception error) {
+            this.index = index;
+            this.notificationCount = notificationCount;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getNotificationCount() {
+            return notificationCount;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Summary of a fan-out once every batch has settled.
+     */
+    public static class Result {
+        private final List<BatchOutcome> batches;
+
+        Result(List<BatchOutcome> batches) {
+            this.batches = Collections.unmodifiableList(batches);
+        }
+
+        public List<BatchOutcome> getBatches() {
+            return batches;
+        }
+
+        public int getDeliveredCount() {
+            int delivered = 0;
+            for (BatchOutcome b : batches) {
+                if (b.isSuccessful())
+                    delivered += b.getNotificationCount();
+            }
+            return delivered;
+        }
+
+        public int getFailedCount() {
+            int failed = 0;
+            for (BatchOutcome b : batches) {
+                if (!b.isSuccessful())
+                    failed += b.getNotificationCount();
+            }
+            return failed;
+        }
+
+        public boolean isFullyDelivered() {
+            return getFailedCount() == 0;
+        }
+    }
+
+    /**
+     * Write every notification to its recipient's inbox and to the global log.
+     *
+     * @param notifications notifications with recipientId set
+     * @return task that completes once every batch is durable or has failed
+     */
+    public Task<Result> send(List<Notification> notifications) {
+        List<List<Notification>> chunks = new ArrayList<>();
+        for (int i = 0; i < notifications.size(); i += NOTIFICATIONS_PER_BATCH) {
+            chunks.add(new ArrayList<>(notifications.subList(i,
+                    Math.min(i + NOTIFICATIONS_PER_BATCH, notifications.size()))));
+        }
+
+        List<BoundedTaskRunner.TaskFactory<Void>> commits = new ArrayList<>();
+        for (List<Notification> chunk : chunks) {
+            commits.add(() -> buildBatch(chunk).commit());
+        }
+
+        return BoundedTaskRunner.runAll(commits, MAX_BATCHES_IN_FLIGHT).continueWith(task -> {
+            List<BatchOutcome> outcomes = new ArrayList<>();
+            List<Task<Void>> settled = task.getResult();
+            for (int i = 0; i < settled.size(); i++) {
+                Task<Void> commit = settled.get(i);
+                Exception error = commit.isSuccessful() ? null : commit.getException();
+                if (error != null) {
+                    Log.e(TAG, "Notification batch " + i + " failed", error);
+                }
+                outcomes.add(new BatchOutcome(i, chunks.get(i).size(), error));
+            }
+            Result result = new Result(outcomes);
+            Log.d(TAG, "Fan-out complete: delivered=" + result.getDeliveredCount()
+                    + " failed=" + result.getFailedCount() + " batches=" + outcomes.size());
+            return result;
+        });
+    }
+
+    private WriteBatch buildBatch(List<Notification> chunk) {
+        WriteBatch batch = db.batch();
+        for (Notification n : chunk) {
+            batch.set(accRef.document(String.valueOf(n.getRecipientId()))
+                    .collection("Notifications")
+                    .document(n.getNotificationId()), n);
+            batch.set(logRef.document(n.getNotificationId()), n);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.pixel_events.database;
+
+import com.example.pixel_events.utils.FieldCoercion;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationPreferenceResolver
+ *
+ * Resolves the notification opt-in flags (Profile.notify) for many users at
+ * once. Unknown ids are fetched with chunked whereIn reads and kept in a
+ * short-lived cache, so a lottery draw costs a handful of reads instead of one
+ * profile read per entrant.
+ *
+ * Preference layout: [0] invitations, [1] lottery wins, [2] lottery losses.
+ * A missing profile or missing flag means "send".
+ *
+ * Implements:
+ * - US 01.04.03 (Opt out of notifications)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Chunked document reads and cache invalidation
+ * - Profile: Source of the notify flags
+ */
+public class NotificationPreferenceResolver {
+    public static final int PREF_INVITE = 0;
+    public static final int PREF_WIN = 1;
+    public static final int PREF_LOSS = 2;
+
+    private static final long TTL_MS = TimeUnit.SECONDS.toMillis(60);
+    private static final int MAX_ENTRIES = 20000;
+
+    private static class Entry {
+        final List<Boolean> notify;
+        final long expiresAt;
+
+        Entry(List<Boolean> notify, long expiresAt) {
+            this.notify = notify;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final DatabaseHandler db;
+    private final Map<Integer, Entry> cache = new ConcurrentHashMap<>();
+
+    NotificationPreferenceResolver(DatabaseHandler db) {
+        this.db = db;
+    }
+
+    /**
+     * Whether the given preference list allows the notification at index.
+     */
+    public static boolean allows(List<Boolean> notify, int index) {
+        if (notify == null || notify.size() <= index) {
+            return true;
+        }
+        return !Boolean.FALSE.equals(notify.get(index));
+    }
+
+    /**
+     * Resolve notify flags for every id. The returned map contains every
+     * requested id; the value is null when the user has no stored preference.
+     */
+    public Task<Map<Integer, List<Boolean>>> resolve(Collection<Integer> userIds) {
+        long now = nowMs();
+        Map<Integer, List<Boolean>> resolved = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(userIds)) {
+            if (id == null)
+                continue;
+            Entry entry = cache.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                resolved.put(id, entry.notify);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Tasks.forResult(resolved);
+        }
+
+        return db.fetchDocumentsByIds(db.getAccountCollection(), missing).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException() != null ? task.getException()
+                        : new RuntimeException("Failed to resolve notification preferences");
+            }
+            evictExpired();
+            long expiresAt = nowMs() + TTL_MS;
+            for (Integer id : missing) {
+                resolved.put(id, null);
+            }
+            for (DocumentSnapshot doc : task.getResult()) {
+                List<Boolean> notify = FieldCoercion.asBooleanList(doc.get("notify"));
+                try {
+                    resolved.put(Integer.parseInt(doc.getId()), notify);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            for (Integer id : missing) {
+                cache.put(id, new Entry(resolved.get(id), expiresAt));
+            }
+            return resolved;
+        });
+    }
+
+    /**
+     * Drop the cached flags for a user whose profile changed.
+     */
+    public void invalidate(int userId) {
+        cache.remove(userId);
+    }
+
+    private void evictExpired() {
+        if (cache.size() < MAX_ENTRIES) {
+            return;
+        }
+        long now = nowMs();
+        Iterator<Map.Entry<Integer, Entry>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expiresAt <= now) {
+                it.remove();
+            }
+        }
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.clear();
+        }
+    }
+
+    private static long nowMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
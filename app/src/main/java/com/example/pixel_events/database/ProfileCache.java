@@ -0,0 +1,261 @@
+package com.example.pixel_events.database;
+
+import com.example.pixel_events.profile.Profile;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProfileCache
+ *
+ * Bounded in-memory cache of Profile reads, keyed by user id.
+ * Entries are evicted least-recently-used once the cache is full and expire
+ * after a fixed TTL. Concurrent lookups for the same id share a single
+ * in-flight Firestore read. A "not found" result is cached too, so rows whose
+ * organizer was deleted do not re-query on every bind.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Owns the cache, supplies the loader and invalidates on writes
+ * - DashboardAdapter, MyEventAdapter: Heavy readers
+ * - WaitingListFragment, SavingData, AdminNotificationLogFragment: Bulk reads
+ *   through DatabaseHandler.getProfiles
+ */
+public class ProfileCache {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Performs the uncached read for one id.
+     */
+    interface Loader {
+        void load(int id, OnSuccessListener<Profile> listener, OnFailureListener errorListener);
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     */
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long collapsed;
+        private final int size;
+
+        Stats(long hits, long misses, long collapsed, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.collapsed = collapsed;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Lookups that went to Firestore.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Lookups that joined a read already in flight.
+         */
+        public long getCollapsed() {
+            return collapsed;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " collapsed=" + collapsed + " size=" + size;
+        }
+    }
+
+    private static class Entry {
+        final Profile profile;
+        final long expiresAt;
+
+        Entry(Profile profile, long expiresAt) {
+            this.profile = profile;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class InFlight {
+        final List<OnSuccessListener<Profile>> listeners = new ArrayList<>();
+        final List<OnFailureListener> errorListeners = new ArrayList<>();
+        boolean invalidated;
+    }
+
+    private final Loader loader;
+    private final long ttlMs;
+    private final Map<Integer, Entry> entries;
+    private final Map<Integer, InFlight> inFlight = new HashMap<>();
+    private long hits;
+    private long misses;
+    private long collapsed;
+
+    ProfileCache(Loader loader) {
+        this(loader, DEFAULT_CAPACITY, DEFAULT_TTL_MS);
+    }
+
+    ProfileCache(Loader loader, int capacity, long ttlMs) {
+        this.loader = loader;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Deliver the profile for id from cache, or load it once and share the result.
+     */
+    public void get(int id, OnSuccessListener<Profile> listener, OnFailureListener errorListener) {
+        Entry hit = null;
+        InFlight request;
+        synchronized (this) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt > nowMs()) {
+                hits++;
+                hit = entry;
+                request = null;
+            } else {
+                if (entry != null) {
+                    entries.remove(id);
+                }
+                request = lookupOrJoin(id, listener, errorListener);
+            }
+        }
+        if (hit != null) {
+            listener.onSuccess(hit.profile);
+            return;
+        }
+        if (request == null) {
+            // Joined a read that is already in flight
+            return;
+        }
+        load(id, request);
+    }
+
+    /**
+     * Join the read in flight for id, or register a new one. Caller holds the lock.
+     *
+     * @return the new request to start, or null when an existing one was joined
+     */
+    private InFlight lookupOrJoin(int id, OnSuccessListener<Profile> listener, OnFailureListener errorListener) {
+        InFlight pending = inFlight.get(id);
+        if (pending != null) {
+            collapsed++;
+            pending.listeners.add(listener);
+            pending.errorListeners.add(errorListener);
+            return null;
+        }
+
+        misses++;
+        InFlight request = new InFlight();
+        request.listeners.add(listener);
+        request.errorListeners.add(errorListener);
+        inFlight.put(id, request);
+        return request;
+    }
+
+    private void load(int id, InFlight request) {
+        loader.load(id, profile -> {
+            List<OnSuccessListener<Profile>> waiting;
+            synchronized (this) {
+                inFlight.remove(id);
+                if (!request.invalidated) {
+                    entries.put(id, new Entry(profile, nowMs() + ttlMs));
+                }
+                waiting = new ArrayList<>(request.listeners);
+            }
+            for (OnSuccessListener<Profile> l : waiting) {
+                l.onSuccess(profile);
+            }
+        }, e -> {
+            List<OnFailureListener> waiting;
+            synchronized (this) {
+                inFlight.remove(id);
+                waiting = new ArrayList<>(request.errorListeners);
+            }
+            for (OnFailureListener l : waiting) {
+                l.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Copy the cached profiles for ids into found, without loading anything.
+     * Cached "not found" results are copied as null values.
+     *
+     * @return the ids that are not cached, in the order given
+     */
+    public synchronized List<Integer> collect(Iterable<Integer> ids, Map<Integer, Profile> found) {
+        List<Integer> missing = new ArrayList<>();
+        long now = nowMs();
+        for (Integer id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                hits++;
+                found.put(id, entry.profile);
+            } else {
+                if (entry != null) {
+                    entries.remove(id);
+                }
+                misses++;
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Store a profile read elsewhere (e.g. a batched query); null records
+     * "not found". Ids with a read in flight are left to that read.
+     */
+    public synchronized void put(int id, Profile profile) {
+        if (!inFlight.containsKey(id)) {
+            entries.put(id, new Entry(profile, nowMs() + ttlMs));
+        }
+    }
+
+    /**
+     * Drop the cached profile for id; a read already in flight is delivered
+     * to its callers but not stored.
+     */
+    public synchronized void invalidate(int id) {
+        entries.remove(id);
+        InFlight pending = inFlight.get(id);
+        if (pending != null) {
+            pending.invalidated = true;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        for (InFlight pending : inFlight.values()) {
+            pending.invalidated = true;
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, collapsed, entries.size());
+    }
+
+    private static long nowMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
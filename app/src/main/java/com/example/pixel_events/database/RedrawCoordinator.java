@@ -0,0 +1,140 @@
+package com.example.pixel_events.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RedrawCoordinator
+ *
+ * Single-flight scheduler for replacement draws. Requests for the same event
+ * within DEBOUNCE_MS are merged into one DatabaseHandler.fillOpenSeats run
+ * over the final state, and at most one run per event is in flight. A
+ * request that arrives during a run queues one follow-up run, shared with
+ * any other request that arrives meanwhile. Every request in a merged run
+ * gets the same Task. This is in-process only; runs from different devices
+ * are kept consistent by fillOpenSeats' transaction.
+ *
+ * Implements:
+ * - US 02.05.03 (Draw replacement applicants)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Owns the coordinator and performs the redraw
+ * - NotificationFragment, EventDetailedFragment: Request redraws on decline
+ */
+public class RedrawCoordinator {
+    public static final long DEBOUNCE_MS = 500;
+
+    private static class Slot {
+        TaskCompletionSource<List<Integer>> next = new TaskCompletionSource<>();
+        int waiters;
+        boolean running;
+        final Runnable run;
+
+        Slot(Runnable run) {
+            this.run = run;
+        }
+    }
+
+    private final DatabaseHandler database;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<Integer, Slot> slots = new HashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+
+    RedrawCoordinator(DatabaseHandler database) {
+        this.database = database;
+    }
+
+    /**
+     * Ask for the event's free seats to be refilled.
+     *
+     * @return completes with the user ids promoted by the run that serves
+     *         this request
+     */
+    public Task<List<Integer>> request(int eventId) {
+        requests.incrementAndGet();
+        Slot slot;
+        boolean schedule;
+        Task<List<Integer>> result;
+        synchronized (this) {
+            slot = slots.get(eventId);
+            if (slot == null) {
+                slot = new Slot(() -> start(eventId));
+                slots.put(eventId, slot);
+            }
+            slot.waiters++;
+            // A running slot reschedules itself when it finishes
+            schedule = !slot.running;
+            result = slot.next.getTask();
+        }
+        if (schedule) {
+            handler.removeCallbacks(slot.run);
+            handler.postDelayed(slot.run, DEBOUNCE_MS);
+        }
+        return result;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Requests served by a run started for an earlier request.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getRunCount() {
+        return runs.get();
+    }
+
+    private void start(int eventId) {
+        Slot slot;
+        TaskCompletionSource<List<Integer>> completion;
+        int served;
+        synchronized (this) {
+            slot = slots.get(eventId);
+            if (slot == null || slot.running || slot.waiters == 0)
+                return;
+            slot.running = true;
+            completion = slot.next;
+            served = slot.waiters;
+            slot.next = new TaskCompletionSource<>();
+            slot.waiters = 0;
+        }
+        runs.incrementAndGet();
+        coalesced.addAndGet(served - 1);
+        Log.d("DB", "Redraw for " + eventId + " serving " + served + " requests");
+
+        Slot finished = slot;
+        database.fillOpenSeats(eventId).addOnCompleteListener(task -> {
+            if (task.isSuccessful()) {
+                completion.setResult(task.getResult());
+            } else {
+                completion.setException(task.getException() != null ? task.getException()
+                        : new RuntimeException("Redraw failed"));
+            }
+            boolean again;
+            synchronized (this) {
+                finished.running = false;
+                again = finished.waiters > 0;
+                if (!again)
+                    slots.remove(eventId);
+            }
+            if (again) {
+                handler.postDelayed(finished.run, DEBOUNCE_MS);
+            }
+        });
+    }
+}
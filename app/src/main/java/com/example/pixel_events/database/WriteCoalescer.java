@@ -0,0 +1,105 @@
+package com.example.pixel_events.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.CollectionReference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WriteCoalescer
+ *
+ * Debounces field writes from the model auto-update setters. Fields queued
+ * for the same document within DEBOUNCE_MS are merged (last value wins) and
+ * sent as one DatabaseHandler.update(), so a burst of UI edits costs a single
+ * write instead of one read plus one write per field. Every caller that
+ * contributed to a merged write gets the same Task.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Owns the coalescer and performs the update
+ * - Event, Profile, WaitingList: Auto-update setters enqueue through it
+ */
+public class WriteCoalescer {
+    public static final long DEBOUNCE_MS = 300;
+
+    private static class Pending {
+        final CollectionReference reference;
+        final Object id;
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        final TaskCompletionSource<Void> completion = new TaskCompletionSource<>();
+        final Runnable flush;
+
+        Pending(CollectionReference reference, Object id, Runnable flush) {
+            this.reference = reference;
+            this.id = id;
+            this.flush = flush;
+        }
+    }
+
+    private final DatabaseHandler database;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    WriteCoalescer(DatabaseHandler database) {
+        this.database = database;
+    }
+
+    /**
+     * Queue fields for the document and (re)start its debounce window.
+     *
+     * @return completes when the merged write containing these fields lands
+     */
+    public Task<Void> enqueue(CollectionReference reference, Object id, Map<String, Object> fields) {
+        String key = reference.getPath() + "/" + id;
+        Pending entry;
+        synchronized (this) {
+            entry = pending.get(key);
+            if (entry == null) {
+                entry = new Pending(reference, id, () -> flush(key));
+                pending.put(key, entry);
+            }
+            entry.fields.putAll(fields);
+        }
+        handler.removeCallbacks(entry.flush);
+        handler.postDelayed(entry.flush, DEBOUNCE_MS);
+        return entry.completion.getTask();
+    }
+
+    /**
+     * Write every queued document immediately.
+     */
+    public void flushAll() {
+        List<String> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(pending.keySet());
+        }
+        for (String key : keys) {
+            flush(key);
+        }
+    }
+
+    private void flush(String key) {
+        Pending entry;
+        synchronized (this) {
+            entry = pending.remove(key);
+        }
+        if (entry == null)
+            return;
+        handler.removeCallbacks(entry.flush);
+        database.update(entry.reference, entry.id, entry.fields)
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        entry.completion.setResult(null);
+                    } else {
+                        entry.completion.setException(task.getException());
+                    }
+                });
+    }
+}
@@ -3,13 +3,18 @@ package com.example.pixel_events.events;
 import android.util.Log;
 
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.DocumentEditor;
 import com.example.pixel_events.waitinglist.WaitingList;
 import com.example.pixel_events.qrcode.QRCode;
+import com.example.pixel_events.utils.EventDates;
+import com.example.pixel_events.utils.FieldCoercion;
 import com.example.pixel_events.utils.Validator;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.Exclude;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
@@ -55,6 +60,11 @@ public class Event {
     private WaitingList waitingList;
     private Boolean geoLocation;
     private ArrayList<String> tags;
+    // Epoch millis derived from the date/time strings; indexed for range queries
+    private Long eventStartAt;
+    private Long eventEndAt;
+    private Long registrationOpensAt;
+    private Long registrationClosesAt;
     private boolean autoUpdateDatabase = true;
 
     public Event() {}
@@ -134,6 +144,87 @@ public class Event {
         this.registrationEndDate = registrationEndDate;
         this.qrCode = QRCode.generateQRCodeBase64("Event-" + this.eventId + "-" + this.organizerId);
         this.waitingList = new WaitingList(eventId);
+        refreshTimestamps();
+    }
+
+    /**
+     * Recompute the epoch-millis fields from the date/time strings.
+     */
+    private void refreshTimestamps() {
+        Map<String, Object> fields = deriveTimestamps(eventStartDate, eventStartTime,
+                eventEndDate, eventEndTime, registrationStartDate, registrationEndDate);
+        eventStartAt = (Long) fields.get("eventStartAt");
+        eventEndAt = (Long) fields.get("eventEndAt");
+        registrationOpensAt = (Long) fields.get("registrationOpensAt");
+        registrationClosesAt = (Long) fields.get("registrationClosesAt");
+    }
+
+    /**
+     * Derive the indexed epoch-millis fields from stored date/time strings.
+     * Registration is open from the start of registrationStartDate until the
+     * end of registrationEndDate. Unparseable inputs map to null.
+     */
+    public static Map<String, Object> deriveTimestamps(String eventStartDate, String eventStartTime,
+            String eventEndDate, String eventEndTime,
+            String registrationStartDate, String registrationEndDate) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("eventStartAt", EventDates.toMillis(eventStartDate, eventStartTime, 0));
+        fields.put("eventEndAt", EventDates.toMillis(eventEndDate, eventEndTime, EventDates.MINUTES_PER_DAY - 1));
+        fields.put("registrationOpensAt", EventDates.toMillis(registrationStartDate, null, 0));
+        int closeDay = EventDates.parseEpochDay(registrationEndDate);
+        fields.put("registrationClosesAt", closeDay == EventDates.INVALID ? null : EventDates.toMillis(closeDay + 1, 0));
+        return fields;
+    }
+
+    /**
+     * The derived timestamp fields, for writing alongside a date change.
+     */
+    @Exclude
+    public Map<String, Object> getTimestampFields() {
+        refreshTimestamps();
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("eventStartAt", eventStartAt);
+        fields.put("eventEndAt", eventEndAt);
+        fields.put("registrationOpensAt", registrationOpensAt);
+        fields.put("registrationClosesAt", registrationClosesAt);
+        return fields;
+    }
+
+    /**
+     * Decode a stored EventData document without reflection, setters or
+     * validation. Numeric fields are coerced from Long or String.
+     *
+     * @param documentId Firestore document id, used when eventId is missing
+     * @param data       raw document data
+     * @return the decoded event, or null when data is null
+     */
+    public static Event fromMap(String documentId, Map<String, Object> data) {
+        if (data == null)
+            return null;
+        Event ev = new Event();
+        ev.eventId = FieldCoercion.asInt(data.get("eventId"), FieldCoercion.asInt(documentId, 0));
+        ev.title = FieldCoercion.asString(data.get("title"));
+        ev.imageUrl = FieldCoercion.asString(data.get("imageUrl"));
+        ev.location = FieldCoercion.asString(data.get("location"));
+        ev.capacity = FieldCoercion.asInt(data.get("capacity"), 0);
+        ev.description = FieldCoercion.asString(data.get("description"));
+        ev.organizerId = FieldCoercion.asInt(data.get("organizerId"), 0);
+        ev.qrCode = FieldCoercion.asString(data.get("qrCode"));
+        ev.eventStartDate = FieldCoercion.asString(data.get("eventStartDate"));
+        ev.eventEndDate = FieldCoercion.asString(data.get("eventEndDate"));
+        ev.registrationStartDate = FieldCoercion.asString(data.get("registrationStartDate"));
+        ev.registrationEndDate = FieldCoercion.asString(data.get("registrationEndDate"));
+        ev.eventStartTime = FieldCoercion.asString(data.get("eventStartTime"));
+        ev.eventEndTime = FieldCoercion.asString(data.get("eventEndTime"));
+        ev.fee = FieldCoercion.asString(data.get("fee"));
+        ev.tags = FieldCoercion.asStringList(data.get("tags"));
+        ev.geoLocation = FieldCoercion.asBoolean(data.get("geoLocation"));
+        // Stored timestamps may predate the backfill; the getters derive them when absent
+        ev.eventStartAt = FieldCoercion.asLong(data.get("eventStartAt"));
+        ev.eventEndAt = FieldCoercion.asLong(data.get("eventEndAt"));
+        ev.registrationOpensAt = FieldCoercion.asLong(data.get("registrationOpensAt"));
+        ev.registrationClosesAt = FieldCoercion.asLong(data.get("registrationClosesAt"));
+        return ev;
     }
 
     public void setAutoUpdateDatabase(boolean autoUpdate) { this.autoUpdateDatabase = autoUpdate; }
@@ -153,23 +244,25 @@ public class Event {
         }
     }
 
-    private void updateDatabase(String fieldName, Object value)
+    /**
+     * Start an edit session. Staged changes are validated together, applied
+     * and written in one update on commit(), e.g.
+     * {@code event.edit().setTitle(t).setCapacity(c).commit()}.
+     */
+    public Editor edit()
     {
-        // Only update database if auto-update is enabled and event has valid ID
-        if (!autoUpdateDatabase || this.eventId <= 0) {
-            return;
-        }
+        return new Editor();
+    }
 
+    private void updateDatabase(Editor edit)
+    {
+        String fields = edit.getDirtyFields().toString();
         try {
-            Map<String, Object> updates = new HashMap<>();
-            updates.put(fieldName, value);
-
-            DatabaseHandler.getInstance().modify(DatabaseHandler.getInstance().getEventCollection(),
-                    this.eventId, updates, error -> {
-                if (error != null) {
-                    Log.e("Event", "Failed to update " + fieldName + ": " + error);
-                }
-            });
+            edit.commitDebounced()
+                    .addOnFailureListener(e -> Log.e("Event", "Failed to update " + fields + ": " + e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // A rejected date relation still reaches the setter's caller
+            throw e;
         } catch (Exception e) {
             Log.e("Event", "Failed to access database for update", e);
         }
@@ -231,135 +324,305 @@ public class Event {
         return tags;
     }
 
-    public Boolean getGeoLocation() {
-        return geoLocation;
+    /**
+     * Tags trimmed, lowercased and de-duplicated, stored as tagsLower so tag
+     * filters can match case-insensitively on the server.
+     */
+    public ArrayList<String> getTagsLower() {
+        return normalizeTags(tags);
     }
 
-    @Exclude
-    public String getDateString() {
-        try {
-            // Input formats
-            SimpleDateFormat dateInput = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat timeInput = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    /**
+     * Normalized form of tags as stored in tagsLower; blank tags are dropped.
+     */
+    public static ArrayList<String> normalizeTags(Collection<String> tags) {
+        ArrayList<String> normalized = new ArrayList<>();
+        if (tags == null)
+            return normalized;
+        for (String tag : tags) {
+            if (tag == null)
+                continue;
+            String key = tag.trim().toLowerCase(Locale.US);
+            if (!key.isEmpty() && !normalized.contains(key)) {
+                normalized.add(key);
+            }
+        }
+        return normalized;
+    }
 
-            // Output formats
-            SimpleDateFormat dateOutput = new SimpleDateFormat("EEE, MMM d", Locale.getDefault());
-            SimpleDateFormat timeOutput = new SimpleDateFormat("h:mm a", Locale.getDefault());
+    public Boolean getGeoLocation() {
+        return geoLocation;
+    }
 
-            // Parse
-            Date startDateParsed = dateInput.parse(eventStartDate);
-            Date endDateParsed = dateInput.parse(eventEndDate);
+    /**
+     * Event start (date + start time) in epoch millis, or null if unparseable.
+     */
+    public Long getEventStartAt() {
+        if (eventStartAt == null)
+            refreshTimestamps();
+        return eventStartAt;
+    }
 
-            Date startTimeParsed = timeInput.parse(eventStartTime);
-            Date endTimeParsed = timeInput.parse(eventEndTime);
+    /**
+     * Event end (date + end time) in epoch millis, or null if unparseable.
+     */
+    public Long getEventEndAt() {
+        if (eventEndAt == null)
+            refreshTimestamps();
+        return eventEndAt;
+    }
 
-            // Convert
-            String dateStr = dateOutput.format(startDateParsed);
-            String startTimeStr = timeOutput.format(startTimeParsed);
-            String endTimeStr = timeOutput.format(endTimeParsed);
+    /**
+     * Start of the registration start day in epoch millis.
+     */
+    public Long getRegistrationOpensAt() {
+        if (registrationOpensAt == null)
+            refreshTimestamps();
+        return registrationOpensAt;
+    }
 
-            return dateStr + ", " + startTimeStr + " - " + endTimeStr;
+    /**
+     * End of the registration end day (exclusive) in epoch millis.
+     */
+    public Long getRegistrationClosesAt() {
+        if (registrationClosesAt == null)
+            refreshTimestamps();
+        return registrationClosesAt;
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    @Exclude
+    public String getDateString() {
+        Long start = getEventStartAt();
+        Long end = getEventEndAt();
+        if (start == null || end == null) {
             // fallback original format
             return eventStartDate + " " + eventStartTime + " - " + eventEndTime;
         }
+        SimpleDateFormat dateOutput = new SimpleDateFormat("EEE, MMM d", Locale.getDefault());
+        SimpleDateFormat timeOutput = new SimpleDateFormat("h:mm a", Locale.getDefault());
+        // Show the wall-clock times the event was entered with
+        dateOutput.setTimeZone(EventDates.EVENT_ZONE);
+        timeOutput.setTimeZone(EventDates.EVENT_ZONE);
+        return dateOutput.format(new Date(start)) + ", " + timeOutput.format(new Date(start))
+                + " - " + timeOutput.format(new Date(end));
     }
 
 
     // Setters / Modify event
     public void setEventId(int eventId)
     {
-        if (eventId <= 0) {
-            throw new IllegalArgumentException("Event ID must be positive");
-        }
-        this.eventId = eventId;
-        updateDatabase("eventId", eventId);
+        updateDatabase(edit().setEventId(eventId));
     }
 
     public void setTitle(String title)
     {
-        Validator.validateNotEmpty(title, "Title");
-        this.title = title;
-        updateDatabase("title", title);
+        updateDatabase(edit().setTitle(title));
     }
 
     public void setImageUrl(String imageUrl)
     {
-        this.imageUrl = imageUrl;
-        updateDatabase("imageUrl", imageUrl);
+        updateDatabase(edit().setImageUrl(imageUrl));
     }
 
     public void setLocation(String location)
     {
-        Validator.validateNotEmpty(location, "Location");
-        this.location = location;
-        updateDatabase("location", location);
+        updateDatabase(edit().setLocation(location));
     }
 
     public void setCapacity(Integer capacity)
     {
-        if (capacity <= 0) {
-            throw new IllegalArgumentException("Capacity must be positive");
-        }
-        this.capacity = capacity;
-        updateDatabase("capacity", capacity);
+        updateDatabase(edit().setCapacity(capacity));
     }
 
     public void setDescription(String description)
     {
-        Validator.validateNotEmpty(description, "Description");
-        this.description = description;
-        updateDatabase("description", description);
+        updateDatabase(edit().setDescription(description));
     }
 
     public void setEventStartDate(String eventStartDate)
     {
-        Validator.validateNotEmpty(eventStartDate, "Event Start Date");
-        // Validate relationships with other dates/times before applying
-        Validator.validateDateRelations(eventStartDate, this.eventEndDate,
-                this.registrationStartDate, this.registrationEndDate,
-                this.eventStartTime, this.eventEndTime);
-
-        this.eventStartDate = eventStartDate;
-        updateDatabase("eventStartDate", eventStartDate);
+        updateDatabase(edit().setEventStartDate(eventStartDate));
     }
 
     public void setEventEndDate(String eventEndDate)
     {
-        Validator.validateNotEmpty(eventEndDate, "Event End Date");
-        Validator.validateDateRelations(this.eventStartDate, eventEndDate,
-                this.registrationStartDate, this.registrationEndDate,
-                this.eventStartTime, this.eventEndTime);
-
-        this.eventEndDate = eventEndDate;
-        updateDatabase("eventEndDate", eventEndDate);
+        updateDatabase(edit().setEventEndDate(eventEndDate));
     }
 
     public void setRegistrationStartDate(String registrationStartDate) {
-        Validator.validateNotEmpty(registrationStartDate, "Registration Start Date");
-        Validator.validateDateRelations(this.eventStartDate, this.eventEndDate,
-            registrationStartDate, this.registrationEndDate,
-            this.eventStartTime, this.eventEndTime);
-
-        this.registrationStartDate = registrationStartDate;
-        updateDatabase("registrationStartDate", registrationStartDate);
+        updateDatabase(edit().setRegistrationStartDate(registrationStartDate));
     }
 
     public void setRegistrationEndDate(String registrationEndDate)
     {
-        Validator.validateNotEmpty(registrationEndDate, "Registration End Date");
-        Validator.validateDateRelations(this.eventStartDate, this.eventEndDate,
-                this.registrationStartDate, registrationEndDate,
-                this.eventStartTime, this.eventEndTime);
-
-        this.registrationEndDate = registrationEndDate;
-        updateDatabase("registrationEndDate", registrationEndDate);
+        updateDatabase(edit().setRegistrationEndDate(registrationEndDate));
     }
     public Boolean setGeoLocation(Boolean geoLocation) {
-        this.geoLocation = geoLocation;
-        updateDatabase("geoLocation", geoLocation);
+        updateDatabase(edit().setGeoLocation(geoLocation));
         return geoLocation;
     }
+
+    /**
+     * Edit session for an Event. Setters validate their own value and stage
+     * it; date/time changes are checked against each other on commit, and
+     * the derived timestamps are written with them.
+     */
+    public class Editor extends DocumentEditor<Editor>
+    {
+        private Editor() {}
+
+        @Override
+        protected Editor self() {
+            return this;
+        }
+
+        @Override
+        protected CollectionReference collection(DatabaseHandler db) {
+            return db.getEventCollection();
+        }
+
+        @Override
+        protected Object documentId() {
+            return eventId;
+        }
+
+        @Override
+        protected boolean isPersistent() {
+            return autoUpdateDatabase && eventId > 0;
+        }
+
+        public Editor setEventId(int eventId)
+        {
+            if (eventId <= 0) {
+                throw new IllegalArgumentException("Event ID must be positive");
+            }
+            return stage("eventId", eventId, () -> Event.this.eventId = eventId);
+        }
+
+        public Editor setTitle(String title)
+        {
+            Validator.validateNotEmpty(title, "Title");
+            return stage("title", title, () -> Event.this.title = title);
+        }
+
+        public Editor setImageUrl(String imageUrl)
+        {
+            return stage("imageUrl", imageUrl, () -> Event.this.imageUrl = imageUrl);
+        }
+
+        public Editor setLocation(String location)
+        {
+            Validator.validateNotEmpty(location, "Location");
+            return stage("location", location, () -> Event.this.location = location);
+        }
+
+        public Editor setCapacity(Integer capacity)
+        {
+            if (capacity == null || capacity <= 0) {
+                throw new IllegalArgumentException("Capacity must be positive");
+            }
+            return stage("capacity", capacity, () -> Event.this.capacity = capacity);
+        }
+
+        public Editor setDescription(String description)
+        {
+            Validator.validateNotEmpty(description, "Description");
+            return stage("description", description, () -> Event.this.description = description);
+        }
+
+        public Editor setFee(String fee)
+        {
+            // Same normalisation as the constructor: blank or "free" -> "Free"
+            String normalized = fee == null || fee.trim().isEmpty() || fee.trim().equalsIgnoreCase("free")
+                    ? "Free" : fee.trim();
+            return stage("fee", normalized, () -> Event.this.fee = normalized);
+        }
+
+        public Editor setTags(ArrayList<String> tags)
+        {
+            ArrayList<String> copy = tags == null ? null : new ArrayList<>(tags);
+            return stage("tags", copy, () -> Event.this.tags = copy);
+        }
+
+        public Editor setGeoLocation(Boolean geoLocation)
+        {
+            return stage("geoLocation", geoLocation, () -> Event.this.geoLocation = geoLocation);
+        }
+
+        public Editor setEventStartDate(String eventStartDate)
+        {
+            Validator.validateNotEmpty(eventStartDate, "Event Start Date");
+            return stage("eventStartDate", eventStartDate, () -> Event.this.eventStartDate = eventStartDate);
+        }
+
+        public Editor setEventEndDate(String eventEndDate)
+        {
+            Validator.validateNotEmpty(eventEndDate, "Event End Date");
+            return stage("eventEndDate", eventEndDate, () -> Event.this.eventEndDate = eventEndDate);
+        }
+
+        public Editor setEventStartTime(String eventStartTime)
+        {
+            Validator.validateNotEmpty(eventStartTime, "Event Start Time");
+            return stage("eventStartTime", eventStartTime, () -> Event.this.eventStartTime = eventStartTime);
+        }
+
+        public Editor setEventEndTime(String eventEndTime)
+        {
+            Validator.validateNotEmpty(eventEndTime, "Event End Time");
+            return stage("eventEndTime", eventEndTime, () -> Event.this.eventEndTime = eventEndTime);
+        }
+
+        public Editor setRegistrationStartDate(String registrationStartDate)
+        {
+            Validator.validateNotEmpty(registrationStartDate, "Registration Start Date");
+            return stage("registrationStartDate", registrationStartDate,
+                    () -> Event.this.registrationStartDate = registrationStartDate);
+        }
+
+        public Editor setRegistrationEndDate(String registrationEndDate)
+        {
+            Validator.validateNotEmpty(registrationEndDate, "Registration End Date");
+            return stage("registrationEndDate", registrationEndDate,
+                    () -> Event.this.registrationEndDate = registrationEndDate);
+        }
+
+        @Override
+        protected void validate()
+        {
+            if (!touchesSchedule())
+                return;
+            // Validate the combined result so related dates can move together
+            Validator.validateDateRelations(
+                    pending("eventStartDate", eventStartDate),
+                    pending("eventEndDate", eventEndDate),
+                    pending("registrationStartDate", registrationStartDate),
+                    pending("registrationEndDate", registrationEndDate),
+                    pending("eventStartTime", eventStartTime),
+                    pending("eventEndTime", eventEndTime));
+        }
+
+        @Override
+        protected void onApplied(Map<String, Object> dirty)
+        {
+            if (touchesSchedule()) {
+                dirty.putAll(getTimestampFields());
+            }
+            if (isStaged("tags")) {
+                dirty.put("tagsLower", getTagsLower());
+            }
+        }
+
+        private boolean touchesSchedule()
+        {
+            return isStaged("eventStartDate") || isStaged("eventEndDate")
+                    || isStaged("registrationStartDate") || isStaged("registrationEndDate")
+                    || isStaged("eventStartTime") || isStaged("eventEndTime");
+        }
+
+        private String pending(String field, String current)
+        {
+            return isStaged(field) ? (String) stagedValue(field) : current;
+        }
+    }
 }
@@ -19,10 +19,14 @@ import androidx.fragment.app.Fragment;
 
 import com.example.pixel_events.R;
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EntrantCounts;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.waitinglist.WaitingList;
 import com.example.pixel_events.waitinglist.WaitlistUser;
 import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.imageview.ShapeableImageView;
 
@@ -33,10 +37,6 @@ import java.util.List;
 import java.util.Objects;
 
 import com.example.pixel_events.utils.ImageConversion;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * EventDetailedFragment
@@ -66,6 +66,7 @@ public class EventDetailedFragment extends Fragment {
     private int userId; // current profile id
     private int eventId = -1;
     private boolean joined = false;
+    private int userStatus = -1; // current user's WaitlistUser status, -1 if not joined
     private int waitingListCount = 0, waitingListMaxCount = 0;
 
     // UI elements
@@ -167,47 +168,11 @@ public class EventDetailedFragment extends Fragment {
             }
 
             if (waitList == null) {
-                // Load waitlist state
-                db.getWaitingList(eventId, wl -> {
-                    if (wl != null) {
-                        this.waitList = wl;
-                        List<WaitlistUser> ids = wl.getWaitList();
-                        if (ids == null)
-                            ids = java.util.Collections.emptyList();
-                        joined = false;
-                        for (WaitlistUser user : ids) {
-                            if (user.getUserId() == userId) {
-                                joined = true;
-                                break;
-                            }
-                        }
-                        waitingListCount = ids.size();
-                        waitingListMaxCount = wl.getMaxWaitlistSize();
-                    } else {
-                        joined = false;
-                        waitingListCount = 0;
-                    }
-                    if (isAdded())
-                        requireActivity().runOnUiThread(this::renderCTA);
-                }, e -> {
-                    Log.e(TAG, "Failed to fetch waitlist", e);
-                    joined = false;
-                    waitingListCount = 0;
-                    if (isAdded())
-                        requireActivity().runOnUiThread(this::renderCTA);
-                });
+                loadWaitlistState();
             } else {
-                List<WaitlistUser> ids = waitList.getWaitList();
-                if (ids == null)
-                    ids = java.util.Collections.emptyList();
-                joined = false;
-                for (WaitlistUser user : ids) {
-                    if (user.getUserId() == userId) {
-                        joined = true;
-                        break;
-                    }
-                }
-                waitingListCount = ids.size();
+                userStatus = waitList.getUserStatus(userId);
+                joined = userStatus >= 0;
+                waitingListCount = waitList.getEntrantCount();
                 waitingListMaxCount = waitList.getMaxWaitlistSize();
                 if (isAdded())
                     requireActivity().runOnUiThread(this::renderCTA);
@@ -310,178 +275,159 @@ public class EventDetailedFragment extends Fragment {
             startStr = startStr.trim();
         if (endStr != null)
             endStr = endStr.trim();
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-        try {
-            Date today = truncateToDay(new Date());
-            Date start = (startStr != null && !startStr.isEmpty()) ? truncateToDay(fmt.parse(startStr)) : null;
-            Date end = (endStr != null && !endStr.isEmpty()) ? truncateToDay(fmt.parse(endStr)) : null;
-            String currUserRole = AuthManager.getInstance().getCurrentUserProfile().getRole();
+        boolean hasStart = startStr != null && !startStr.isEmpty();
+        boolean hasEnd = endStr != null && !endStr.isEmpty();
+        Long opensAt = hasStart ? event.getRegistrationOpensAt() : null;
+        Long closesAt = hasEnd ? event.getRegistrationClosesAt() : null;
+        if ((hasStart && opensAt == null) || (hasEnd && closesAt == null)) {
+            Log.e(TAG, "Failed to parse registration dates. start='" + startStr + "' end='" + endStr + "'");
+            tagButton.setVisibility(VISIBLE);
+            joinButton.setVisibility(GONE);
+            leaveButton.setVisibility(GONE);
+            tagButton.setText("Registration dates invalid");
+            setButtonEnabled(tagButton, false);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String currUserRole = AuthManager.getInstance().getCurrentUserProfile().getRole();
+
+        if (Objects.equals(currUserRole, "org")) {
+            Log.d(TAG, "User is not an organizer");
+            joinButton.setVisibility(GONE);
+            leaveButton.setVisibility(GONE);
+            tagButton.setVisibility(VISIBLE);
+            tagButton.setText("Only Entrants can join");
+            setButtonEnabled(tagButton, false);
+            if (waitingListCountView != null)
+                waitingListCountView.setVisibility(View.GONE);
+            return;
+        }
+
+        if (opensAt == null || closesAt == null) {
+            tagButton.setVisibility(VISIBLE);
+            joinButton.setVisibility(GONE);
+            leaveButton.setVisibility(GONE);
+            tagButton.setText("Registration dates missing");
+            setButtonEnabled(tagButton, false);
+            if (waitingListCountView != null)
+                waitingListCountView.setVisibility(View.GONE);
+            return;
+        }
+
+        if (now < opensAt) {
+            tagButton.setVisibility(VISIBLE);
+            joinButton.setVisibility(GONE);
+            leaveButton.setVisibility(GONE);
+            tagButton.setText("Registration opens " + startStr);
+            setButtonEnabled(tagButton, false);
+            if (waitingListCountView != null)
+                waitingListCountView.setVisibility(View.GONE);
+            return;
+        }
+        if (now >= closesAt) {
+            tagButton.setVisibility(VISIBLE);
+            joinButton.setVisibility(GONE);
+            leaveButton.setVisibility(GONE);
+            tagButton.setText("Registration Closed");
+            setButtonEnabled(tagButton, false);
+            if (waitingListCountView != null)
+                waitingListCountView.setVisibility(View.GONE);
+            return;
+        }
+
+        // Lottery drawn? handle accept/decline/final states
+        tagButton.setVisibility(GONE);
+        joinButton.setVisibility(VISIBLE);
+        leaveButton.setVisibility(VISIBLE);
+        if (waitingListCountView != null) {
+            waitingListCountView.setVisibility(VISIBLE);
+            waitingListCountView.setText(waitingListCount + " in waiting list");
+        }
+
+        if (this.waitList != null && Objects.equals(this.waitList.getStatus(), "drawn")) {
+            if (userStatus == 1) {
+                // selected -> show Accept (join) and Decline (leave)
+                joinButton.setText("Accept Invitation");
+                setButtonEnabled(joinButton, true);
+                joinButton.setOnClickListener(v -> {
+                    setButtonEnabled(joinButton, false);
+                    setButtonEnabled(leaveButton, false);
+                    updateUserStatus(2, this::renderCTA);
+                    renderCTA();
+                });
+
+                leaveButton.setText("Decline Invitation");
+                setButtonEnabled(leaveButton, true);
+                leaveButton.setOnClickListener(v -> {
+                    setButtonEnabled(leaveButton, false);
+                    setButtonEnabled(joinButton, false);
+
+                    updateUserStatus(3, () -> {
+                        // Hand the freed seat to the next alternate
+                        db.requestRedraw(eventId)
+                                .addOnFailureListener(e -> Log.e(TAG, "Replacement draw failed", e))
+                                .addOnCompleteListener(task -> renderCTA());  // update UI last
+                    });
+                });
+            }
 
-            if (Objects.equals(currUserRole, "org")) {
-                Log.d(TAG, "User is not an organizer");
+            else if (userStatus == 2) {
+                // accepted -> final tag
                 joinButton.setVisibility(GONE);
                 leaveButton.setVisibility(GONE);
                 tagButton.setVisibility(VISIBLE);
-                tagButton.setText("Only Entrants can join");
+                tagButton.setText("Invitation Accepted");
                 setButtonEnabled(tagButton, false);
-                if (waitingListCountView != null)
-                    waitingListCountView.setVisibility(View.GONE);
-                return;
             }
 
-            if (start == null || end == null) {
-                tagButton.setVisibility(VISIBLE);
+            else if (userStatus == 3) {
+                // declined -> final tag
                 joinButton.setVisibility(GONE);
                 leaveButton.setVisibility(GONE);
-                tagButton.setText("Registration dates missing");
+                tagButton.setVisibility(VISIBLE);
+                tagButton.setText("Invitation declined");
                 setButtonEnabled(tagButton, false);
-                if (waitingListCountView != null)
-                    waitingListCountView.setVisibility(View.GONE);
-                return;
             }
 
-            if (today.before(start)) {
-                tagButton.setVisibility(VISIBLE);
+            else if (userStatus == 0) {
                 joinButton.setVisibility(GONE);
                 leaveButton.setVisibility(GONE);
-                tagButton.setText("Registration opens " + startStr);
-                setButtonEnabled(tagButton, false);
-                if (waitingListCountView != null)
-                    waitingListCountView.setVisibility(View.GONE);
-                return;
-            }
-            if (today.after(end)) {
                 tagButton.setVisibility(VISIBLE);
+                tagButton.setText("Sorry, you were not selected");
+                setButtonEnabled(tagButton, false);
+            } else {
                 joinButton.setVisibility(GONE);
                 leaveButton.setVisibility(GONE);
+                tagButton.setVisibility(VISIBLE);
                 tagButton.setText("Registration Closed");
                 setButtonEnabled(tagButton, false);
-                if (waitingListCountView != null)
-                    waitingListCountView.setVisibility(View.GONE);
-                return;
-            }
-
-            // Lottery drawn? handle accept/decline/final states
-            tagButton.setVisibility(GONE);
-            joinButton.setVisibility(VISIBLE);
-            leaveButton.setVisibility(VISIBLE);
-            if (waitingListCountView != null) {
-                waitingListCountView.setVisibility(VISIBLE);
-                waitingListCountView.setText(waitingListCount + " in waiting list");
             }
+        } else {
+            // Not drawn: normal join/leave behavior
+            if (joined) {
+                joinButton.setText("Join");
+                setButtonEnabled(joinButton, false);
 
-            if (this.waitList != null && Objects.equals(this.waitList.getStatus(), "drawn")) {
-                int userStatus = -1;
-                boolean wasInWaitlist = false;
-                if (this.waitList.getWaitList() != null) {
-                    for (WaitlistUser user : this.waitList.getWaitList()) {
-                        if (user.getUserId() == userId) {
-                            userStatus = user.getStatus();
-                            wasInWaitlist = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (userStatus == 1) {
-                    // selected -> show Accept (join) and Decline (leave)
-                    joinButton.setText("Accept Invitation");
-                    setButtonEnabled(joinButton, true);
-                    joinButton.setOnClickListener(v -> {
-                        setButtonEnabled(joinButton, false);
-                        setButtonEnabled(leaveButton, false);
-                        updateUserStatus(2, this::renderCTA);
-                        renderCTA();
-                    });
-
-                    leaveButton.setText("Decline Invitation");
-                    setButtonEnabled(leaveButton, true);
-                    leaveButton.setOnClickListener(v -> {
-                        setButtonEnabled(leaveButton, false);
-                        setButtonEnabled(joinButton, false);
-
-                        updateUserStatus(3, () -> {
-                            waitList.drawLottery(new WaitingList.OnLotteryDrawnListener() {
-                                @Override
-                                public void onSuccess(int numberDrawn) {
-                                    renderCTA();  // update UI last
-                                }
-
-                                @Override
-                                public void onFailure(Exception e) {
-                                    Log.e(TAG, "Lottery failed", e);
-                                    renderCTA();
-                                }
-                            });
-                        });
-                    });
-                }
-
-                else if (userStatus == 2) {
-                    // accepted -> final tag
-                    joinButton.setVisibility(GONE);
-                    leaveButton.setVisibility(GONE);
-                    tagButton.setVisibility(VISIBLE);
-                    tagButton.setText("Invitation Accepted");
-                    setButtonEnabled(tagButton, false);
-                }
-
-                else if (userStatus == 3) {
-                    // declined -> final tag
-                    joinButton.setVisibility(GONE);
-                    leaveButton.setVisibility(GONE);
-                    tagButton.setVisibility(VISIBLE);
-                    tagButton.setText("Invitation declined");
-                    setButtonEnabled(tagButton, false);
-                }
-
-                else if (userStatus == 0) {
-                    joinButton.setVisibility(GONE);
-                    leaveButton.setVisibility(GONE);
-                    tagButton.setVisibility(VISIBLE);
-                    tagButton.setText("Sorry, you were not selected");
-                    setButtonEnabled(tagButton, false);
-                } else {
+                leaveButton.setText("Leave");
+                setButtonEnabled(leaveButton, true);
+            } else {
+                boolean canJoin = waitingListMaxCount <= 0 || waitingListCount < waitingListMaxCount;
+                if (!canJoin) {
                     joinButton.setVisibility(GONE);
                     leaveButton.setVisibility(GONE);
                     tagButton.setVisibility(VISIBLE);
-                    tagButton.setText("Registration Closed");
+                    tagButton.setText("Waitlist full");
                     setButtonEnabled(tagButton, false);
+                    return;
                 }
-            } else {
-                // Not drawn: normal join/leave behavior
-                if (joined) {
-                    joinButton.setText("Join");
-                    setButtonEnabled(joinButton, false);
-
-                    leaveButton.setText("Leave");
-                    setButtonEnabled(leaveButton, true);
-                } else {
-                    boolean canJoin = waitingListMaxCount <= 0 || waitingListCount < waitingListMaxCount;
-                    if (!canJoin) {
-                        joinButton.setVisibility(GONE);
-                        leaveButton.setVisibility(GONE);
-                        tagButton.setVisibility(VISIBLE);
-                        tagButton.setText("Waitlist full");
-                        setButtonEnabled(tagButton, false);
-                        return;
-                    }
-                    joinButton.setText("Join");
-                    setButtonEnabled(joinButton, true);
+                joinButton.setText("Join");
+                setButtonEnabled(joinButton, true);
 
-                    leaveButton.setText("Leave");
-                    setButtonEnabled(leaveButton, false);
-                }
+                leaveButton.setText("Leave");
+                setButtonEnabled(leaveButton, false);
             }
-
-        } catch (ParseException e) {
-            Log.e(TAG, "Failed to parse registration dates. start='" + startStr + "' end='" + endStr + "'", e);
-            tagButton.setVisibility(VISIBLE);
-            joinButton.setVisibility(GONE);
-            leaveButton.setVisibility(GONE);
-            tagButton.setText("Registration dates invalid");
-            setButtonEnabled(tagButton, false);
         }
+
     }
 
     private void joinWaitlist() {
@@ -489,6 +435,7 @@ public class EventDetailedFragment extends Fragment {
                 .joinWaitingList(eventId, userId)
                 .addOnSuccessListener(unused -> {
                     joined = true;
+                    userStatus = 0;
                     waitingListCount++;
                     if (isAdded())
                         requireActivity().runOnUiThread(() -> {
@@ -498,6 +445,16 @@ public class EventDetailedFragment extends Fragment {
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Join failed", e);
+                    if (e instanceof DatabaseHandler.WaitlistFullException) {
+                        // Filled up since the counts were loaded
+                        waitingListCount = Math.max(waitingListCount, waitingListMaxCount);
+                        if (isAdded())
+                            requireActivity().runOnUiThread(() -> {
+                                toast("Waitlist is full");
+                                renderCTA();
+                            });
+                        return;
+                    }
                     if (isAdded())
                         requireActivity().runOnUiThread(() -> {
                             toast("Error: " + e.getMessage());
@@ -513,6 +470,7 @@ public class EventDetailedFragment extends Fragment {
                 .leaveWaitingList(eventId, userId)
                 .addOnSuccessListener(unused -> {
                     joined = false;
+                    userStatus = -1;
                     if (waitingListCount > 0)
                         waitingListCount--;
                     if (isAdded())
@@ -541,37 +499,52 @@ public class EventDetailedFragment extends Fragment {
     }
 
     private void updateUserStatus(int newStatus, Runnable onComplete) {
-        if (waitList == null) return;
-
-        WaitlistUser currentUser = null;
-        for (WaitlistUser user : waitList.getWaitList()) {
-            if (user.getUserId() == userId) {
-                currentUser = user;
-                break;
-            }
-        }
-
-        if (currentUser == null) return;
+        if (userStatus < 0) return;
 
-        currentUser.updateStatusInDb(eventId, newStatus, new WaitlistUser.OnStatusUpdateListener() {
-            @Override
-            public void onSuccess() {
-                db.getWaitingList(eventId, wl -> {
-                    waitList = wl;
-                    onComplete.run();        // continue flow AFTER fresh reload
-                }, e -> Log.e(TAG, "Failed to reload waitlist", e));
-            }
+        db.setEntrantStatus(eventId, userId, userStatus, newStatus)
+                .addOnSuccessListener(unused -> {
+                    userStatus = newStatus;
+                    onComplete.run();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to update status", e);
+                    if (e instanceof DatabaseHandler.StatusConflictException) {
+                        // Changed elsewhere (e.g. cancelled by the organizer); show the current state
+                        toast("This invitation has changed, refreshing");
+                        loadWaitlistState();
+                    } else {
+                        toast("Failed to update invitation: " + e.getMessage());
+                    }
+                });
+    }
 
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "Failed to update status", e);
-                toast("Failed to update invitation: " + e.getMessage());
+    /**
+     * Load what the join/leave buttons need from a few small reads: the
+     * waitlist settings, the summed status counters and the user's own
+     * entrant document. The entrant list itself is not downloaded.
+     */
+    private void loadWaitlistState() {
+        TaskCompletionSource<WaitingList> info = new TaskCompletionSource<>();
+        db.getWaitingListInfo(eventId, info::setResult, info::setException);
+        Task<EntrantCounts> counts = db.getEntrantCounts(eventId);
+        Task<WaitlistUser> self = userId == -1 ? Tasks.forResult(null) : db.getEntrant(eventId, userId);
+
+        Tasks.whenAllComplete(info.getTask(), counts, self).addOnCompleteListener(done -> {
+            if (info.getTask().isSuccessful() && info.getTask().getResult() != null) {
+                waitList = info.getTask().getResult();
+                waitingListMaxCount = waitList.getMaxWaitlistSize();
+            } else if (!info.getTask().isSuccessful()) {
+                Log.e(TAG, "Failed to fetch waitlist", info.getTask().getException());
             }
+            waitingListCount = counts.isSuccessful() ? (int) counts.getResult().getTotal() : 0;
+            WaitlistUser me = self.isSuccessful() ? self.getResult() : null;
+            joined = me != null;
+            userStatus = me != null ? me.getStatus() : -1;
+            if (isAdded())
+                requireActivity().runOnUiThread(this::renderCTA);
         });
     }
 
-
-
     private void toast(String msg) {
         if (getContext() != null) {
             Toast.makeText(getContext(), msg, Toast.LENGTH_SHORT).show();
@@ -612,15 +585,4 @@ public class EventDetailedFragment extends Fragment {
         }
         dialog.show();
     }
-
-    private Date truncateToDay(Date d) {
-        if (d == null)
-            return null;
-        SimpleDateFormat dayFmt = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-        try {
-            return dayFmt.parse(dayFmt.format(d));
-        } catch (ParseException e) {
-            return d; // fallback
-        }
-    }
 }
@@ -14,14 +14,11 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.pixel_events.R;
-import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.profile.Profile;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * EventNotificationFragment
@@ -76,28 +73,20 @@ public class EventNotificationFragment extends Fragment {
             newNotify.add(winBtn.isChecked());
             newNotify.add(loseBtn.isChecked());
 
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("notify", newNotify);
-
             if (profile == null) {
                 Toast.makeText(requireContext(), "Profile not loaded", Toast.LENGTH_SHORT).show();
                 return;
             }
 
-            DatabaseHandler.getInstance().modify(DatabaseHandler.getInstance().getAccountCollection(),
-                    profile.getUserId(), updates, error -> {
-                        if (error == null) {
-                            // update local profile
-                            profile.setNotify(newNotify);
-                            AuthManager.getInstance().setCurrentUserProfile(profile);
-                            requireActivity().runOnUiThread(() -> Toast
-                                    .makeText(requireContext(), "Preferences saved", Toast.LENGTH_SHORT).show());
-                            requireActivity().getSupportFragmentManager().popBackStack();
-                        } else {
-                            requireActivity().runOnUiThread(() -> Toast
-                                    .makeText(requireContext(), "Failed to save: " + error, Toast.LENGTH_LONG).show());
-                        }
-                    });
+            profile.edit().setNotify(newNotify).commit()
+                    .addOnSuccessListener(unused -> {
+                        AuthManager.getInstance().setCurrentUserProfile(profile);
+                        requireActivity().runOnUiThread(() -> Toast
+                                .makeText(requireContext(), "Preferences saved", Toast.LENGTH_SHORT).show());
+                        requireActivity().getSupportFragmentManager().popBackStack();
+                    })
+                    .addOnFailureListener(e -> requireActivity().runOnUiThread(() -> Toast
+                            .makeText(requireContext(), "Failed to save: " + e.getMessage(), Toast.LENGTH_LONG).show()));
         });
 
         backBtn.setOnClickListener(v -> {
@@ -104,11 +104,9 @@ public class MyEventAdapter extends RecyclerView.Adapter<MyEventAdapter.EventVie
 
             Profile currentUser = AuthManager.getInstance().getCurrentUserProfile();
             if (currentUser != null) {
-                db.getWaitingList(event.getEventId(), waitingList -> {
-                    if (waitingList != null) {
-                        checkAndSetStatus(waitingList.getWaitList(), currentUser.getUserId(), event.getEventId());
-                    }
-                }, e -> {});
+                // Only the user's own entrant document is needed for the badge
+                db.getEntrant(event.getEventId(), currentUser.getUserId())
+                        .addOnSuccessListener(this::setStatus);
             }
 
             itemView.setOnClickListener(v -> {
@@ -118,24 +116,16 @@ public class MyEventAdapter extends RecyclerView.Adapter<MyEventAdapter.EventVie
             });
         }
 
-        private void checkAndSetStatus(List<WaitlistUser> list, int userId, int eventId) {
-            if (list != null) {
-                boolean found = false;
-                for (WaitlistUser user : list) {
-                    if (user.getUserId() == userId) {
-                        int s = user.getStatus();
-                        if (s == 0) status.setText("Waiting");
-                        else if (s == 1) status.setText("Selected");
-                        else if (s == 2) status.setText("Accepted");
-                        else if (s == 3) status.setText("Declined");
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    status.setText("Not participating");
-                }
+        private void setStatus(WaitlistUser user) {
+            if (user == null) {
+                status.setText("Not participating");
+                return;
             }
+            int s = user.getStatus();
+            if (s == 0) status.setText("Waiting");
+            else if (s == 1) status.setText("Selected");
+            else if (s == 2) status.setText("Accepted");
+            else if (s == 3) status.setText("Declined");
         }
     }
 }
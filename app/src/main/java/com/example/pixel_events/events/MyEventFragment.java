@@ -17,15 +17,12 @@ import com.example.pixel_events.R;
 import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.profile.Profile;
+import com.example.pixel_events.utils.EventDates;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-import java.util.Calendar;
 
 /**
  * MyEventFragment
@@ -142,24 +139,10 @@ public class MyEventFragment extends Fragment {
         DatabaseHandler db = DatabaseHandler.getInstance();
         int organizerId = currentUser.getUserId();
 
-        // Get all events and filter by organizer ID and date
-        db.getAllEvents(
-                allEvents -> {
-                    List<Event> filteredEvents = new ArrayList<>();
-                    Date today = getTodayDate();
-                    
-                    for (Event event : allEvents) {
-                        if (event.getOrganizerId() == organizerId) {
-                            Date eventEndDate = parseDate(event.getEventEndDate());
-                            if (eventEndDate != null) {
-                                if (isUpcoming && !eventEndDate.before(today)) {
-                                    filteredEvents.add(event);
-                                } else if (!isUpcoming && eventEndDate.before(today)) {
-                                    filteredEvents.add(event);
-                                }
-                            }
-                        }
-                    }
+        // Query the organizer's events and filter by date
+        db.getEventsForOrganizer(organizerId,
+                organizerEvents -> {
+                    List<Event> filteredEvents = filterByEndDate(organizerEvents, isUpcoming);
                     adapter.updateEvents(filteredEvents);
                     Log.d(TAG, "Loaded " + filteredEvents.size() + " " + (isUpcoming ? "upcoming" : "previous") + " events for organizer");
                 },
@@ -176,19 +159,7 @@ public class MyEventFragment extends Fragment {
         // Get all events user is part of (from waitlists) and filter by date
         db.getEventsForUser(userId,
                 userEvents -> {
-                    List<Event> filteredEvents = new ArrayList<>();
-                    Date today = getTodayDate();
-                    
-                    for (Event event : userEvents) {
-                        Date eventEndDate = parseDate(event.getEventEndDate());
-                        if (eventEndDate != null) {
-                            if (isUpcoming && !eventEndDate.before(today)) {
-                                filteredEvents.add(event);
-                            } else if (!isUpcoming && eventEndDate.before(today)) {
-                                filteredEvents.add(event);
-                            }
-                        }
-                    }
+                    List<Event> filteredEvents = filterByEndDate(userEvents, isUpcoming);
                     adapter.updateEvents(filteredEvents);
                     Log.d(TAG, "Loaded " + filteredEvents.size() + " " + (isUpcoming ? "upcoming" : "previous") + " events for user");
                 },
@@ -198,26 +169,21 @@ public class MyEventFragment extends Fragment {
                 });
     }
 
-    private Date getTodayDate() {
-        Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.HOUR_OF_DAY, 0);
-        cal.set(Calendar.MINUTE, 0);
-        cal.set(Calendar.SECOND, 0);
-        cal.set(Calendar.MILLISECOND, 0);
-        return cal.getTime();
-    }
-
-    private Date parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
-            return null;
-        }
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            return sdf.parse(dateStr);
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing date: " + dateStr, e);
-            return null;
+    /**
+     * Upcoming: ends today or later. Previous: ended before today.
+     */
+    private List<Event> filterByEndDate(List<Event> events, boolean isUpcoming) {
+        long startOfToday = EventDates.startOfTodayMillis();
+        List<Event> filtered = new ArrayList<>();
+        for (Event event : events) {
+            Long endAt = event.getEventEndAt();
+            if (endAt == null)
+                continue;
+            if (isUpcoming == (endAt >= startOfToday)) {
+                filtered.add(event);
+            }
         }
+        return filtered;
     }
 
     @Override
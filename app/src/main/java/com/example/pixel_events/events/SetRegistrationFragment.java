@@ -142,17 +142,25 @@ public class SetRegistrationFragment extends BottomSheetDialogFragment {
                     event.getEventEndTime()
             );
 
-            // Save to DB via setters (they update DB internally)
-            event.setRegistrationStartDate(regStart);
-            event.setRegistrationEndDate(regEnd);
-
-            // Notify parent (EventFragment) via FragmentResult API so it can refresh UI
-            Bundle result = new Bundle();
-            result.putInt("eventId", eventId);
-            getParentFragmentManager().setFragmentResult("registrationUpdated", result);
-
-            Toast.makeText(requireContext(), "Registration dates updated", Toast.LENGTH_SHORT).show();
-            dismiss();
+            // Both dates are validated together and written in one update
+            event.edit()
+                    .setRegistrationStartDate(regStart)
+                    .setRegistrationEndDate(regEnd)
+                    .commit()
+                    .addOnSuccessListener(unused -> {
+                        if (!isAdded()) return;
+                        // Notify parent (EventFragment) via FragmentResult API so it can refresh UI
+                        Bundle result = new Bundle();
+                        result.putInt("eventId", eventId);
+                        getParentFragmentManager().setFragmentResult("registrationUpdated", result);
+
+                        Toast.makeText(requireContext(), "Registration dates updated", Toast.LENGTH_SHORT).show();
+                        dismiss();
+                    })
+                    .addOnFailureListener(e -> {
+                        if (!isAdded()) return;
+                        Toast.makeText(requireContext(), "Failed to save: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                    });
         } catch (IllegalArgumentException ex) {
             Toast.makeText(requireContext(), ex.getMessage(), Toast.LENGTH_LONG).show();
         } catch (Exception ex) {
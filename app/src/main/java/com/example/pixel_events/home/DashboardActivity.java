@@ -14,6 +14,7 @@ import com.example.pixel_events.events.CreateEventFragment;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.notifications.NotificationFragment;
 import com.example.pixel_events.profile.Profile;
+import com.example.pixel_events.waitinglist.LotteryDrawWorker;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import com.example.pixel_events.notifications.Notification;
@@ -67,6 +68,13 @@ public class DashboardActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Don't lose debounced edits if the app is backgrounded and killed
+        DatabaseHandler.getInstance().flushPendingUpdates();
+    }
+
     private void setupNotificationListener() {
         Profile user = AuthManager.getInstance().getCurrentUserProfile();
         if (user != null) {
@@ -236,5 +244,12 @@ public class DashboardActivity extends AppCompatActivity {
 
         binding.dashboardAddevent.setVisibility(isOrganizer ? View.VISIBLE : View.GONE);
         binding.dashboardShowNotifications.setVisibility(isOrganizer ? View.GONE : View.VISIBLE);
+
+        // Only organizers run automatic draws, and only for their own events
+        if (isOrganizer) {
+            LotteryDrawWorker.schedule(this, profile.getUserId());
+        } else {
+            LotteryDrawWorker.cancel(this);
+        }
     }
 }
\ No newline at end of file
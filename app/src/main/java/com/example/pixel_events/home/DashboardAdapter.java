@@ -49,6 +49,14 @@ public class DashboardAdapter extends RecyclerView.Adapter<DashboardAdapter.Even
         notifyDataSetChanged();
     }
 
+    public void appendEvents(List<Event> moreEvents) {
+        if (moreEvents == null || moreEvents.isEmpty())
+            return;
+        int start = events.size();
+        events.addAll(moreEvents);
+        notifyItemRangeInserted(start, moreEvents.size());
+    }
+
     @NonNull
     @Override
     public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -18,20 +18,19 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.pixel_events.R;
-import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EventQuery;
 import com.example.pixel_events.events.Event;
 import com.example.pixel_events.events.EventDetailedFragment;
+import com.example.pixel_events.utils.EventDates;
+import com.example.pixel_events.utils.EventPager;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.chip.Chip;
 
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
 /**
@@ -48,13 +47,13 @@ import java.text.SimpleDateFormat;
  * Collaborators:
  * - Event: Displayed event data
  * - EventDetailedFragment: Navigation to event details
- * - DatabaseHandler: Event queries
+ * - EventPager: Paged, server-filtered event queries
  */
 public class DashboardFragment extends Fragment {
     private static final String TAG = "DashboardFragment";
     private RecyclerView eventsRecyclerView;
     private DashboardAdapter adapter;
-    private List<Event> allEvents = new ArrayList<>();
+    private EventPager pager;
 
     // Filters UI
     private ChipGroup chipGroup;
@@ -95,6 +94,31 @@ public class DashboardFragment extends Fragment {
         });
         eventsRecyclerView.setAdapter(adapter);
 
+        pager = new EventPager(EventPager.DEFAULT_PAGE_SIZE, new EventPager.Listener() {
+            @Override
+            public void onPage(List<Event> events, boolean firstPage) {
+                if (!isAdded())
+                    return;
+                Log.d(TAG, "Loaded " + events.size() + " events from Firebase");
+                if (firstPage) {
+                    adapter.updateEvents(new ArrayList<>(events));
+                    if (events.isEmpty()) {
+                        Toast.makeText(getContext(), "No events found", Toast.LENGTH_SHORT).show();
+                    }
+                } else {
+                    adapter.appendEvents(events);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading events", e);
+                if (isAdded())
+                    Toast.makeText(getContext(), "Failed to load events", Toast.LENGTH_SHORT).show();
+            }
+        });
+        pager.attachTo(eventsRecyclerView);
+
         chipGroup = view.findViewById(R.id.dashboard_chip_group);
         startDateView = view.findViewById(R.id.dashboard_start_date);
         endDateView = view.findViewById(R.id.dashboard_end_date);
@@ -109,34 +133,16 @@ public class DashboardFragment extends Fragment {
         return view;
     }
 
+    /**
+     * Current events only: end date >= today. Filtering and paging happen on
+     * the server, so the first paint costs a single page of reads.
+     */
+    private EventQuery baseQuery() {
+        return new EventQuery().endingOnOrAfter(EventDates.startOfTodayMillis());
+    }
+
     private void loadAllEvents() {
-        DatabaseHandler db = DatabaseHandler.getInstance();
-        db.getAllEvents(
-                events -> {
-                    Log.d(TAG, "Loaded " + events.size() + " events from Firebase");
-                    allEvents = events != null ? events : new ArrayList<>();
-                    // Filter events to only current events: end date >= today
-                    Calendar today = Calendar.getInstance();
-                    today.set(Calendar.HOUR_OF_DAY, 0);
-                    today.set(Calendar.MINUTE, 0);
-                    today.set(Calendar.SECOND, 0);
-                    today.set(Calendar.MILLISECOND, 0);
-                    List<Event> filtered = new ArrayList<>();
-                    for (Event e : allEvents) {
-                        Date end = parseDateSafe(e.getEventEndDate());
-                        if (end != null && !end.before(today.getTime())) {
-                            filtered.add(e);
-                        }
-                    }
-                    adapter.updateEvents(filtered);
-                    if (filtered.size() == 0) {
-                        Toast.makeText(getContext(), "No events found", Toast.LENGTH_SHORT).show();
-                    }
-                },
-                e -> {
-                    Log.e(TAG, "Error loading events", e);
-                    Toast.makeText(getContext(), "Failed to load events", Toast.LENGTH_SHORT).show();
-                });
+        pager.reset(baseQuery());
     }
 
     @Override
@@ -168,72 +174,34 @@ public class DashboardFragment extends Fragment {
     }
 
     private void applyFilters() {
-        Set<String> selectedTags = new HashSet<>();
+        List<String> selectedTags = new ArrayList<>();
         if (chipGroup != null) {
             for (int i = 0; i < chipGroup.getChildCount(); i++) {
                 View child = chipGroup.getChildAt(i);
                 if (child instanceof Chip) {
                     Chip c = (Chip) child;
                     if (c.isChecked()) {
-                        selectedTags.add(c.getText().toString().trim().toLowerCase(Locale.US));
+                        // Matched case-insensitively against the events' tags
+                        selectedTags.add(c.getText().toString().trim());
                     }
                 }
             }
         }
 
-        List<Event> filtered = new ArrayList<>();
-        for (Event e : allEvents) {
-            if (!matchesTags(e, selectedTags))
-                continue;
-            if (!matchesDateRange(e))
-                continue;
-            filtered.add(e);
+        EventQuery query = baseQuery().withAnyTag(selectedTags);
+        if (filterStartDate != null || filterEndDate != null) {
+            // The picked calendar days, as midnights in the events' zone.
+            // End date is inclusive: stop before the following midnight
+            query.startingBetween(
+                    filterStartDate != null ? EventDates.toMillis(pickedDay(filterStartDate), 0) : null,
+                    filterEndDate != null ? EventDates.toMillis(pickedDay(filterEndDate) + 1, 0) : null);
         }
-        adapter.updateEvents(filtered);
+        pager.reset(query);
     }
 
-    private boolean matchesTags(Event e, Set<String> selectedTags) {
-        if (selectedTags.isEmpty())
-            return true; // no tag filter
-        List<String> tags = e.getTags();
-        if (tags == null || tags.isEmpty())
-            return false;
-        for (String t : tags) {
-            if (t == null)
-                continue;
-            String lt = t.trim().toLowerCase(Locale.US);
-            if (selectedTags.contains(lt))
-                return true;
-        }
-        return false;
-    }
-
-    private boolean matchesDateRange(Event e) {
-        if (filterStartDate == null && filterEndDate == null)
-            return true;
-        Date start = parseDateSafe(e.getEventStartDate());
-        Date end = parseDateSafe(e.getEventEndDate());
-        if (start == null && end == null)
-            return true;
-        // Use start date if available, else end date
-        Date pivot = start != null ? start : end;
-
-        if (filterStartDate != null && pivot.before(filterStartDate))
-            return false;
-        if (filterEndDate != null && pivot.after(filterEndDate))
-            return false;
-        return true;
-    }
-
-    private Date parseDateSafe(String s) {
-        if (s == null || s.trim().isEmpty())
-            return null;
-        try {
-            return dateFmt.parse(s.trim());
-        } catch (ParseException ex) {
-            Log.w(TAG, "Unparseable date: " + s);
-            return null;
-        }
+    // Epoch day of the date the user picked, whatever the device's zone
+    private int pickedDay(Date picked) {
+        return EventDates.parseEpochDay(dateFmt.format(picked));
     }
 
     private void clearFilters() {
@@ -254,6 +222,6 @@ public class DashboardFragment extends Fragment {
         if (endDateView != null)
             endDateView.setText("End date");
         // Reset list
-        adapter.updateEvents(allEvents);
+        loadAllEvents();
     }
 }
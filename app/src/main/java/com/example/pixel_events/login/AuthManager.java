@@ -6,6 +6,7 @@ import android.util.Log;
 
 import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.profile.Profile;
+import com.example.pixel_events.waitinglist.LotteryDrawWorker;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 
@@ -27,6 +28,7 @@ import java.util.function.Consumer;
  * - FirebaseAuth: Authentication backend
  * - Profile: Current user data
  * - DatabaseHandler: Profile retrieval
+ * - LotteryDrawWorker: Cancelled on sign-out
  */
 public class AuthManager {
     private static final String TAG = "AuthManager";
@@ -69,7 +71,7 @@ public class AuthManager {
     public void signup(Context context, Profile profile, Runnable successCallback,
             Consumer<Exception> failureCallback) {
         // Save to DB
-        DatabaseHandler.getInstance().addAcc(profile);
+        DatabaseHandler.getInstance().createAcc(profile);
 
         // Set as current user
         this.currentUserProfile = profile;
@@ -156,6 +158,7 @@ public class AuthManager {
     public void signOut(Context context) {
         this.currentUserProfile = null;
         clearSession(context);
+        LotteryDrawWorker.cancel(context);
     }
 
     private void saveSession(Context context, int userId) {
@@ -253,23 +253,12 @@ public class LoginFragment extends Fragment {
 
                                 if (changed) {
                                     // Update both in-memory profile and persisted DB only if changed
-                                    profile.setLatitude(newLat);
-                                    profile.setLongitude(newLng);
-
-                                    java.util.Map<String, Object> updates = new java.util.HashMap<>();
-                                    updates.put("latitude", newLat);
-                                    updates.put("longitude", newLng);
-                                    DatabaseHandler.getInstance().modify(
-                                            com.example.pixel_events.database.DatabaseHandler.getInstance()
-                                                    .getAccountCollection(),
-                                            profile.getUserId(),
-                                            updates,
-                                            err -> {
-                                                if (err != null) {
-                                                    android.util.Log.e("LoginFragment",
-                                                            "Failed to persist location: " + err);
-                                                }
-                                            });
+                                    profile.edit()
+                                            .setLatitude(newLat)
+                                            .setLongitude(newLng)
+                                            .commit()
+                                            .addOnFailureListener(err -> android.util.Log.e("LoginFragment",
+                                                    "Failed to persist location: " + err.getMessage()));
 
                                     Toast.makeText(requireContext(), "Location updated", Toast.LENGTH_SHORT).show();
                                 }
@@ -283,8 +272,10 @@ public class LoginFragment extends Fragment {
                                         || Math.abs(newLat - oldLat) > THRESHOLD
                                         || Math.abs(newLng - oldLng) > THRESHOLD;
                                 if (changed) {
-                                    profile.setLatitude(newLat);
-                                    profile.setLongitude(newLng);
+                                    profile.edit()
+                                            .setLatitude(newLat)
+                                            .setLongitude(newLng)
+                                            .commit();
                                     Toast.makeText(requireContext(), "Location updated", Toast.LENGTH_SHORT).show();
                                 }
                             });
@@ -22,8 +22,10 @@ import com.google.firebase.firestore.Query;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * AdminNotificationLogFragment
@@ -91,36 +93,43 @@ public class AdminNotificationLogFragment extends Fragment {
                         emptyView.setVisibility(logs.isEmpty() ? View.VISIBLE : View.GONE);
                     }
 
-                    // Load sender and recipient names
-                    for (NotificationLog log : logs) {
-                        loadUserNames(log);
-                    }
+                    loadUserNames(logs);
                 })
                 .addOnFailureListener(e -> Log.e("AdminNotificationLog", "Error loading logs", e));
     }
 
-    private void loadUserNames(NotificationLog log) {
-        // Load recipient name
-        DatabaseHandler.getInstance().getProfile(log.notification.getRecipientId(), 
-            recipient -> {
-                if (recipient != null) {
-                    log.recipientName = recipient.getUserName();
-                    adapter.notifyDataSetChanged();
-                }
-            }, 
-            e -> Log.e("AdminNotificationLog", "Failed to load recipient", e));
-
-        // Load sender name if available
-        if (log.notification.getSenderId() > 0) {
-            DatabaseHandler.getInstance().getProfile(log.notification.getSenderId(), 
-                sender -> {
-                    if (sender != null) {
-                        log.senderName = sender.getUserName();
+    /**
+     * Resolve every sender and recipient name with one batched profile read.
+     */
+    private void loadUserNames(List<NotificationLog> logs) {
+        Set<Integer> ids = new HashSet<>();
+        for (NotificationLog log : logs) {
+            ids.add(log.notification.getRecipientId());
+            if (log.notification.getSenderId() > 0) {
+                ids.add(log.notification.getSenderId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        DatabaseHandler.getInstance().getProfiles(ids)
+                .addOnSuccessListener(profiles -> {
+                    for (NotificationLog log : logs) {
+                        Profile recipient = profiles.get(log.notification.getRecipientId());
+                        if (recipient != null) {
+                            log.recipientName = recipient.getUserName();
+                        }
+                        Profile sender = log.notification.getSenderId() > 0
+                                ? profiles.get(log.notification.getSenderId()) : null;
+                        if (sender != null) {
+                            log.senderName = sender.getUserName();
+                        }
+                    }
+                    if (adapter != null) {
                         adapter.notifyDataSetChanged();
                     }
-                }, 
-                e -> Log.e("AdminNotificationLog", "Failed to load sender", e));
-        }
+                })
+                .addOnFailureListener(e -> Log.e("AdminNotificationLog", "Failed to load user names", e));
     }
 
     static class NotificationLog {
@@ -9,10 +9,6 @@ import com.example.pixel_events.events.Event;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.waitinglist.WaitingList;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * LotteryNotificationService
@@ -40,7 +36,7 @@ public class LotteryNotificationService {
     }
 
     /**
-     * Check all events and send notifications for those whose
+     * Check the current user's events and send notifications for those whose
      * registration deadline has passed.
      *
      * This method should be called when the app starts or
@@ -51,8 +47,8 @@ public class LotteryNotificationService {
 
         Log.d(TAG, "Checking registration deadlines for user: " + currentUserId);
 
-        // Get all events from database
-        databaseHandler.getAllEvents(
+        // Only the events this user has joined can produce a notification
+        databaseHandler.getEventsForUser(currentUserId,
                 events -> {
                     if (events != null) {
                         for (Event event : events) {
@@ -71,37 +67,33 @@ public class LotteryNotificationService {
      * and if the user should be notified.
      */
     private void checkEventForNotification(Event event, int currentUserId) {
-        if (event == null || event.getRegistrationEndDate() == null) {
+        if (event == null) {
+            return;
+        }
+        Long registrationClosesAt = event.getRegistrationClosesAt();
+        if (registrationClosesAt == null) {
+            Log.e(TAG, "Unparseable registration end date for event " + event.getEventId());
             return;
         }
 
-        try {
-            // Parse registration end date
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-            Date registrationEndDate = sdf.parse(event.getRegistrationEndDate());
-            Date now = new Date();
-
-            // Check if registration deadline has passed
-            if (registrationEndDate != null && registrationEndDate.before(now)) {
-                // Check if user is on waitlist
-                int eventId = event.getEventId();
-                databaseHandler.getWaitingList(eventId,
-                        waitingList -> {
-                            if (waitingList != null && waitingList.isUserInWaitlist(currentUserId)) {
-                                // Check if we've already notified for this event
-                                if (!hasBeenNotified(eventId)) {
-                                    sendLotteryNotification(event.getTitle());
-                                    markAsNotified(eventId);
-                                }
+        // Check if registration deadline has passed
+        if (registrationClosesAt <= System.currentTimeMillis()) {
+            // Check if user is on waitlist
+            int eventId = event.getEventId();
+            databaseHandler.getWaitingList(eventId,
+                    waitingList -> {
+                        if (waitingList != null && waitingList.isUserInWaitlist(currentUserId)) {
+                            // Check if we've already notified for this event
+                            if (!hasBeenNotified(eventId)) {
+                                sendLotteryNotification(event.getTitle());
+                                markAsNotified(eventId);
                             }
-                        },
-                        error -> {
-                            Log.e(TAG, "Error checking waitlist for event " + eventId, error);
                         }
-                );
-            }
-        } catch (ParseException e) {
-            Log.e(TAG, "Error parsing registration end date for event " + event.getEventId(), e);
+                    },
+                    error -> {
+                        Log.e(TAG, "Error checking waitlist for event " + eventId, error);
+                    }
+            );
         }
     }
 
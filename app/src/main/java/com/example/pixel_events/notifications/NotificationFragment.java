@@ -20,13 +20,11 @@ import com.example.pixel_events.events.EventInvitation;
 import com.example.pixel_events.events.InvitationAdapter;
 import com.example.pixel_events.login.AuthManager;
 import com.example.pixel_events.profile.Profile;
-import com.example.pixel_events.waitinglist.WaitingList;
 import com.example.pixel_events.waitinglist.WaitlistUser;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * NotificationFragment
@@ -139,46 +137,35 @@ public class NotificationFragment extends Fragment implements InvitationAdapter.
             return;
         }
 
-        DatabaseHandler.getInstance().getAllEvents(events -> {
-            List<EventInvitation> newInvitations = new ArrayList<>();
-            java.util.Set<Integer> seenEventIds = new java.util.HashSet<>();
-
+        DatabaseHandler db = DatabaseHandler.getInstance();
+        int userId = currentUser.getUserId();
+        db.getEventsForUser(userId, events -> {
             if (events.isEmpty()) {
-                invitationAdapter.updateInvitations(newInvitations);
+                currentInvitations = new ArrayList<>();
+                invitationAdapter.updateInvitations(new ArrayList<>());
                 return;
             }
 
-            AtomicInteger eventsProcessed = new AtomicInteger(0);
+            List<Integer> eventIds = new ArrayList<>();
             for (Event event : events) {
-                DatabaseHandler.getInstance().getWaitingList(event.getEventId(), waitingList -> {
-                    if (waitingList != null) {
-                        List<WaitlistUser> selectedUsers = waitingList.getSelected();
-                        if (selectedUsers != null) {
-                            for (WaitlistUser user : selectedUsers) {
-                                if (user.getUserId() == currentUser.getUserId() && user.getStatus() == 1) { // selected
-                                    // Avoid adding the same event twice
-                                    if (!seenEventIds.contains(event.getEventId())) {
-                                        seenEventIds.add(event.getEventId());
-                                        newInvitations.add(new EventInvitation(event, user));
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    if (eventsProcessed.incrementAndGet() == events.size()) {
-                        currentInvitations = newInvitations; // replace backing field
-                        invitationAdapter.updateInvitations(new ArrayList<>(currentInvitations));
-                    }
-                }, e -> {
-                    Log.e(TAG, "Failed to get waitlist for event " + event.getEventId(), e);
-                    if (eventsProcessed.incrementAndGet() == events.size()) {
-                        currentInvitations = newInvitations;
-                        invitationAdapter.updateInvitations(new ArrayList<>(currentInvitations));
-                    }
-                });
+                eventIds.add(event.getEventId());
             }
+            db.getEntrantsForUser(userId, eventIds).addOnSuccessListener(entrants -> {
+                List<EventInvitation> newInvitations = new ArrayList<>();
+                for (Event event : events) {
+                    WaitlistUser user = entrants.get(event.getEventId());
+                    if (user != null && user.getStatus() == 1) { // selected
+                        newInvitations.add(new EventInvitation(event, user));
+                    }
+                }
+                currentInvitations = newInvitations; // replace backing field
+                invitationAdapter.updateInvitations(new ArrayList<>(currentInvitations));
+            }).addOnFailureListener(e -> {
+                Log.e(TAG, "Failed to get waitlists for invitations", e);
+                Toast.makeText(getContext(), "Error loading events.", Toast.LENGTH_SHORT).show();
+            });
         }, e -> {
-            Log.e(TAG, "Failed to get all events", e);
+            Log.e(TAG, "Failed to get user events", e);
             Toast.makeText(getContext(), "Error loading events.", Toast.LENGTH_SHORT).show();
         });
     }
@@ -218,24 +205,10 @@ public class NotificationFragment extends Fragment implements InvitationAdapter.
         updateInvitationStatus(invitation, 3, () -> {
             int eventId = invitation.getEvent().getEventId();
 
-            // Call AFTER Firestore update is finished
-            DatabaseHandler.getInstance().getWaitingList(eventId, waitingList -> {
-                if (waitingList != null) {
-                    waitingList.drawLottery(new WaitingList.OnLotteryDrawnListener() {
-                        @Override
-                        public void onSuccess(int numberDrawn) {
-                            Log.d(TAG, "Lottery drawn: " + numberDrawn);
-                        }
-
-                        @Override
-                        public void onFailure(Exception e) {
-                            Log.e(TAG, "Failed to draw lottery", e);
-                        }
-                    });
-                }
-            }, e -> {
-                Log.e(TAG, "Failed to get waitlist for event " + eventId, e);
-            });
+            // Call AFTER Firestore update is finished: promote the next alternate
+            DatabaseHandler.getInstance().requestRedraw(eventId)
+                    .addOnSuccessListener(promoted -> Log.d(TAG, "Replacements drawn: " + promoted.size()))
+                    .addOnFailureListener(e -> Log.e(TAG, "Failed to draw replacement for event " + eventId, e));
         });
     }
 
@@ -260,6 +233,12 @@ public class NotificationFragment extends Fragment implements InvitationAdapter.
                     @Override
                     public void onFailure(Exception e) {
                         Log.e(TAG, "Failed to update status", e);
+                        if (e instanceof DatabaseHandler.StatusConflictException) {
+                            // Already answered or cancelled elsewhere; show the current invitations
+                            Toast.makeText(getContext(), "Invitation is no longer open.", Toast.LENGTH_SHORT).show();
+                            loadUserInvitations();
+                            return;
+                        }
                         Toast.makeText(getContext(), "Failed to update invitation.", Toast.LENGTH_SHORT).show();
                     }
                 });
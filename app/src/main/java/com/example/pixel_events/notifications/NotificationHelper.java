@@ -12,11 +12,16 @@ import com.example.pixel_events.R;
  *
  * Manages Android notification system for lottery results.
  * Creates notification channels and sends notifications to users.
- * Handles both win and loss notifications for lottery events.
+ * Handles both win and loss notifications for lottery events, and tells
+ * organizers when a background export has finished.
  */
 public class NotificationHelper {
     private static final String CHANNEL_ID = "lottery_notifications";
     private static final String CHANNEL_NAME = "Lottery Results";
+    private static final String EXPORT_CHANNEL_ID = "export_notifications";
+    private static final String EXPORT_CHANNEL_NAME = "Exports";
+    // Export notifications are keyed by event so each event has at most one
+    private static final int EXPORT_NOTIFICATION_BASE = 1000;
 
     private Context context;
     private NotificationManager notificationManager;
@@ -44,6 +49,14 @@ public class NotificationHelper {
             );
             channel.setDescription("Notifications for lottery results");
             notificationManager.createNotificationChannel(channel);
+
+            NotificationChannel exportChannel = new NotificationChannel(
+                    EXPORT_CHANNEL_ID,
+                    EXPORT_CHANNEL_NAME,
+                    NotificationManager.IMPORTANCE_DEFAULT
+            );
+            exportChannel.setDescription("Notifications for finished entrant exports");
+            notificationManager.createNotificationChannel(exportChannel);
         }
     }
 
@@ -71,6 +84,30 @@ public class NotificationHelper {
         sendNotification(2, title, message);
     }
 
+    /**
+     * Send an export finished notification to the organizer
+     * @param eventId Event the entrants were exported from
+     * @param path Absolute path of the exported file
+     * @param rows Number of rows in the file
+     */
+    public void sendExportCompleteNotification(int eventId, String path, int rows) {
+        String title = "Export complete";
+        String message = rows + " entrants exported to " + path;
+        sendNotification(EXPORT_CHANNEL_ID, EXPORT_NOTIFICATION_BASE + eventId, title, message,
+                NotificationCompat.PRIORITY_DEFAULT);
+    }
+
+    /**
+     * Send an export failed notification to the organizer
+     * @param eventId Event the entrants were being exported from
+     * @param reason Failure message
+     */
+    public void sendExportFailedNotification(int eventId, String reason) {
+        String title = "Export failed";
+        sendNotification(EXPORT_CHANNEL_ID, EXPORT_NOTIFICATION_BASE + eventId, title, reason,
+                NotificationCompat.PRIORITY_DEFAULT);
+    }
+
     /**
      * Send a notification to user's device
      * @param notificationId Unique ID for this notification
@@ -78,11 +115,18 @@ public class NotificationHelper {
      * @param message Notification message content
      */
     private void sendNotification(int notificationId, String title, String message) {
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+        sendNotification(CHANNEL_ID, notificationId, title, message, NotificationCompat.PRIORITY_HIGH);
+    }
+
+    private void sendNotification(String channelId, int notificationId, String title, String message,
+            int priority) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
                 .setSmallIcon(R.drawable.ic_launcher_foreground)
                 .setContentTitle(title)
                 .setContentText(message)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                // Long messages such as file paths expand instead of being cut off
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(message))
+                .setPriority(priority)
                 .setAutoCancel(true);
 
         notificationManager.notify(notificationId, builder.build());
@@ -97,9 +141,11 @@ public class NotificationHelper {
  *      Create notification channel for Android O+
  *      Send win notifications to lottery winners
  *      Send loss notifications to non-selected entrants
+ *      Send export finished / failed notifications to organizers
  *      Manage notification system access
  *
  * Collaborators:
  *      LotteryNotificationService
+ *      ExportWorker
  *      NotificationManager (Android system)
  */
@@ -16,12 +16,9 @@ import androidx.activity.OnBackPressedCallback;
 import androidx.fragment.app.Fragment;
 
 import com.example.pixel_events.R;
-import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.login.AuthManager;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * EditProfileFragment
@@ -36,7 +33,7 @@ import java.util.Map;
  *
  * Collaborators:
  * - Profile: User data model
- * - DatabaseHandler: Profile updates
+ * - Profile.Editor: Writes changed fields in one update
  * - Validator: Input validation
  */
 public class EditProfileFragment extends Fragment {
@@ -156,74 +153,55 @@ public class EditProfileFragment extends Fragment {
         String role = resolveRole(selectedRoleId, profile.getRole());
         String gender = resolveGender(selectedGenderId, profile.getGender());
 
-        Map<String, Object> updates = new HashMap<>();
+        Profile.Editor edit = profile.edit();
         if (!newName.isEmpty() && !newName.equals(profile.getUserName())) {
-            updates.put("userName", newName);
+            edit.setUserName(newName);
         }
         if (!email.isEmpty() && !email.equals(profile.getEmail())) {
-            updates.put("email", email);
-            AuthManager.getInstance().setCurrentEmail(email);
+            edit.setEmail(email);
         }
 
         if (!newPhone.isEmpty() && !newPhone.equals(profile.getPhoneNum())) {
-            updates.put("phoneNum", newPhone);
+            edit.setPhoneNum(newPhone);
         }
 
         if (!gender.isEmpty() && !gender.equals(profile.getGender())) {
-            updates.put("gender", gender);
+            edit.setGender(gender);
         }
 
         if (!role.isEmpty() && !role.equals(profile.getRole())) {
-            updates.put("role", role);
+            edit.setRole(role);
         }
 
         if (newPostal != null && !newPostal.equals(profile.getPostalcode())) {
-            updates.put("postalcode", newPostal);
+            edit.setPostalcode(newPostal);
         }
 
         if (newProvince != null && !newProvince.equals(profile.getProvince())) {
-            updates.put("province", newProvince);
+            edit.setProvince(newProvince);
         }
 
         if (newCity != null && !newCity.equals(profile.getCity())) {
-            updates.put("city", newCity);
+            edit.setCity(newCity);
         }
 
-        if (updates.isEmpty()) {
+        if (!edit.isDirty()) {
             // Nothing to save
             requireActivity().getSupportFragmentManager().popBackStack();
             return;
         }
 
-        DatabaseHandler.getInstance().modify(DatabaseHandler.getInstance().getAccountCollection(),
-                profile.getUserId(), updates, error -> {
-                    if (error == null) {
-                        // apply changes locally
-                        if (updates.containsKey("userName"))
-                            profile.setUserName(newName);
-                        if (updates.containsKey("phoneNum"))
-                            profile.setPhoneNum(newPhone);
-                        if (updates.containsKey("email"))
-                            profile.setEmail(email);
-                        if (updates.containsKey("gender"))
-                            profile.setGender(gender);
-                        if (updates.containsKey("role"))
-                            profile.setRole(role);
-                        if (updates.containsKey("postalcode"))
-                            profile.setPostalcode(newPostal);
-                        if (updates.containsKey("province"))
-                            profile.setProvince(newProvince);
-                        if (updates.containsKey("city"))
-                            profile.setCity(newCity);
-                        AuthManager.getInstance().setCurrentUserProfile(profile);
-                        requireActivity().runOnUiThread(
-                                () -> Toast.makeText(getContext(), "Profile saved", Toast.LENGTH_SHORT).show());
-                        requireActivity().getSupportFragmentManager().popBackStack();
-                    } else {
-                        requireActivity().runOnUiThread(() -> Toast
-                                .makeText(getContext(), "Failed to save: " + error, Toast.LENGTH_LONG).show());
-                    }
-                });
+        // One update for every changed field; the local profile and session
+        // only change once it succeeds
+        edit.commitThenApply()
+                .addOnSuccessListener(unused -> {
+                    AuthManager.getInstance().setCurrentUserProfile(profile);
+                    requireActivity().runOnUiThread(
+                            () -> Toast.makeText(getContext(), "Profile saved", Toast.LENGTH_SHORT).show());
+                    requireActivity().getSupportFragmentManager().popBackStack();
+                })
+                .addOnFailureListener(e -> requireActivity().runOnUiThread(() -> Toast
+                        .makeText(getContext(), "Failed to save: " + e.getMessage(), Toast.LENGTH_LONG).show()));
     }
 
     private String resolveRole(int selectedRoleId, @Nullable String fallback) {
@@ -3,11 +3,14 @@ package com.example.pixel_events.profile;
 import android.util.Log;
 
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.DocumentEditor;
+import com.example.pixel_events.utils.FieldCoercion;
 import com.example.pixel_events.utils.Validator;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -78,6 +81,39 @@ public class Profile {
         this.city = city;
     }
 
+    /**
+     * Decode a stored AccountData document without reflection, setters or
+     * validation. Accepts the legacy "id" field (written by setUserId) and
+     * falls back to the document id.
+     *
+     * @param documentId Firestore document id
+     * @param data       raw document data
+     * @return the decoded profile, or null when data is null
+     */
+    public static Profile fromMap(String documentId, Map<String, Object> data) {
+        if (data == null)
+            return null;
+        Profile p = new Profile();
+        int id = FieldCoercion.asInt(data.get("userId"), 0);
+        if (id == 0)
+            id = FieldCoercion.asInt(data.get("id"), 0);
+        if (id == 0)
+            id = FieldCoercion.asInt(documentId, 0);
+        p.userId = id;
+        p.role = FieldCoercion.asString(data.get("role"));
+        p.userName = FieldCoercion.asString(data.get("userName"));
+        p.gender = FieldCoercion.asString(data.get("gender"));
+        p.email = FieldCoercion.asString(data.get("email"));
+        p.phoneNum = FieldCoercion.asString(data.get("phoneNum"));
+        p.postalcode = FieldCoercion.asString(data.get("postalcode"));
+        p.province = FieldCoercion.asString(data.get("province"));
+        p.city = FieldCoercion.asString(data.get("city"));
+        p.notify = FieldCoercion.asBooleanList(data.get("notify"));
+        p.latitude = FieldCoercion.asDouble(data.get("latitude"));
+        p.longitude = FieldCoercion.asDouble(data.get("longitude"));
+        return p;
+    }
+
     public void setAutoUpdateDatabase(boolean autoUpdate) {
         this.autoUpdateDatabase = autoUpdate;
     }
@@ -94,25 +130,22 @@ public class Profile {
         }
     }
 
-    private void updateDatabase(String fieldName, Object value) {
-        if (!autoUpdateDatabase || this.userId <= 0) {
-            return;
-        }
+    /**
+     * Start an edit session. Staged changes are applied and written together
+     * on commit(), e.g. {@code profile.edit().setUserName(n).setCity(c).commit()}.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
 
+    private void updateDatabase(Editor edit) {
+        String fields = edit.getDirtyFields().toString();
         try {
-            Map<String, Object> updates = new HashMap<>();
-            updates.put(fieldName, value);
-
-            DatabaseHandler.getInstance().modify(DatabaseHandler.getInstance().getAccountCollection(),
-                    this.userId, updates, error -> {
-                        if (error != null) {
-                            Log.e("Profile", "Failed to update " + fieldName + ": " + error);
-                        }
-                    });
+            edit.commitDebounced()
+                    .addOnFailureListener(e -> Log.e("Profile", "Failed to update " + fields + ": " + e.getMessage()));
         } catch (Exception e) {
             Log.e("Profile", "Failed to access database for update", e);
         }
-
     }
 
     // Getters
@@ -166,62 +199,132 @@ public class Profile {
 
     // Setters / Modify Profile
     public void setUserId(int userId) {
-        this.userId = userId;
-        updateDatabase("id", userId);
+        updateDatabase(edit().setUserId(userId));
     }
 
     public void setRole(String role) {
-        this.role = role;
-        updateDatabase("role", role);
+        updateDatabase(edit().setRole(role));
     }
 
     public void setUserName(String userName) {
-        this.userName = userName;
-        updateDatabase("userName", userName);
+        updateDatabase(edit().setUserName(userName));
     }
 
     public void setGender(String gender) {
-        this.gender = gender;
-        updateDatabase("gender", gender);
+        updateDatabase(edit().setGender(gender));
     }
 
     public void setEmail(String email) {
-        this.email = email;
-        updateDatabase("email", email);
+        updateDatabase(edit().setEmail(email));
     }
 
     public void setPhoneNum(String phoneNum) {
-        this.phoneNum = phoneNum;
-        updateDatabase("phoneNum", phoneNum);
+        updateDatabase(edit().setPhoneNum(phoneNum));
     }
 
     public void setPostalcode(String postalcode) {
-        this.postalcode = postalcode;
-        updateDatabase("postalcode", postalcode);
+        updateDatabase(edit().setPostalcode(postalcode));
     }
 
     public void setProvince(String province) {
-        this.province = province;
-        updateDatabase("province", province);
+        updateDatabase(edit().setProvince(province));
     }
 
     public void setCity(String city) {
-        this.city = city;
-        updateDatabase("city", city);
+        updateDatabase(edit().setCity(city));
     }
 
     public void setNotify(List<Boolean> notify) {
-        this.notify = notify;
-        updateDatabase("notify", notify);
+        updateDatabase(edit().setNotify(notify));
     }
 
     public void setLatitude(Double latitude) {
-        this.latitude = latitude;
-        updateDatabase("latitude", latitude);
+        updateDatabase(edit().setLatitude(latitude));
     }
 
     public void setLongitude(Double longitude) {
-        this.longitude = longitude;
-        updateDatabase("longitude", longitude);
+        updateDatabase(edit().setLongitude(longitude));
+    }
+
+    /**
+     * Edit session for a Profile. Setters stage a field; commit() applies
+     * them locally and writes every dirty field in one update.
+     */
+    public class Editor extends DocumentEditor<Editor> {
+        private Editor() {
+        }
+
+        @Override
+        protected Editor self() {
+            return this;
+        }
+
+        @Override
+        protected CollectionReference collection(DatabaseHandler db) {
+            return db.getAccountCollection();
+        }
+
+        @Override
+        protected Object documentId() {
+            return userId;
+        }
+
+        @Override
+        protected boolean isPersistent() {
+            return autoUpdateDatabase && userId > 0;
+        }
+
+        @Override
+        public Task<Void> commitThenApply() {
+            return super.commitThenApply();
+        }
+
+        public Editor setUserId(int userId) {
+            return stage("id", userId, () -> Profile.this.userId = userId);
+        }
+
+        public Editor setRole(String role) {
+            return stage("role", role, () -> Profile.this.role = role);
+        }
+
+        public Editor setUserName(String userName) {
+            return stage("userName", userName, () -> Profile.this.userName = userName);
+        }
+
+        public Editor setGender(String gender) {
+            return stage("gender", gender, () -> Profile.this.gender = gender);
+        }
+
+        public Editor setEmail(String email) {
+            return stage("email", email, () -> Profile.this.email = email);
+        }
+
+        public Editor setPhoneNum(String phoneNum) {
+            return stage("phoneNum", phoneNum, () -> Profile.this.phoneNum = phoneNum);
+        }
+
+        public Editor setPostalcode(String postalcode) {
+            return stage("postalcode", postalcode, () -> Profile.this.postalcode = postalcode);
+        }
+
+        public Editor setProvince(String province) {
+            return stage("province", province, () -> Profile.this.province = province);
+        }
+
+        public Editor setCity(String city) {
+            return stage("city", city, () -> Profile.this.city = city);
+        }
+
+        public Editor setNotify(List<Boolean> notify) {
+            return stage("notify", notify, () -> Profile.this.notify = notify);
+        }
+
+        public Editor setLatitude(Double latitude) {
+            return stage("latitude", latitude, () -> Profile.this.latitude = latitude);
+        }
+
+        public Editor setLongitude(Double longitude) {
+            return stage("longitude", longitude, () -> Profile.this.longitude = longitude);
+        }
     }
 }
@@ -23,7 +23,6 @@ import com.example.pixel_events.waitinglist.WaitlistUser;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * RegistrationHistoryFragment
@@ -37,7 +36,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * Collaborators:
  * - Event: Historical event data
- * - WaitingList: Lottery status information
+ * - WaitlistUser: Lottery status of the user in each event
  * - WaitlistUser: User status in each event
  * - DatabaseHandler: Fetches event and waitlist data
  */
@@ -88,59 +87,54 @@ public class RegistrationHistoryFragment extends Fragment  {
         }
 
         DatabaseHandler db = DatabaseHandler.getInstance();
-        
-        // Get all events
-        db.getAllEvents(events -> {
+
+        // Resolve only the events this user joined, via the membership index
+        db.getEventsForUser(currentUser.getUserId(), events -> {
             if (events.isEmpty()) {
+                historyItems.clear();
                 if (isAdded()) {
                     requireActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(), "No events found", Toast.LENGTH_SHORT).show();
+                        adapter.notifyDataSetChanged();
+                        Toast.makeText(getContext(), "No registration history found", Toast.LENGTH_SHORT).show();
                     });
                 }
                 return;
             }
 
-            historyItems.clear();
-            AtomicInteger remaining = new AtomicInteger(events.size());
-
+            List<Integer> eventIds = new ArrayList<>();
             for (Event event : events) {
-                // Check if user is in this event's waitlist
-                db.getWaitingList(event.getEventId(), waitingList -> {
-                    if (waitingList != null && waitingList.getWaitList() != null) {
-                        for (WaitlistUser user : waitingList.getWaitList()) {
-                            if (user.getUserId() == currentUser.getUserId()) {
-                                // User participated in this event
-                                EventHistoryItem item = new EventHistoryItem();
-                                item.event = event;
-                                item.status = user.getStatus();
-                                historyItems.add(item);
-                                break;
-                            }
-                        }
-                    }
-                    
-                    if (remaining.decrementAndGet() == 0) {
-                        // All events processed
-                        if (isAdded()) {
-                            requireActivity().runOnUiThread(() -> {
-                                adapter.notifyDataSetChanged();
-                                if (historyItems.isEmpty()) {
-                                    Toast.makeText(getContext(), "No registration history found", Toast.LENGTH_SHORT).show();
-                                }
-                            });
-                        }
-                    }
-                }, e -> {
-                    Log.e(TAG, "Failed to get waitlist for event " + event.getEventId(), e);
-                    if (remaining.decrementAndGet() == 0) {
-                        if (isAdded()) {
-                            requireActivity().runOnUiThread(() -> adapter.notifyDataSetChanged());
-                        }
-                    }
-                });
+                eventIds.add(event.getEventId());
             }
+
+            // One entrant document per event instead of every waitlist in full
+            db.getEntrantsForUser(currentUser.getUserId(), eventIds).addOnSuccessListener(entrants -> {
+                historyItems.clear();
+                for (Event event : events) {
+                    WaitlistUser user = entrants.get(event.getEventId());
+                    if (user == null)
+                        continue;
+                    EventHistoryItem item = new EventHistoryItem();
+                    item.event = event;
+                    item.status = user.getStatus();
+                    historyItems.add(item);
+                }
+
+                if (isAdded()) {
+                    requireActivity().runOnUiThread(() -> {
+                        adapter.notifyDataSetChanged();
+                        if (historyItems.isEmpty()) {
+                            Toast.makeText(getContext(), "No registration history found", Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                }
+            }).addOnFailureListener(e -> {
+                Log.e(TAG, "Failed to get waitlists for registration history", e);
+                if (isAdded()) {
+                    requireActivity().runOnUiThread(() -> adapter.notifyDataSetChanged());
+                }
+            });
         }, e -> {
-            Log.e(TAG, "Failed to get all events", e);
+            Log.e(TAG, "Failed to get events for user", e);
             Toast.makeText(getContext(), "Error loading events", Toast.LENGTH_SHORT).show();
         });
     }
@@ -0,0 +1,75 @@
+package com.example.pixel_events.utils;
+
+import com.example.pixel_events.profile.Profile;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CsvEntrantWriter
+ *
+ * Writes entrant rows as CSV, one reused StringBuilder per row. Empty and
+ * missing values are written as "null"; values containing commas, quotes or
+ * newlines are quoted.
+ *
+ * Collaborators:
+ * - ExportFormat: Creates it for CSV and CSV_GZIP
+ * - SavingData: Shares the field encoding
+ */
+class CsvEntrantWriter implements EntrantWriter {
+    static final String HEADER = "UserID,Name,Email,Phone Number,Gender,City,Province,Postal Code,Status\n";
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(256);
+    private int rows;
+
+    CsvEntrantWriter(Writer out, boolean header) throws IOException {
+        this.out = out;
+        if (header) {
+            out.write(HEADER);
+        }
+    }
+
+    @Override
+    public void write(Profile p, int status) throws IOException {
+        row.setLength(0);
+        row.append(field(p.getUserId())).append(',')
+                .append(field(p.getUserName())).append(',')
+                .append(field(p.getEmail())).append(',')
+                .append(field(p.getPhoneNum())).append(',')
+                .append(field(p.getGender())).append(',')
+                .append(field(p.getCity())).append(',')
+                .append(field(p.getProvince())).append(',')
+                .append(field(p.getPostalcode())).append(',')
+                .append(field(EntrantWriter.statusLabel(status))).append('\n');
+        out.append(row);
+        rows++;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public void checkpoint() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static String field(Object val) {
+        if (val == null) return "null";
+        String s = String.valueOf(val).trim();
+        if (s.isEmpty()) return "null";
+        boolean needsWrapping = s.contains(",") || s.contains("\n") || s.contains("\"");
+        if (needsWrapping) {
+            s = s.replace("\"", "\"\"");
+            return "\"" + s + "\"";
+        }
+        return s;
+    }
+}
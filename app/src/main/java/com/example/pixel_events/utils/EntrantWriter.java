@@ -0,0 +1,51 @@
+package com.example.pixel_events.utils;
+
+import com.example.pixel_events.profile.Profile;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * EntrantWriter
+ *
+ * Streaming sink for exported entrant rows. Rows are written as they
+ * arrive and nothing is kept per row beyond what the format itself needs.
+ * Closing the writer finishes the file (gzip trailer, roster index) and
+ * closes the underlying stream.
+ *
+ * Collaborators:
+ * - ExportFormat: Opens the writer for a format
+ * - SavingData: Feeds it one page of entrants at a time
+ */
+public interface EntrantWriter extends Closeable {
+    /**
+     * @param status the entrant's WaitlistUser status code
+     */
+    void write(Profile profile, int status) throws IOException;
+
+    int getRowCount();
+
+    /**
+     * Push every row written so far through to the underlying stream so the
+     * file is complete up to here. Compressed formats end their gzip member.
+     */
+    void checkpoint() throws IOException;
+
+    /**
+     * Display label for a WaitlistUser status code.
+     */
+    static String statusLabel(int status) {
+        switch (status) {
+            case 0:
+                return "Waiting";
+            case 1:
+                return "Selected";
+            case 2:
+                return "Accepted";
+            case 3:
+                return "Declined";
+            default:
+                return "Didn't Choose";
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.pixel_events.utils;
+
+import java.util.TimeZone;
+
+/**
+ * EventDates
+ *
+ * Allocation-free parsing of the yyyy-MM-dd / HH:mm strings stored on events,
+ * plus conversion to epoch days and epoch milliseconds. Event dates are wall
+ * clock times in the app's zone (EVENT_ZONE), not the device's, so every
+ * device derives the same indexed timestamps and the same "today".
+ * Replaces per-call SimpleDateFormat parsing on hot paths.
+ *
+ * Implements:
+ * - US 02.01.04 (Registration period validation)
+ * - US 01.01.04 (Filter events by availability)
+ *
+ * Collaborators:
+ * - Event: Derives its indexed timestamp fields
+ * - Validator: Date relation checks
+ * - DatabaseHandler: Timestamp backfill
+ */
+public final class EventDates {
+    public static final int INVALID = Integer.MIN_VALUE;
+    public static final long MILLIS_PER_MINUTE = 60_000L;
+    public static final long MILLIS_PER_DAY = 86_400_000L;
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    // Zone event dates and times are entered in; events are held around Edmonton
+    public static final TimeZone EVENT_ZONE = TimeZone.getTimeZone("America/Edmonton");
+
+    private EventDates() {
+    }
+
+    /**
+     * Parse yyyy-MM-dd (month and day may have one digit) to days since
+     * 1970-01-01.
+     *
+     * @return the epoch day, or INVALID when malformed or not a real date
+     */
+    public static int parseEpochDay(String date) {
+        if (date == null)
+            return INVALID;
+        String s = date.trim();
+        int firstDash = s.indexOf('-');
+        int secondDash = firstDash < 0 ? -1 : s.indexOf('-', firstDash + 1);
+        if (firstDash != 4 || secondDash < 0)
+            return INVALID;
+        int year = parseDigits(s, 0, 4, 4);
+        int month = parseDigits(s, 5, secondDash, 2);
+        int day = parseDigits(s, secondDash + 1, s.length(), 2);
+        if (year == INVALID || month == INVALID || day == INVALID)
+            return INVALID;
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month))
+            return INVALID;
+        return daysFromCivil(year, month, day);
+    }
+
+    /**
+     * Parse HH:mm (hour may have one digit) to minutes after midnight.
+     *
+     * @return the minute of day, or INVALID when malformed
+     */
+    public static int parseMinuteOfDay(String time) {
+        if (time == null)
+            return INVALID;
+        String s = time.trim();
+        int colon = s.indexOf(':');
+        if (colon < 1)
+            return INVALID;
+        int hour = parseDigits(s, 0, colon, 2);
+        int minute = parseDigits(s, colon + 1, s.length(), 2);
+        if (hour == INVALID || minute == INVALID || s.length() - colon - 1 != 2)
+            return INVALID;
+        if (hour > 23 || minute > 59)
+            return INVALID;
+        return hour * 60 + minute;
+    }
+
+    /**
+     * EVENT_ZONE wall-clock time on the given epoch day to epoch milliseconds.
+     */
+    public static long toMillis(int epochDay, int minuteOfDay) {
+        long wallClock = epochDay * MILLIS_PER_DAY + minuteOfDay * MILLIS_PER_MINUTE;
+        long guess = wallClock - EVENT_ZONE.getOffset(wallClock);
+        return wallClock - EVENT_ZONE.getOffset(guess);
+    }
+
+    /**
+     * Date plus optional time to epoch milliseconds.
+     *
+     * @param defaultMinute minute of day used when time is missing or malformed
+     * @return epoch millis, or null when the date is missing or malformed
+     */
+    public static Long toMillis(String date, String time, int defaultMinute) {
+        int day = parseEpochDay(date);
+        if (day == INVALID)
+            return null;
+        int minute = parseMinuteOfDay(time);
+        return toMillis(day, minute == INVALID ? defaultMinute : minute);
+    }
+
+    /**
+     * Epoch day in EVENT_ZONE containing the given instant.
+     */
+    public static int epochDayOf(long millis) {
+        long local = millis + EVENT_ZONE.getOffset(millis);
+        return (int) Math.floorDiv(local, MILLIS_PER_DAY);
+    }
+
+    public static int todayEpochDay() {
+        return epochDayOf(System.currentTimeMillis());
+    }
+
+    public static long startOfTodayMillis() {
+        return toMillis(todayEpochDay(), 0);
+    }
+
+    private static int parseDigits(String s, int from, int to, int maxDigits) {
+        int len = to - from;
+        if (len < 1 || len > maxDigits)
+            return INVALID;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return INVALID;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Proleptic Gregorian civil date to days since 1970-01-01
+    private static int daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+}
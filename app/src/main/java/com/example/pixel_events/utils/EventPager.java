@@ -0,0 +1,122 @@
+package com.example.pixel_events.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EventQuery;
+import com.example.pixel_events.events.Event;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * EventPager
+ *
+ * Infinite-scroll driver for event lists.
+ * Loads the first page of an EventQuery and fetches the next page whenever the
+ * attached RecyclerView scrolls near its end. Responses for a query that was
+ * replaced by reset() are dropped.
+ *
+ * Implements:
+ * - US 01.01.03 (View list of available events)
+ *
+ * Collaborators:
+ * - DatabaseHandler: queryEvents page reads
+ * - EventQuery: Server-side filter
+ * - DashboardFragment, AdminEventFragment, AdminImageFragment: Hosts
+ */
+public class EventPager {
+    private static final String TAG = "EventPager";
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    // Start loading when this many rows remain below the last visible one
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Receives loaded pages on the main thread.
+     */
+    public interface Listener {
+        /**
+         * @param events    events of the page just loaded
+         * @param firstPage true when this page replaces any previous results
+         */
+        void onPage(List<Event> events, boolean firstPage);
+
+        void onError(Exception e);
+    }
+
+    private final int pageSize;
+    private final Listener listener;
+    private EventQuery query = new EventQuery();
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean loading;
+    private int generation;
+
+    public EventPager(int pageSize, Listener listener) {
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+
+    /**
+     * Load more pages as the list scrolls towards its end.
+     */
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || !(rv.getLayoutManager() instanceof LinearLayoutManager))
+                    return;
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                int lastVisible = lm.findLastVisibleItemPosition();
+                if (lastVisible >= lm.getItemCount() - 1 - PREFETCH_DISTANCE) {
+                    loadNext();
+                }
+            }
+        });
+    }
+
+    /**
+     * Replace the query and load its first page.
+     */
+    public void reset(EventQuery newQuery) {
+        query = newQuery != null ? newQuery : new EventQuery();
+        cursor = null;
+        hasMore = true;
+        loading = false;
+        generation++;
+        loadNext();
+    }
+
+    /**
+     * Load the next page unless one is already loading or none remain.
+     */
+    public void loadNext() {
+        if (loading || !hasMore)
+            return;
+        loading = true;
+        final int requestGeneration = generation;
+        final boolean firstPage = cursor == null;
+        DatabaseHandler.getInstance().queryEvents(query, pageSize, cursor, page -> {
+            if (requestGeneration != generation)
+                return;
+            loading = false;
+            cursor = page.getCursor();
+            hasMore = page.hasMore();
+            listener.onPage(page.getEvents(), firstPage);
+        }, e -> {
+            if (requestGeneration != generation)
+                return;
+            loading = false;
+            Log.e(TAG, "Failed to load events page", e);
+            listener.onError(e);
+        });
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
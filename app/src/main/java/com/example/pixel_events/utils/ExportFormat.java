@@ -0,0 +1,100 @@
+package com.example.pixel_events.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ExportFormat
+ *
+ * File formats an entrant export can be written in. Compressed formats
+ * gzip the stream as rows are written, so nothing is buffered whole in
+ * memory. ROSTER is the binary check-in roster read by RosterFile.Reader.
+ * Every format but ROSTER can be resumed by appending to a file cut back to
+ * its last checkpoint; the roster's index is only written on close.
+ *
+ * Collaborators:
+ * - SavingData: Opens the writer for the chosen format
+ * - CsvEntrantWriter, NdjsonEntrantWriter, RosterFile: Row encodings
+ * - GzipMemberOutputStream: Checkpointable compression
+ */
+public enum ExportFormat {
+    CSV("CSV", ".csv", false),
+    CSV_GZIP("CSV (gzip)", ".csv.gz", true),
+    NDJSON("NDJSON", ".ndjson", false),
+    NDJSON_GZIP("NDJSON (gzip)", ".ndjson.gz", true),
+    ROSTER("Check-in roster", ".roster", false);
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final String label;
+    private final String extension;
+    private final boolean compressed;
+
+    ExportFormat(String label, String extension, boolean compressed) {
+        this.label = label;
+        this.extension = extension;
+        this.compressed = compressed;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return true if a file cut back to a checkpoint can be continued with
+     *         open(out, true)
+     */
+    public boolean isResumable() {
+        return this != ROSTER;
+    }
+
+    /**
+     * Wrap out in this format's buffering, compression and row encoding.
+     * Closing the returned writer closes out.
+     */
+    public EntrantWriter open(OutputStream out) throws IOException {
+        return open(out, false);
+    }
+
+    /**
+     * @param append true if out continues a file cut back to a checkpoint;
+     *               the header is then not written again
+     */
+    public EntrantWriter open(OutputStream out, boolean append) throws IOException {
+        if (append && !isResumable()) {
+            throw new IllegalArgumentException(this + " exports cannot be resumed");
+        }
+        OutputStream stream = compressed
+                ? new GzipMemberOutputStream(out, BUFFER_BYTES)
+                : new BufferedOutputStream(out, BUFFER_BYTES);
+        switch (this) {
+            case CSV:
+            case CSV_GZIP:
+                return new CsvEntrantWriter(text(stream), !append);
+            case NDJSON:
+            case NDJSON_GZIP:
+                return new NdjsonEntrantWriter(text(stream));
+            case ROSTER:
+                return new RosterFile.Writer(stream);
+            default:
+                throw new IllegalStateException("Unknown format " + this);
+        }
+    }
+
+    private static Writer text(OutputStream stream) {
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_BYTES);
+    }
+}
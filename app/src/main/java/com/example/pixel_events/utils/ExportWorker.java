@@ -0,0 +1,275 @@
+package com.example.pixel_events.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.pixel_events.notifications.NotificationHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExportWorker
+ *
+ * Background job that exports an event's entrants with SavingData. Progress
+ * (rows fetched and written) is published as work progress. Every
+ * checkpoint is saved in SharedPreferences with the file it belongs to, so
+ * when the job is stopped by the system or fails it is retried and
+ * continues from the last checkpoint instead of starting over. ROSTER
+ * exports cannot be resumed and restart from the beginning. cancel() stops
+ * the job and deletes the partial file. When the export finishes the file
+ * path is delivered in the output data and as a notification.
+ *
+ * Implements:
+ * - US 02.06.05 (Export final enrolled list to CSV)
+ *
+ * Collaborators:
+ * - SavingData: Writes the file and reports checkpoints
+ * - NotificationHelper: Finished / failed notification
+ * - WaitingListFragment: Starts, observes and cancels exports
+ */
+public class ExportWorker extends Worker {
+    private static final String TAG = "ExportWorker";
+    public static final String KEY_EVENT_ID = "eventId";
+    public static final String KEY_STATUSES = "statuses";
+    public static final String KEY_FORMAT = "format";
+    public static final String KEY_ROWS_FETCHED = "rowsFetched";
+    public static final String KEY_ROWS_WRITTEN = "rowsWritten";
+    public static final String KEY_FILE_PATH = "filePath";
+    public static final String KEY_ERROR = "error";
+    private static final String PREFS_NAME = "pixels_exports";
+    private static final String PREF_FILE = ".file";
+    private static final String PREF_FORMAT = ".format";
+    private static final String PREF_CHECKPOINT = ".checkpoint";
+    private static final String PREF_CANCELLED = ".cancelled";
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BACKOFF_SECONDS = 30;
+
+    public ExportWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Name of the unique work exporting an event; at most one export per
+     * event runs at a time.
+     */
+    public static String workName(int eventId) {
+        return "export-" + eventId;
+    }
+
+    /**
+     * @param infos the work infos of workName(eventId)
+     * @return true while an export of the event is queued or running
+     */
+    public static boolean isActive(List<WorkInfo> infos) {
+        if (infos == null)
+            return false;
+        for (WorkInfo info : infos) {
+            if (!info.getState().isFinished())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Start exporting the event's entrants with the given statuses. If an
+     * export of the event is already queued or running, it is kept and this
+     * call does nothing, so callers check isActive() first and tell the user.
+     */
+    public static void enqueue(Context context, int eventId, int[] statuses, ExportFormat format) {
+        String name = workName(eventId);
+        SharedPreferences prefs = prefs(context);
+        if (prefs.getBoolean(name + PREF_CANCELLED, false)) {
+            // A cancelled export that never got to clean up after itself
+            discard(prefs, name);
+        }
+        Data input = new Data.Builder()
+                .putInt(KEY_EVENT_ID, eventId)
+                .putIntArray(KEY_STATUSES, statuses)
+                .putString(KEY_FORMAT, format.name())
+                .build();
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ExportWorker.class)
+                .setInputData(input)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(name, ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Stop the event's export and delete its partial file.
+     */
+    public static void cancel(Context context, int eventId) {
+        String name = workName(eventId);
+        // Tells a running job to discard its file instead of keeping it for a retry
+        prefs(context).edit().putBoolean(name + PREF_CANCELLED, true).commit();
+        WorkManager.getInstance(context).cancelUniqueWork(name);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data input = getInputData();
+        int eventId = input.getInt(KEY_EVENT_ID, -1);
+        int[] statuses = input.getIntArray(KEY_STATUSES);
+        ExportFormat format;
+        try {
+            format = ExportFormat.valueOf(input.getString(KEY_FORMAT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            format = null;
+        }
+        if (eventId < 0 || statuses == null || statuses.length == 0 || format == null) {
+            Log.e(TAG, "Invalid export request " + input);
+            return Result.failure(error("Invalid export request"));
+        }
+
+        Context context = getApplicationContext();
+        SharedPreferences prefs = prefs(context);
+        String name = workName(eventId);
+        File outFile = restoreFile(prefs, name, format);
+        SavingData.Checkpoint resumeFrom = null;
+        if (outFile != null && format.isResumable()) {
+            resumeFrom = SavingData.Checkpoint.parse(prefs.getString(name + PREF_CHECKPOINT, null));
+            if (resumeFrom != null && outFile.length() < resumeFrom.getCommittedBytes()) {
+                // The file was removed or cut short since; start it again
+                resumeFrom = null;
+            }
+        }
+        if (outFile == null) {
+            try {
+                outFile = SavingData.newExportFile(context, eventId, format);
+            } catch (IOException e) {
+                return fail(prefs, name, eventId, e.getMessage());
+            }
+            prefs.edit()
+                    .putString(name + PREF_FILE, outFile.getAbsolutePath())
+                    .putString(name + PREF_FORMAT, format.name())
+                    .remove(name + PREF_CHECKPOINT)
+                    .commit();
+        }
+        if (resumeFrom != null) {
+            Log.d(TAG, "Resuming " + name + " after " + resumeFrom.getRowsWritten() + " rows");
+        }
+
+        int rows;
+        try {
+            rows = new SavingData(eventId, statuses).write(outFile, format, resumeFrom,
+                    new SavingData.ProgressListener() {
+                        @Override
+                        public boolean onProgress(int rowsFetched, int rowsWritten) {
+                            setProgressAsync(new Data.Builder()
+                                    .putInt(KEY_ROWS_FETCHED, rowsFetched)
+                                    .putInt(KEY_ROWS_WRITTEN, rowsWritten)
+                                    .build());
+                            return !isStopped();
+                        }
+
+                        @Override
+                        public void onCheckpoint(SavingData.Checkpoint checkpoint) {
+                            // commit() so the checkpoint is durable before more rows are written
+                            prefs.edit().putString(name + PREF_CHECKPOINT, checkpoint.toString()).commit();
+                        }
+                    });
+        } catch (CancellationException e) {
+            Log.d(TAG, name + " stopped");
+            if (prefs.getBoolean(name + PREF_CANCELLED, false)) {
+                discard(prefs, name);
+                return Result.failure(error("Export cancelled"));
+            }
+            // The system stopped us; keep the checkpoint for the rerun
+            return Result.retry();
+        } catch (IOException | ExecutionException e) {
+            Log.e(TAG, name + " failed", e);
+            if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+                return fail(prefs, name, eventId, "Failed to export: " + e.getMessage());
+            }
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        String path = outFile.getAbsolutePath();
+        forget(prefs, name);
+        NotificationHelper notifications = new NotificationHelper(context);
+        if (rows == 0) {
+            outFile.delete();
+            notifications.sendExportFailedNotification(eventId, "Nothing to export");
+            return Result.success(new Data.Builder().putInt(KEY_ROWS_WRITTEN, 0).build());
+        }
+        Log.d(TAG, "Exported " + rows + " rows to " + path);
+        notifications.sendExportCompleteNotification(eventId, path, rows);
+        return Result.success(new Data.Builder()
+                .putString(KEY_FILE_PATH, path)
+                .putInt(KEY_ROWS_WRITTEN, rows)
+                .build());
+    }
+
+    /**
+     * @return the file an earlier run of this export was writing, or null
+     *         to start a new one
+     */
+    private static File restoreFile(SharedPreferences prefs, String name, ExportFormat format) {
+        String path = prefs.getString(name + PREF_FILE, null);
+        if (path == null)
+            return null;
+        if (!format.name().equals(prefs.getString(name + PREF_FORMAT, null))) {
+            // Left over from an export in another format
+            discard(prefs, name);
+            return null;
+        }
+        return new File(path);
+    }
+
+    private Result fail(SharedPreferences prefs, String name, int eventId, String message) {
+        discard(prefs, name);
+        new NotificationHelper(getApplicationContext()).sendExportFailedNotification(eventId, message);
+        return Result.failure(error(message));
+    }
+
+    private static Data error(String message) {
+        return new Data.Builder().putString(KEY_ERROR, message).build();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    // Delete the partial file and forget the export
+    private static void discard(SharedPreferences prefs, String name) {
+        String path = prefs.getString(name + PREF_FILE, null);
+        if (path != null && !new File(path).delete()) {
+            Log.d(TAG, "No partial file to delete at " + path);
+        }
+        forget(prefs, name);
+    }
+
+    private static void forget(SharedPreferences prefs, String name) {
+        prefs.edit()
+                .remove(name + PREF_FILE)
+                .remove(name + PREF_FORMAT)
+                .remove(name + PREF_CHECKPOINT)
+                .remove(name + PREF_CANCELLED)
+                .commit();
+    }
+}
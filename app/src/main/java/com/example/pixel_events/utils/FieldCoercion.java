@@ -0,0 +1,127 @@
+package com.example.pixel_events.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FieldCoercion
+ *
+ * Lenient conversions for raw Firestore field values. Older documents store
+ * some numbers as strings and Firestore returns integers as Long, so the model
+ * codecs (Event.fromMap, Profile.fromMap, WaitingList.fromMap) coerce each value
+ * once instead of relying on reflection-based mapping.
+ *
+ * Collaborators:
+ * - Event, Profile, WaitingList, WaitlistUser: fromMap decoders
+ * - DatabaseHandler: Ad-hoc id coercion
+ */
+public final class FieldCoercion {
+    private FieldCoercion() {
+    }
+
+    /**
+     * Number or numeric String to int; anything else yields fallback.
+     */
+    public static int asInt(Object value, int fallback) {
+        if (value instanceof Number)
+            return ((Number) value).intValue();
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            if (s.isEmpty())
+                return fallback;
+            try {
+                return Integer.parseInt(s);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Number or numeric String to Long; anything else yields null.
+     */
+    public static Long asLong(Object value) {
+        if (value instanceof Long)
+            return (Long) value;
+        if (value instanceof Number)
+            return ((Number) value).longValue();
+        if (value instanceof String) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    public static Double asDouble(Object value) {
+        if (value instanceof Double)
+            return (Double) value;
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Boolean or "true"/"false" String; anything else yields null.
+     */
+    public static Boolean asBoolean(Object value) {
+        if (value instanceof Boolean)
+            return (Boolean) value;
+        if (value instanceof String) {
+            String s = ((String) value).trim();
+            if (s.equalsIgnoreCase("true"))
+                return Boolean.TRUE;
+            if (s.equalsIgnoreCase("false"))
+                return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Strings pass through, numbers and booleans are stringified, null stays null.
+     */
+    public static String asString(Object value) {
+        if (value == null || value instanceof String)
+            return (String) value;
+        if (value instanceof Number || value instanceof Boolean)
+            return String.valueOf(value);
+        return null;
+    }
+
+    public static ArrayList<String> asStringList(Object value) {
+        if (!(value instanceof List))
+            return null;
+        List<?> raw = (List<?>) value;
+        ArrayList<String> out = new ArrayList<>(raw.size());
+        for (Object o : raw) {
+            String s = asString(o);
+            if (s != null)
+                out.add(s);
+        }
+        return out;
+    }
+
+    /**
+     * List of booleans; unrecognised entries become null so positions are kept.
+     */
+    public static List<Boolean> asBooleanList(Object value) {
+        if (!(value instanceof List))
+            return null;
+        List<?> raw = (List<?>) value;
+        List<Boolean> out = new ArrayList<>(raw.size());
+        for (Object o : raw) {
+            out.add(asBoolean(o));
+        }
+        return out;
+    }
+}
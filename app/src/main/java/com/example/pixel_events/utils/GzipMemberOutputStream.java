@@ -0,0 +1,78 @@
+package com.example.pixel_events.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GzipMemberOutputStream
+ *
+ * Gzip stream written as a series of complete gzip members. flush() ends
+ * the current member, so every byte written before it is a valid gzip file
+ * on its own and a resumed export can append new members after it.
+ * Concatenated members decompress as one stream (RFC 1952).
+ *
+ * Collaborators:
+ * - ExportFormat: Wraps the compressed formats in it
+ * - EntrantWriter: checkpoint() flushes through to it
+ */
+final class GzipMemberOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final int bufferBytes;
+    // Started on the first write after a flush, so empty members are never written
+    private GZIPOutputStream member;
+
+    GzipMemberOutputStream(OutputStream out, int bufferBytes) {
+        this.out = out;
+        this.bufferBytes = bufferBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        member().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        member().write(b, off, len);
+    }
+
+    /**
+     * End the current member and flush it to the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (member != null) {
+            // Closing writes the trailer and frees the deflater but leaves out open
+            member.close();
+            member = null;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private GZIPOutputStream member() throws IOException {
+        if (member == null) {
+            member = new GZIPOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+            }, bufferBytes);
+        }
+        return member;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.pixel_events.utils;
+
+import com.example.pixel_events.profile.Profile;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * NdjsonEntrantWriter
+ *
+ * Writes entrant rows as newline-delimited JSON, one object per line, so
+ * the file can be processed line by line without a JSON parser holding the
+ * whole list. Missing values are written as null.
+ *
+ * Collaborators:
+ * - ExportFormat: Creates it for NDJSON and NDJSON_GZIP
+ */
+class NdjsonEntrantWriter implements EntrantWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(256);
+    private int rows;
+
+    NdjsonEntrantWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(Profile p, int status) throws IOException {
+        row.setLength(0);
+        row.append("{\"userId\":").append(p.getUserId());
+        string("name", p.getUserName());
+        string("email", p.getEmail());
+        string("phone", p.getPhoneNum());
+        string("gender", p.getGender());
+        string("city", p.getCity());
+        string("province", p.getProvince());
+        string("postalCode", p.getPostalcode());
+        row.append(",\"statusCode\":").append(status);
+        string("status", EntrantWriter.statusLabel(status));
+        row.append("}\n");
+        out.append(row);
+        rows++;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public void checkpoint() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void string(String name, String value) {
+        row.append(",\"").append(name).append("\":");
+        if (value == null) {
+            row.append("null");
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    row.append("\\\"");
+                    break;
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        row.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        row.append(c);
+                    }
+            }
+        }
+        row.append('"');
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.pixel_events.utils;
+
+import com.example.pixel_events.profile.Profile;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RosterFile
+ *
+ * Compact binary roster for door check-in. Rows are written as they stream
+ * in, followed by an index sorted by user id and a fixed-size trailer, so a
+ * Reader can memory-map the file and find an entrant by binary search
+ * without parsing or loading it. All numbers are big-endian.
+ *
+ * Layout:
+ * - header: int MAGIC, short VERSION, short reserved
+ * - records: int userId, byte status, short nameLength, UTF-8 name bytes
+ * - index: count x (int userId, int record offset), ascending by user id
+ * - trailer: long indexOffset, int count, int MAGIC
+ *
+ * Collaborators:
+ * - ExportFormat: Creates the writer for ROSTER
+ * - SavingData: Streams entrants into it
+ */
+public final class RosterFile {
+    static final int MAGIC = 0x50585253; // "PXRS"
+    static final short VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 8;
+    private static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private RosterFile() {
+    }
+
+    /**
+     * Streams records to the file. Only the index (8 bytes per row) is kept
+     * in memory until close().
+     */
+    static final class Writer implements EntrantWriter {
+        private final DataOutputStream out;
+        // Packed (userId << 32 | record offset), sorted on close
+        private long[] index = new long[1024];
+        private int rows;
+
+        Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.out.writeInt(MAGIC);
+            this.out.writeShort(VERSION);
+            this.out.writeShort(0);
+        }
+
+        @Override
+        public void write(Profile p, int status) throws IOException {
+            if (rows == index.length) {
+                index = Arrays.copyOf(index, rows * 2);
+            }
+            index[rows++] = ((long) p.getUserId() << 32) | (out.size() & 0xFFFFFFFFL);
+            byte[] name = p.getUserName() != null
+                    ? p.getUserName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+            out.writeInt(p.getUserId());
+            out.writeByte(status);
+            out.writeShort(nameLength);
+            out.write(name, 0, nameLength);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows;
+        }
+
+        /**
+         * Flushes the records. The file only becomes readable on close(),
+         * when the index is written.
+         */
+        @Override
+        public void checkpoint() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            long indexOffset = out.size();
+            Arrays.sort(index, 0, rows);
+            for (int i = 0; i < rows; i++) {
+                out.writeInt((int) (index[i] >> 32));
+                out.writeInt((int) index[i]);
+            }
+            out.writeLong(indexOffset);
+            out.writeInt(rows);
+            out.writeInt(MAGIC);
+            out.close();
+        }
+    }
+
+    /**
+     * Read-only, memory-mapped view of a roster file. Lookups are binary
+     * searches over the mapped index; nothing is copied up front.
+     */
+    public static final class Reader {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int indexOffset;
+
+        private Reader(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            int size = buffer.limit();
+            if (size < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(size - 4) != MAGIC) {
+                throw new IOException("Not a roster file");
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Unsupported roster version " + buffer.getShort(4));
+            }
+            long offset = buffer.getLong(size - TRAILER_BYTES);
+            this.count = buffer.getInt(size - 8);
+            if (offset < HEADER_BYTES || offset + (long) count * INDEX_ENTRY_BYTES != size - TRAILER_BYTES) {
+                throw new IOException("Corrupt roster index");
+            }
+            this.indexOffset = (int) offset;
+        }
+
+        public static Reader open(File file) throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                // The mapping stays valid after the channel is closed
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new Reader(map);
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @return the i-th user id in ascending order
+         */
+        public int userIdAt(int i) {
+            if (i < 0 || i >= count)
+                throw new IndexOutOfBoundsException("Row " + i + " of " + count);
+            return buffer.getInt(indexOffset + i * INDEX_ENTRY_BYTES);
+        }
+
+        public boolean contains(int userId) {
+            return recordOffset(userId) >= 0;
+        }
+
+        /**
+         * @return the entrant's status code, or -1 if they are not on the roster
+         */
+        public int statusOf(int userId) {
+            int record = recordOffset(userId);
+            return record < 0 ? -1 : buffer.get(record + 4);
+        }
+
+        /**
+         * @return the entrant's name, or null if they are not on the roster
+         */
+        public String nameOf(int userId) {
+            int record = recordOffset(userId);
+            if (record < 0)
+                return null;
+            int length = buffer.getShort(record + 5) & 0xFFFF;
+            byte[] name = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(record + 7);
+            view.get(name);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        private int recordOffset(int userId) {
+            int lo = 0;
+            int hi = count - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int entry = indexOffset + mid * INDEX_ENTRY_BYTES;
+                int id = buffer.getInt(entry);
+                if (id < userId) {
+                    lo = mid + 1;
+                } else if (id > userId) {
+                    hi = mid - 1;
+                } else {
+                    return buffer.getInt(entry + 4);
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -4,26 +4,40 @@ import android.content.Context;
 import android.util.Log;
 
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EntrantPage;
 import com.example.pixel_events.profile.Profile;
 import com.example.pixel_events.waitinglist.WaitlistUser;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 /**
  * SavingData
  *
- * Utility class for exporting entrant lists to CSV format.
- * Fetches profile data for waitlist users and generates downloadable CSV files.
+ * Utility class for exporting entrant lists to CSV, NDJSON (either
+ * optionally gzip-compressed) or the binary check-in roster.
+ * Streams entrants a page at a time, resolves each page's profiles in one
+ * batched read and writes the rows through the format's buffered writer, so
+ * memory stays bounded by the page size however long the list is. The file
+ * is written on a background thread. Event exports report progress and
+ * record a Checkpoint every CHECKPOINT_PAGES pages, from which an
+ * interrupted export can be resumed.
  * Used by organizers to export final participant lists.
  *
  * Implements:
@@ -32,113 +46,292 @@ import java.util.function.Consumer;
  * Collaborators:
  * - WaitlistUser: Source data for export
  * - Profile: User information to include in CSV
- * - DatabaseHandler: Fetches profile data
+ * - DatabaseHandler: Entrant pages and batched profile reads
+ * - ExportFormat, EntrantWriter: Output encoding
+ * - ExportWorker: Runs resumable exports in the background
  */
 public class SavingData {
-    private final List<WaitlistUser> waitlistUsers;
-    private final List<Profile> loadedProfiles = Collections.synchronizedList(new ArrayList<>());
+    private static final String TAG = "SavingData";
+    private static final int PAGE_SIZE = 200;
+    private static final int CHECKPOINT_PAGES = 10;
+    private static final ExecutorService EXPORT_EXECUTOR = Executors.newSingleThreadExecutor();
+
     private final DatabaseHandler db = DatabaseHandler.getInstance();
+    private final int eventId;
+    private final int[] statuses;
+    // Entrants given up front, or null to read them from the event
+    private final List<WaitlistUser> waitlistUsers;
+
+    /**
+     * Observes a running export. Called on the exporting thread.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after every page.
+         *
+         * @param rowsFetched entrants read so far
+         * @param rowsWritten rows written so far; entrants without a profile are skipped
+         * @return false to stop the export with a CancellationException
+         */
+        boolean onProgress(int rowsFetched, int rowsWritten);
+
+        /**
+         * Called once everything up to checkpoint is on disk. Save it to
+         * resume the export later.
+         */
+        void onCheckpoint(Checkpoint checkpoint);
+    }
+
+    /**
+     * How far an export got: the last entrant exported, the row counts and
+     * the file length that holds exactly those rows.
+     */
+    public static final class Checkpoint {
+        private final EntrantPage.Position position;
+        private final int rowsFetched;
+        private final int rowsWritten;
+        private final long committedBytes;
+
+        Checkpoint(EntrantPage.Position position, int rowsFetched, int rowsWritten, long committedBytes) {
+            this.position = position;
+            this.rowsFetched = rowsFetched;
+            this.rowsWritten = rowsWritten;
+            this.committedBytes = committedBytes;
+        }
+
+        public EntrantPage.Position getPosition() {
+            return position;
+        }
+
+        public int getRowsFetched() {
+            return rowsFetched;
+        }
 
+        public int getRowsWritten() {
+            return rowsWritten;
+        }
+
+        public long getCommittedBytes() {
+            return committedBytes;
+        }
+
+        /**
+         * @return a single-line form readable by parse()
+         */
+        @Override
+        public String toString() {
+            return rowsFetched + "," + rowsWritten + "," + committedBytes + "," + position;
+        }
+
+        /**
+         * @return the checkpoint, or null if value is null or malformed
+         */
+        public static Checkpoint parse(String value) {
+            if (value == null)
+                return null;
+            String[] parts = value.split(",", 4);
+            if (parts.length != 4)
+                return null;
+            EntrantPage.Position position = EntrantPage.Position.parse(parts[3]);
+            if (position == null)
+                return null;
+            try {
+                return new Checkpoint(position, Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Long.parseLong(parts[2]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Export entrants that are already loaded.
+     */
     public SavingData(List<WaitlistUser> profiles) {
+        this.eventId = -1;
+        this.statuses = null;
         this.waitlistUsers = new ArrayList<>(profiles);
     }
 
     /**
-     * Asynchronously loads profiles then writes a CSV.
+     * Export an event's entrants with the given statuses, read page by page
+     * in status order.
+     */
+    public SavingData(int eventId, int... statuses) {
+        this.eventId = eventId;
+        this.statuses = statuses.clone();
+        Arrays.sort(this.statuses);
+        this.waitlistUsers = null;
+    }
+
+    /**
+     * Asynchronously writes a CSV.
      * @param context Android context for storage path
      * @param eventId event identifier used in filename
      * @param callback receives final status message (success path or error / nothing to export)
      */
     public void exportProfiles(Context context, int eventId, Consumer<String> callback) {
+        exportProfiles(context, eventId, ExportFormat.CSV, callback);
+    }
+
+    /**
+     * Asynchronously writes the export in the given format.
+     */
+    public void exportProfiles(Context context, int eventId, ExportFormat format, Consumer<String> callback) {
         if (context == null) {
             if (callback != null) callback.accept("Context unavailable");
             return;
         }
-        if (waitlistUsers.isEmpty()) {
+        if (waitlistUsers != null && waitlistUsers.isEmpty()) {
             if (callback != null) callback.accept("Nothing to export");
             return;
         }
-        AtomicInteger remaining = new AtomicInteger(waitlistUsers.size());
-        for (WaitlistUser user : waitlistUsers) {
-            if (user == null) {
-                if (remaining.decrementAndGet() == 0) finishExport(context, eventId, callback);
-                continue;
-            }
-            int id = user.getUserId();
-            db.getProfile(id, profile -> {
-                if (profile != null) {
-                    loadedProfiles.add(profile);
-                }
-                if (remaining.decrementAndGet() == 0) finishExport(context, eventId, callback);
-            }, e -> {
-                Log.e("SavingData", "Failed to fetch profile " + id, e);
-                if (remaining.decrementAndGet() == 0) finishExport(context, eventId, callback);
-            });
+        File outFile;
+        try {
+            outFile = newExportFile(context, eventId, format);
+        } catch (IOException e) {
+            if (callback != null) callback.accept(e.getMessage());
+            return;
         }
+
+        EXPORT_EXECUTOR.execute(() -> {
+            String message;
+            try {
+                int rows = write(outFile, format);
+                if (rows == 0) {
+                    outFile.delete();
+                    message = "Nothing to export";
+                } else {
+                    message = "Exported to: " + outFile.getAbsolutePath();
+                }
+            } catch (IOException | ExecutionException e) {
+                Log.e(TAG, "Export failed", e);
+                outFile.delete();
+                message = "Failed to export: " + e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outFile.delete();
+                message = "Export interrupted";
+            }
+            if (callback != null) callback.accept(message);
+        });
     }
 
-    private void finishExport(Context context, int eventId, Consumer<String> callback) {
-        if (loadedProfiles.isEmpty()) {
-            if (callback != null) callback.accept("Nothing to export");
-            return;
-        }
+    /**
+     * Name a new timestamped file for an event export under the app's
+     * external files directory.
+     *
+     * @throws IOException with a user-facing message if storage is unavailable
+     */
+    public static File newExportFile(Context context, int eventId, ExportFormat format) throws IOException {
         File appFilesDir = context.getExternalFilesDir(null); // App-specific external storage
         if (appFilesDir == null) {
-            if (callback != null) callback.accept("Storage unavailable");
-            return;
+            throw new IOException("Storage unavailable");
         }
         // Create subdirectory as originally specified: pixel-event
         File exportDir = new File(appFilesDir, "pixel-event");
         if (!exportDir.exists() && !exportDir.mkdirs()) {
-            if (callback != null) callback.accept("Failed to create export directory");
-            return;
+            throw new IOException("Failed to create export directory");
         }
         String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
-        String fileName = "event_" + eventId + "_" + timeStamp + ".csv";
-        File outFile = new File(exportDir, fileName);
-
-        try (FileWriter writer = new FileWriter(outFile)) {
-            writer.write("UserID,Name,Email,Phone Number,Gender,City,Province,Postal Code,Status\n");
-            for (Profile p : loadedProfiles) {
-                // Find status for this profile
-                String statusLabel = "Didn't Choose";
-                for (WaitlistUser user : waitlistUsers) {
-                    if (user.getUserId() == p.getUserId()) {
-                        int status = user.getStatus();
-                        if (status == 2) statusLabel = "Accepted";
-                        else if (status == 3) statusLabel = "Declined";
-                        else if (status == 1) statusLabel = "Selected";
-                        else if (status == 0) statusLabel = "Waiting";
-                        else statusLabel = "Didn't Choose";
-                        break;
+        String fileName = "event_" + eventId + "_" + timeStamp + format.getExtension();
+        return new File(exportDir, fileName);
+    }
+
+    /**
+     * Stream every entrant to outFile in the given format. Blocks on
+     * Firestore reads, so call it off the main thread.
+     *
+     * @return number of rows written
+     */
+    public int write(File outFile, ExportFormat format)
+            throws IOException, ExecutionException, InterruptedException {
+        return write(outFile, format, null, null);
+    }
+
+    /**
+     * Stream the event's entrants to outFile, optionally continuing an
+     * interrupted export. Checkpoints are only reported for event exports in
+     * a resumable format.
+     *
+     * @param resumeFrom last checkpoint of an earlier run into the same file
+     *                   and format, or null to start over
+     * @param listener   progress observer, or null
+     * @return total number of rows in the file, including resumed ones
+     * @throws CancellationException if the listener stopped the export
+     */
+    public int write(File outFile, ExportFormat format, Checkpoint resumeFrom, ProgressListener listener)
+            throws IOException, ExecutionException, InterruptedException {
+        boolean resume = resumeFrom != null;
+        if (resume && (waitlistUsers != null || !format.isResumable())) {
+            throw new IllegalArgumentException("Only event exports in a resumable format can resume");
+        }
+        boolean checkpoints = listener != null && waitlistUsers == null && format.isResumable();
+        try (FileOutputStream file = new FileOutputStream(outFile, resume)) {
+            if (resume) {
+                // Drop anything written after the checkpoint
+                if (file.getChannel().size() < resumeFrom.getCommittedBytes()) {
+                    throw new IOException("Export file is shorter than its checkpoint");
+                }
+                file.getChannel().truncate(resumeFrom.getCommittedBytes());
+            }
+            int fetched = resume ? resumeFrom.getRowsFetched() : 0;
+            int resumedRows = resume ? resumeFrom.getRowsWritten() : 0;
+            try (EntrantWriter writer = format.open(file, resume)) {
+                EntrantPage.Position position = resume ? resumeFrom.getPosition() : null;
+                DocumentSnapshot cursor = null;
+                int offset = 0;
+                int pages = 0;
+                boolean more = true;
+                while (more) {
+                    List<WaitlistUser> page;
+                    if (waitlistUsers != null) {
+                        int end = Math.min(offset + PAGE_SIZE, waitlistUsers.size());
+                        page = waitlistUsers.subList(offset, end);
+                        offset = end;
+                        more = offset < waitlistUsers.size();
+                    } else {
+                        EntrantPage entrants = Tasks.await(cursor != null
+                                ? db.getEntrantPage(eventId, statuses, PAGE_SIZE, cursor)
+                                : db.getEntrantPage(eventId, statuses, PAGE_SIZE, position));
+                        page = entrants.getEntrants();
+                        cursor = entrants.getCursor();
+                        position = entrants.getPosition();
+                        more = entrants.hasMore();
+                    }
+                    Map<Integer, Profile> profiles = Tasks.await(db.getProfiles(userIds(page)));
+                    for (WaitlistUser user : page) {
+                        Profile p = user != null ? profiles.get(user.getUserId()) : null;
+                        if (p != null) {
+                            writer.write(p, user.getStatus());
+                        }
+                    }
+                    fetched += page.size();
+                    int written = resumedRows + writer.getRowCount();
+                    if (listener != null && !listener.onProgress(fetched, written)) {
+                        throw new CancellationException("Export stopped after " + written + " rows");
+                    }
+                    pages++;
+                    if (checkpoints && more && position != null && pages % CHECKPOINT_PAGES == 0) {
+                        writer.checkpoint();
+                        file.getFD().sync();
+                        listener.onCheckpoint(new Checkpoint(position, fetched, written, file.getChannel().size()));
                     }
                 }
-                writer.write(csvField(p.getUserId()) + "," +
-                        csvField(p.getUserName()) + "," +
-                        csvField(p.getEmail()) + "," +
-                        csvField(p.getPhoneNum()) + "," +
-                        csvField(p.getGender()) + "," +
-                        csvField(p.getCity()) + "," +
-                        csvField(p.getProvince()) + "," +
-                        csvField(p.getPostalcode()) + "," +
-                        csvField(statusLabel) + "\n");
+                return resumedRows + writer.getRowCount();
             }
-        } catch (IOException e) {
-            if (callback != null) callback.accept("Failed to export: " + e.getMessage());
-            return;
         }
-        if (callback != null) callback.accept("Exported to: " + outFile.getAbsolutePath());
     }
 
-    private String csvField(Object val) {
-        if (val == null) return "null";
-        String s = String.valueOf(val).trim();
-        if (s.isEmpty()) return "null";
-        boolean needsWrapping = s.contains(",") || s.contains("\n") || s.contains("\"");
-        if (needsWrapping) {
-            s = s.replace("\"", "\"\"");
-            return "\"" + s + "\"";
+    private static List<Integer> userIds(List<WaitlistUser> page) {
+        if (page.isEmpty())
+            return Collections.emptyList();
+        List<Integer> ids = new ArrayList<>(page.size());
+        for (WaitlistUser user : page) {
+            if (user != null) {
+                ids.add(user.getUserId());
+            }
         }
-        return s;
+        return ids;
     }
 }
@@ -1,10 +1,5 @@
 package com.example.pixel_events.utils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
 /**
  * Validator
  *
@@ -36,78 +31,72 @@ public class Validator {
             String eventStartTime,
             String eventEndTime
     ) {
-        SimpleDateFormat dateFmt = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
-        dateFmt.setLenient(false);
-        SimpleDateFormat timeFmt = new SimpleDateFormat("HH:mm", Locale.US);
-        timeFmt.setLenient(false);
+        int startDay = parseDayOrNone(eventStartDate);
+        int endDay = parseDayOrNone(eventEndDate);
+        int regStartDay = parseDayOrNone(registrationStartDate);
+        int regEndDay = parseDayOrNone(registrationEndDate);
+        final int none = EventDates.INVALID;
 
-        try {
-            Date startDateObj = null;
-            Date endDateObj = null;
-            Date regStartObj = null;
-            Date regEndObj = null;
+        int today = EventDates.todayEpochDay();
 
-            if (eventStartDate != null && !eventStartDate.trim().isEmpty()) {
-                startDateObj = dateFmt.parse(eventStartDate);
-            }
-            if (eventEndDate != null && !eventEndDate.trim().isEmpty()) {
-                endDateObj = dateFmt.parse(eventEndDate);
-            }
-            if (registrationStartDate != null && !registrationStartDate.trim().isEmpty()) {
-                regStartObj = dateFmt.parse(registrationStartDate);
-            }
-            if (registrationEndDate != null && !registrationEndDate.trim().isEmpty()) {
-                regEndObj = dateFmt.parse(registrationEndDate);
-            }
+        if (startDay != none && startDay < today) {
+            throw new IllegalArgumentException("Event start date must be today or after today");
+        }
+        if (endDay != none && endDay < today) {
+            throw new IllegalArgumentException("Event end date must be today or after today");
+        }
+        if (regStartDay != none && regStartDay < today) {
+            throw new IllegalArgumentException("Registration start date must be today or after today");
+        }
+        if (regEndDay != none && regEndDay < today) {
+            throw new IllegalArgumentException("Registration end date must be today or after today");
+        }
 
-            // Today's date at midnight
-            Date today = dateFmt.parse(dateFmt.format(new Date()));
+        // End must be on or after start when both present
+        if (startDay != none && endDay != none && endDay < startDay) {
+            throw new IllegalArgumentException("Event end date must be on or after event start date");
+        }
 
-            if (startDateObj != null && startDateObj.before(today)) {
-                throw new IllegalArgumentException("Event start date must be today or after today");
-            }
-            if (endDateObj != null && endDateObj.before(today)) {
-                throw new IllegalArgumentException("Event end date must be today or after today");
-            }
-            if (regStartObj != null && regStartObj.before(today)) {
-                throw new IllegalArgumentException("Registration start date must be today or after today");
-            }
-            if (regEndObj != null && regEndObj.before(today)) {
-                throw new IllegalArgumentException("Registration end date must be today or after today");
-            }
+        // Registration ordering
+        if (regStartDay != none && regEndDay != none && regEndDay < regStartDay) {
+            throw new IllegalArgumentException("Registration end date must be on or after registration start date");
+        }
 
-            // End must be on or after start when both present
-            if (startDateObj != null && endDateObj != null && endDateObj.before(startDateObj)) {
-                throw new IllegalArgumentException("Event end date must be on or after event start date");
-            }
+        // Registration must finish before or on the event start date (if both present)
+        if (regEndDay != none && startDay != none && regEndDay > startDay) {
+            throw new IllegalArgumentException("Registration must end before or on the event start date");
+        }
 
-            // Registration ordering
-            if (regStartObj != null && regEndObj != null && regEndObj.before(regStartObj)) {
-                throw new IllegalArgumentException("Registration end date must be on or after registration start date");
-            }
+        // Time validation when both times provided
+        if (eventStartTime != null && !eventStartTime.trim().isEmpty()
+                && eventEndTime != null && !eventEndTime.trim().isEmpty()) {
+            int startMinute = parseMinuteOrThrow(eventStartTime);
+            int endMinute = parseMinuteOrThrow(eventEndTime);
 
-            // Registration must finish before or on the event start date (if both present)
-            if  (regEndObj != null && startDateObj != null && regEndObj.after(startDateObj))  {
-                throw new IllegalArgumentException("Registration must end before or on the event start date");
+            // If event occurs on the same day, ensure end time is after start time
+            if (startDay != none && startDay == endDay && endMinute <= startMinute) {
+                throw new IllegalArgumentException("Event end time must be after start time when on the same date");
             }
+        }
+    }
 
-            // Time validation when both times provided
-            if (eventStartTime != null && !eventStartTime.trim().isEmpty()
-                    && eventEndTime != null && !eventEndTime.trim().isEmpty()) {
-                Date startTimeObj = timeFmt.parse(eventStartTime);
-                Date endTimeObj = timeFmt.parse(eventEndTime);
-
-                // If event occurs on the same day, ensure end time is after start time
-                if (startDateObj != null && endDateObj != null
-                        && dateFmt.format(startDateObj).equals(dateFmt.format(endDateObj))) {
-                    if (!endTimeObj.after(startTimeObj)) {
-                        throw new IllegalArgumentException("Event end time must be after start time when on the same date");
-                    }
-                }
-            }
+    // Missing -> EventDates.INVALID; present but malformed -> exception
+    private static int parseDayOrNone(String date) {
+        if (date == null || date.trim().isEmpty()) {
+            return EventDates.INVALID;
+        }
+        int day = EventDates.parseEpochDay(date);
+        if (day == EventDates.INVALID) {
+            throw new IllegalArgumentException("Invalid date/time format: Unparseable date: \"" + date + "\"");
+        }
+        return day;
+    }
 
-        } catch (ParseException pe) {
-            throw new IllegalArgumentException("Invalid date/time format: " + pe.getMessage());
+    private static int parseMinuteOrThrow(String time) {
+        int minute = EventDates.parseMinuteOfDay(time);
+        if (minute == EventDates.INVALID) {
+            throw new IllegalArgumentException("Invalid date/time format: Unparseable date: \"" + time + "\"");
         }
+        return minute;
     }
 }
@@ -0,0 +1,45 @@
+package com.example.pixel_events.waitinglist;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DrawResult
+ *
+ * Outcome of a lottery draw committed by DatabaseHandler.drawLottery: the
+ * entrants moved to selected, the waiting entrants that were not drawn, and
+ * the seed and pool size recorded for auditing.
+ *
+ * Collaborators:
+ * - DatabaseHandler: Produces it after the draw transaction commits
+ * - WaitingList: Applies it locally and sends the result notifications
+ */
+public class DrawResult {
+    private final long seed;
+    private final int poolSize;
+    private final List<Integer> winners;
+    private final List<Integer> losers;
+
+    public DrawResult(long seed, int poolSize, List<Integer> winners, List<Integer> losers) {
+        this.seed = seed;
+        this.poolSize = poolSize;
+        this.winners = Collections.unmodifiableList(winners);
+        this.losers = Collections.unmodifiableList(losers);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public List<Integer> getWinners() {
+        return winners;
+    }
+
+    public List<Integer> getLosers() {
+        return losers;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.pixel_events.waitinglist;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EntrantStore
+ *
+ * Compact in-memory storage for a WaitingList's entrants. User ids and
+ * statuses live in parallel int[]/byte[] arrays in join order, and an
+ * open-addressing int hash table maps each user id to its array index, so
+ * membership and status lookups are O(1) and iterating allocates nothing.
+ * Each status also keeps a bucket of the indices currently in it, updated on
+ * every transition, so per-status counts are O(1) and filtering touches only
+ * the matching entrants. Each entrant costs 13 bytes in the arrays (id,
+ * status, bucket slot and position in it) plus 4-byte slots in a hash table
+ * kept at most 3/4 full. With the doubling slack a 100k-entrant list takes
+ * about 2.5 MB, against roughly twice that for 100k boxed WaitlistUser
+ * objects and their list. The ids and statuses alone would fit in ~500 KB,
+ * but the table and buckets are what make lookups and counts O(1).
+ *
+ * Collaborators:
+ * - WaitingList: Owns one store per loaded waitlist
+ * - WaitlistUser: Produced on demand by the read-only list view
+ */
+public final class EntrantStore {
+    private static final int MIN_CAPACITY = 16;
+    private static final int EMPTY = 0; // table slots hold index + 1
+
+    /**
+     * Callback for allocation-free iteration in join order.
+     */
+    public interface Visitor {
+        void visit(int userId, int status);
+    }
+
+    private int[] userIds;
+    private byte[] statuses;
+    private int size;
+    private int[] table;
+    private int mask;
+    // buckets[s] holds the indices with status s (unordered); bucketPos[i]
+    // is index i's slot within its bucket, for O(1) moves between buckets
+    private int[][] buckets = new int[4][];
+    private int[] bucketSizes = new int[4];
+    private int[] bucketPos;
+
+    public EntrantStore() {
+        this(MIN_CAPACITY);
+    }
+
+    public EntrantStore(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        userIds = new int[capacity];
+        statuses = new byte[capacity];
+        bucketPos = new int[capacity];
+        allocateTable(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Append an entrant. Duplicate user ids are ignored so the first
+     * (earliest) entry wins, matching the old list scans.
+     *
+     * @return true if the entrant was added
+     */
+    public boolean add(int userId, int status) {
+        checkStatus(status);
+        int slot = findSlot(userId);
+        if (table[slot] != EMPTY)
+            return false;
+        if (size == userIds.length) {
+            grow();
+            slot = findSlot(userId);
+        }
+        userIds[size] = userId;
+        statuses[size] = (byte) status;
+        addToBucket(status, size);
+        table[slot] = ++size;
+        return true;
+    }
+
+    /**
+     * @return the join-order index of the user, or -1 if absent
+     */
+    public int indexOf(int userId) {
+        return table[findSlot(userId)] - 1;
+    }
+
+    public boolean contains(int userId) {
+        return indexOf(userId) >= 0;
+    }
+
+    /**
+     * @return the user's status, or -1 if the user is not in the store
+     */
+    public int statusOf(int userId) {
+        int index = indexOf(userId);
+        return index < 0 ? -1 : statuses[index];
+    }
+
+    /**
+     * @return true if the user was present and updated
+     */
+    public boolean setStatus(int userId, int status) {
+        int index = indexOf(userId);
+        if (index < 0)
+            return false;
+        setStatusAt(index, status);
+        return true;
+    }
+
+    public int userIdAt(int index) {
+        checkIndex(index);
+        return userIds[index];
+    }
+
+    public int statusAt(int index) {
+        checkIndex(index);
+        return statuses[index];
+    }
+
+    public void setStatusAt(int index, int status) {
+        checkIndex(index);
+        checkStatus(status);
+        int old = statuses[index];
+        if (old == status)
+            return;
+        removeFromBucket(old, index);
+        statuses[index] = (byte) status;
+        addToBucket(status, index);
+    }
+
+    public int countStatus(int status) {
+        return status >= 0 && status < bucketSizes.length ? bucketSizes[status] : 0;
+    }
+
+    /**
+     * Visit the entrants with the given status, in no particular order.
+     */
+    public void forEachWithStatus(int status, Visitor visitor) {
+        int count = countStatus(status);
+        for (int i = 0; i < count; i++) {
+            int index = buckets[status][i];
+            visitor.visit(userIds[index], status);
+        }
+    }
+
+    /**
+     * @return indices of the entrants whose status is any of the given ones,
+     *         in join order; costs O(k log k) for k matches
+     */
+    public int[] indicesWithStatus(int... wanted) {
+        int[] unique = distinct(wanted);
+        int total = 0;
+        for (int status : unique) {
+            total += countStatus(status);
+        }
+        int[] result = new int[total];
+        int n = 0;
+        for (int status : unique) {
+            int count = countStatus(status);
+            if (count > 0)
+                System.arraycopy(buckets[status], 0, result, n, count);
+            n += count;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(userIds[i], statuses[i]);
+        }
+    }
+
+    /**
+     * Read-only view in join order. Nothing is copied; each get() builds a
+     * detached WaitlistUser, so changing it does not write back.
+     */
+    public List<WaitlistUser> asList() {
+        return new AbstractList<WaitlistUser>() {
+            @Override
+            public WaitlistUser get(int index) {
+                return new WaitlistUser(userIdAt(index), statusAt(index));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return the user ids in join order, as a fresh array
+     */
+    public int[] copyUserIds() {
+        return Arrays.copyOf(userIds, size);
+    }
+
+    private int findSlot(int userId) {
+        int slot = mix(userId) & mask;
+        while (table[slot] != EMPTY && userIds[table[slot] - 1] != userId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = userIds.length * 2;
+        userIds = Arrays.copyOf(userIds, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        bucketPos = Arrays.copyOf(bucketPos, capacity);
+        allocateTable(capacity);
+        for (int i = 0; i < size; i++) {
+            table[findSlot(userIds[i])] = i + 1;
+        }
+    }
+
+    private void addToBucket(int status, int index) {
+        if (status >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, status + 1);
+            bucketSizes = Arrays.copyOf(bucketSizes, status + 1);
+        }
+        int[] bucket = buckets[status];
+        int count = bucketSizes[status];
+        if (bucket == null) {
+            bucket = buckets[status] = new int[MIN_CAPACITY];
+        } else if (count == bucket.length) {
+            bucket = buckets[status] = Arrays.copyOf(bucket, count * 2);
+        }
+        bucket[count] = index;
+        bucketPos[index] = count;
+        bucketSizes[status] = count + 1;
+    }
+
+    // Swap the bucket's last member into the vacated slot
+    private void removeFromBucket(int status, int index) {
+        int[] bucket = buckets[status];
+        int last = --bucketSizes[status];
+        int pos = bucketPos[index];
+        int moved = bucket[last];
+        bucket[pos] = moved;
+        bucketPos[moved] = pos;
+    }
+
+    private static int[] distinct(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        int n = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (i == 0 || copy[i] != copy[i - 1])
+                copy[n++] = copy[i];
+        }
+        return Arrays.copyOf(copy, n);
+    }
+
+    // Table stays at most 3/4 full of the array capacity
+    private void allocateTable(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity * 4 / 3) - 1) << 1;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    // Sequential ids would otherwise cluster in neighbouring slots
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+    }
+
+    private static void checkStatus(int status) {
+        if (status < 0 || status > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid entrant status: " + status);
+    }
+}
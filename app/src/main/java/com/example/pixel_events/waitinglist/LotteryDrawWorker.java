@@ -0,0 +1,170 @@
+package com.example.pixel_events.waitinglist;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.pixel_events.database.BoundedTaskRunner;
+import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.EventPage;
+import com.example.pixel_events.database.EventQuery;
+import com.example.pixel_events.events.Event;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * LotteryDrawWorker
+ *
+ * Periodic background job that runs the lottery for an organizer's events
+ * whose registration has just closed. It is only scheduled while an
+ * organizer is signed in, so entrant devices never poll. Each run queries
+ * the organizer's events by the indexed registrationClosesAt field for the
+ * window since the previous run and walks the results page by page. Needs
+ * the composite index EventData(organizerId, registrationClosesAt). Each page is drawn with at most
+ * MAX_CONCURRENT_DRAWS draws in flight. DatabaseHandler.runScheduledDraw
+ * claims every event before drawing it and records completion, so an event
+ * is drawn only once even when many devices run this job.
+ *
+ * Implements:
+ * - US 02.05.02 (Sample specified number of attendees)
+ * - US 01.04.01 (Notify winners)
+ * - US 01.04.02 (Notify losers)
+ *
+ * Collaborators:
+ * - DatabaseHandler: Event queries and the claimed draw
+ * - EventQuery: Registration-close window
+ * - BoundedTaskRunner: Bounded draw concurrency
+ * - DashboardActivity: Schedules the job for organizer sessions
+ * - AuthManager: Cancels the job on sign-out
+ */
+public class LotteryDrawWorker extends Worker {
+    private static final String TAG = "LotteryDrawWorker";
+    public static final String UNIQUE_WORK_NAME = "scheduled-lottery-draws";
+    private static final String PREFS_NAME = "pixels_prefs";
+    private static final String KEY_LAST_SCAN = "lottery_draw_last_scan_";
+    private static final String KEY_ORGANIZER_ID = "organizerId";
+    private static final long PERIOD_MINUTES = 15;
+    // Scan window: back to the previous run with some overlap, never further than a week
+    private static final long OVERLAP_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long MAX_LOOKBACK_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_CONCURRENT_DRAWS = 4;
+    private static final long STEP_TIMEOUT_MINUTES = 5;
+
+    public LotteryDrawWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Enqueue the periodic job for the signed-in organizer. Repeated calls
+     * for the same organizer keep the existing schedule; a different
+     * organizer replaces it. A random initial delay keeps devices from all
+     * scanning at the same moment.
+     */
+    public static void schedule(Context context, int organizerId) {
+        Data input = new Data.Builder()
+                .putInt(KEY_ORGANIZER_ID, organizerId)
+                .build();
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                LotteryDrawWorker.class, PERIOD_MINUTES, TimeUnit.MINUTES)
+                .setInputData(input)
+                .setConstraints(constraints)
+                .setInitialDelay(ThreadLocalRandom.current().nextLong(PERIOD_MINUTES), TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.UPDATE, request);
+    }
+
+    /**
+     * Stop scheduled draws on this device (e.g. an entrant session or sign-out).
+     */
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(UNIQUE_WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        int organizerId = getInputData().getInt(KEY_ORGANIZER_ID, 0);
+        if (organizerId <= 0) {
+            Log.e(TAG, "Scheduled without an organizer");
+            return Result.failure();
+        }
+        DatabaseHandler db = DatabaseHandler.getInstance();
+        SharedPreferences prefs = getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String lastScanKey = KEY_LAST_SCAN + organizerId;
+        long now = System.currentTimeMillis();
+        long lastScan = prefs.getLong(lastScanKey, 0);
+        long from = Math.max(now - MAX_LOOKBACK_MS, lastScan - OVERLAP_MS);
+        EventQuery query = new EventQuery()
+                .organizedBy(organizerId)
+                .registrationClosingBetween(from, now);
+
+        int drawn = 0;
+        boolean failed = false;
+        DocumentSnapshot cursor = null;
+        try {
+            do {
+                EventPage page = Tasks.await(readPage(db, query, cursor), STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                List<BoundedTaskRunner.TaskFactory<Boolean>> draws = new ArrayList<>();
+                for (Event event : page.getEvents()) {
+                    draws.add(() -> db.runScheduledDraw(event.getEventId(), event.getTitle(), event.getCapacity()));
+                }
+                List<Task<Boolean>> results = Tasks.await(BoundedTaskRunner.runAll(draws, MAX_CONCURRENT_DRAWS),
+                        STEP_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                for (Task<Boolean> result : results) {
+                    if (!result.isSuccessful()) {
+                        failed = true;
+                        Log.e(TAG, "Scheduled draw failed", result.getException());
+                    } else if (Boolean.TRUE.equals(result.getResult())) {
+                        drawn++;
+                    }
+                }
+                cursor = page.hasMore() ? page.getCursor() : null;
+            } while (cursor != null);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Failed to scan for closed registrations", e);
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        Log.d(TAG, "Drew " + drawn + " events of organizer " + organizerId + " closing in ["
+                + from + ", " + now + ")");
+        if (failed) {
+            // Keep the window so the failed events are scanned again
+            return Result.retry();
+        }
+        prefs.edit().putLong(lastScanKey, now).apply();
+        return Result.success();
+    }
+
+    private static Task<EventPage> readPage(DatabaseHandler db, EventQuery query, DocumentSnapshot cursor) {
+        TaskCompletionSource<EventPage> page = new TaskCompletionSource<>();
+        db.queryEvents(query, PAGE_SIZE, cursor, page::setResult, page::setException);
+        return page.getTask();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.pixel_events.waitinglist;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * LotteryEngine
+ *
+ * Seeded sampling for lottery draws. A partial Fisher-Yates shuffle picks k
+ * winners from a primitive pool in O(k), however large the pool is. The
+ * seed is kept with the draw; replaying the same pool (the waiting entrants
+ * in the order the draw read them) with the same seed reproduces the result
+ * exactly. The seed and pool size alone cannot rebuild the pool once
+ * entrants leave or change status, so a draw also records poolDigest(): an
+ * audit re-derives the result only from a saved copy of the pool (e.g. an
+ * export taken at draw time) whose digest matches.
+ *
+ * Implements:
+ * - US 02.05.02 (Sample specified number of attendees)
+ * - US 02.05.03 (Draw replacement applicants)
+ *
+ * Collaborators:
+ * - WaitingList: Builds the pool from its waiting bucket and applies the draw
+ * - DatabaseHandler: Records the seed with the persisted draw
+ */
+public final class LotteryEngine {
+    private LotteryEngine() {
+    }
+
+    /**
+     * Result of one draw. The first winnerCount() entries of the pool are
+     * the winners in draw order; the rest are the entrants not drawn.
+     */
+    public static final class Draw {
+        private final long seed;
+        private final int[] pool;
+        private final String poolDigest;
+        private final SplittableRandom random;
+        private int winnerCount;
+
+        private Draw(long seed, int[] pool) {
+            this.seed = seed;
+            this.pool = pool;
+            this.poolDigest = poolDigest(pool);
+            this.random = new SplittableRandom(seed);
+        }
+
+        /**
+         * Draw more winners, continuing the same shuffle. The winners in
+         * draw order do not depend on how the draw was split into calls.
+         *
+         * @return the new winner count, capped at the pool size
+         */
+        public int extend(int more) {
+            if (more < 0)
+                throw new IllegalArgumentException("Cannot draw a negative number of winners");
+            int n = pool.length;
+            int target = (int) Math.min(n, (long) winnerCount + more);
+            for (int i = winnerCount; i < target; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = pool[i];
+                pool[i] = pool[j];
+                pool[j] = swap;
+            }
+            winnerCount = target;
+            return winnerCount;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public int getPoolSize() {
+            return pool.length;
+        }
+
+        /**
+         * @return poolDigest() of the pool as it was before the shuffle
+         */
+        public String getPoolDigest() {
+            return poolDigest;
+        }
+
+        public int winnerCount() {
+            return winnerCount;
+        }
+
+        public int winnerAt(int i) {
+            if (i < 0 || i >= winnerCount)
+                throw new IndexOutOfBoundsException("Winner " + i + " of " + winnerCount);
+            return pool[i];
+        }
+
+        public int[] getWinners() {
+            return Arrays.copyOf(pool, winnerCount);
+        }
+
+        public int[] getLosers() {
+            return Arrays.copyOfRange(pool, winnerCount, pool.length);
+        }
+    }
+
+    /**
+     * @return a fresh seed for a new draw
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * SHA-256 of the pool entries in order (4 bytes each, big-endian), as
+     * lowercase hex. Identifies the exact pool a recorded draw ran on.
+     */
+    public static String poolDigest(int[] pool) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 1024);
+        for (int i = 0; i < pool.length; i++) {
+            buffer.putInt(pool[i]);
+            if (!buffer.hasRemaining() || i == pool.length - 1) {
+                sha.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : sha.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Draw up to k entries from the pool. The pool array is permuted in
+     * place and owned by the returned Draw; pass a copy to keep the original.
+     *
+     * @param pool entries to draw from, in a reproducible order
+     * @param k    number of winners wanted; capped at the pool size
+     * @param seed recorded with the draw so it can be replayed
+     */
+    public static Draw draw(int[] pool, int k, long seed) {
+        Draw draw = new Draw(seed, pool);
+        draw.extend(k);
+        return draw;
+    }
+}
@@ -3,13 +3,15 @@ package com.example.pixel_events.waitinglist;
 import android.util.Log;
 
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.database.DocumentEditor;
+import com.example.pixel_events.utils.FieldCoercion;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.Exclude;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,6 +21,9 @@ import java.util.Map;
  * Maintains a list of WaitlistUser objects with their lottery status (waiting, selected, accepted, declined).
  * Executes lottery draws to randomly select entrants based on event capacity.
  * Automatically sends win/loss notifications to entrants after lottery execution.
+ * Entrants are persisted one document each (WaitListData/{eventId}/Entrants/{userId})
+ * with per-status counters; this object holds a loaded snapshot of them in an
+ * EntrantStore, so membership and status lookups are O(1).
  *
  * Implements:
  * - US 01.01.01 (Join waiting list)
@@ -35,6 +40,7 @@ import java.util.Map;
  *
  * Collaborators:
  * - WaitlistUser: Individual entrant status tracking
+ * - EntrantStore: Compact entrant storage and lookups
  * - Event: Associated event details
  * - DatabaseHandler: Persistence layer
  * - Notification: Lottery result notifications
@@ -43,7 +49,7 @@ public class WaitingList {
     private static final int DEFAULT_MAX_WAITLIST_SIZE = 1000000;
     private int eventId;    // Identifier of the event associated with this waitlist
     private String status;     // Status of the event ("waiting", "drawn")
-    private ArrayList<WaitlistUser> waitList; // The WaitingList
+    private EntrantStore waitList = new EntrantStore(); // The WaitingList
     private int maxWaitlistSize;
     private boolean autoUpdateDatabase = true;
 
@@ -54,7 +60,6 @@ public class WaitingList {
         this.eventId = eventId;
         this.status = "waiting";
         this.maxWaitlistSize = maxWaitlistSize;
-        this.waitList = new ArrayList<>();
     }
 
     // Constructor without waitlist max size
@@ -62,18 +67,89 @@ public class WaitingList {
         this.eventId = eventId;
         this.status = "waiting";
         this.maxWaitlistSize = DEFAULT_MAX_WAITLIST_SIZE;
-        this.waitList = new ArrayList<>();
+    }
+
+    /**
+     * Decode a stored WaitListData document without reflection or setters.
+     *
+     * @param documentId Firestore document id, used when eventId is missing
+     * @param data       raw document data
+     * @return the decoded waitlist, or null when data is null
+     */
+    public static WaitingList fromMap(String documentId, Map<String, Object> data) {
+        if (data == null)
+            return null;
+        WaitingList wl = new WaitingList();
+        wl.eventId = FieldCoercion.asInt(data.get("eventId"), FieldCoercion.asInt(documentId, 0));
+        wl.status = FieldCoercion.asString(data.get("status"));
+        wl.maxWaitlistSize = FieldCoercion.asInt(data.get("maxWaitlistSize"), DEFAULT_MAX_WAITLIST_SIZE);
+        Object raw = data.get("waitList");
+        if (raw instanceof List) {
+            // Legacy layout: entrants embedded as an array (pre migration step 3)
+            wl.waitList = decodeEntrants((List<?>) raw);
+        }
+        return wl;
+    }
+
+    /**
+     * Decode a waitlist document together with its Entrants subcollection
+     * (one {userId, status, joinedAt} document per entrant, in join order).
+     * Entrants still in a legacy embedded array are appended unless the
+     * subcollection already has them, so a half-migrated event loses nobody.
+     *
+     * @param entrants raw entrant documents, may be null
+     */
+    public static WaitingList fromMap(String documentId, Map<String, Object> data,
+            List<Map<String, Object>> entrants) {
+        WaitingList wl = fromMap(documentId, data);
+        if (wl != null && entrants != null && !entrants.isEmpty()) {
+            EntrantStore legacy = wl.waitList;
+            EntrantStore merged = decodeEntrants(entrants);
+            // add() skips users already in the subcollection
+            legacy.forEach(merged::add);
+            wl.waitList = merged;
+        }
+        return wl;
+    }
+
+    private static EntrantStore decodeEntrants(List<?> entries) {
+        EntrantStore users = new EntrantStore(entries.size());
+        for (Object entry : entries) {
+            WaitlistUser user = WaitlistUser.fromValue(entry);
+            if (user != null)
+                users.add(user.getUserId(), user.getStatus());
+        }
+        return users;
     }
 
     public void setAutoUpdateDatabase(boolean autoUpdate) { this.autoUpdateDatabase = autoUpdate; }
 
     public boolean isUserInWaitlist(int userId) {
-        for (WaitlistUser user : waitList) {
-            if (user.getUserId() == userId) {
-                return true;
-            }
-        }
-        return false;
+        return waitList.contains(userId);
+    }
+
+    /**
+     * @return the user's WaitlistUser status, or -1 if they are not on the list
+     */
+    public int getUserStatus(int userId) {
+        return waitList.statusOf(userId);
+    }
+
+    /**
+     * Visit every entrant in join order without allocating.
+     */
+    public void forEachEntrant(EntrantStore.Visitor visitor) {
+        waitList.forEach(visitor);
+    }
+
+    /**
+     * Add an entrant to this in-memory snapshot only; joining for real goes
+     * through DatabaseHandler.joinWaitingList.
+     *
+     * @return false if the user is already on the list
+     */
+    public boolean addEntrant(int userId, int status) {
+        return waitList.add(userId, status);
     }
 
     // Getters
@@ -85,44 +161,58 @@ public class WaitingList {
     }
     @Exclude
     public ArrayList<WaitlistUser> getSelected() {
-        ArrayList<WaitlistUser> selected = new ArrayList<>();
-        if (waitList != null) {
-            for (WaitlistUser user : waitList) {
-                // status == 1 represents 'chosen' (selected by lottery, awaiting response)
-                if (user.getStatus() == 1) {
-                    selected.add(user);
-                }
-            }
-        }
-        return selected;
+        // status == 1 represents 'chosen' (selected by lottery, awaiting response)
+        return getEntrantsWithStatus(1);
     }
     @Exclude
     public ArrayList<WaitlistUser> getWaiting() {
-        ArrayList<WaitlistUser> waiting = new ArrayList<>();
-        if (waitList != null) {
-            for (WaitlistUser user : waitList) {
-                if (user.getStatus() == 0) {
-                    waiting.add(user);
-                }
-            }
-        }
-        return waiting;
+        return getEntrantsWithStatus(0);
     }
     @Exclude
     public ArrayList<WaitlistUser> getCancelled() {
-        ArrayList<WaitlistUser> cancelled = new ArrayList<>();
-        if (waitList != null) {
-            for (WaitlistUser user : waitList) {
-                // status == 3 represents declined
-                if (user.getStatus() == 3) {
-                    cancelled.add(user);
-                }
-            }
+        // status == 3 represents declined
+        return getEntrantsWithStatus(3);
+    }
+    @Exclude
+    public int getEntrantCount() {
+        return waitList.size();
+    }
+
+    /**
+     * @return how many entrants currently have the status; O(1)
+     */
+    public int getStatusCount(int status) {
+        return waitList.countStatus(status);
+    }
+
+    /**
+     * Entrants whose status is any of the given ones, in join order. Only
+     * the matching status buckets are read, not the whole list.
+     */
+    public ArrayList<WaitlistUser> getEntrantsWithStatus(int... statuses) {
+        int[] indices = waitList.indicesWithStatus(statuses);
+        ArrayList<WaitlistUser> matches = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            matches.add(new WaitlistUser(waitList.userIdAt(index), waitList.statusAt(index)));
         }
-        return cancelled;
+        return matches;
     }
-    public ArrayList<WaitlistUser> getWaitList() {
-        return waitList == null ? null : new ArrayList<>(waitList);
+
+    /**
+     * Visit the entrants with the given status without allocating, in no
+     * particular order.
+     */
+    public void forEachEntrantWithStatus(int status, EntrantStore.Visitor visitor) {
+        waitList.forEachWithStatus(status, visitor);
+    }
+
+    /**
+     * Read-only view of the entrants in join order. Nothing is copied; the
+     * returned WaitlistUser objects are detached, so use updateUserStatus
+     * to change a status.
+     */
+    public List<WaitlistUser> getWaitList() {
+        return waitList.asList();
     }
     public int getMaxWaitlistSize() {
         return maxWaitlistSize;
@@ -130,19 +220,31 @@ public class WaitingList {
 
     // Setters / Modify waitlist
     public void setStatus(String status) {
-        this.status = status;
-        updateDatabase("status", status);
+        updateDatabase(edit().setStatus(status));
     }
 
+    /**
+     * Change one entrant's status. When persisted, the write is a
+     * compare-and-set against the status held here; if the stored status has
+     * moved on, the local change is rolled back.
+     */
     public void updateUserStatus(int userId, int newStatus) {
-        if (waitList != null) {
-            for (WaitlistUser user : waitList) {
-                if (user.getUserId() == userId) {
-                    user.setStatus(newStatus);
-                    updateDatabase("waitList", waitList);
-                    break;
-                }
-            }
+        int oldStatus = waitList.statusOf(userId);
+        if (oldStatus < 0 || oldStatus == newStatus)
+            return;
+        if (!WaitlistUser.canTransition(oldStatus, newStatus)) {
+            Log.e("WaitingList", "Status of " + userId + " cannot change from " + oldStatus + " to " + newStatus);
+            return;
+        }
+        waitList.setStatus(userId, newStatus);
+        if (autoUpdateDatabase && eventId > 0) {
+            // Only this entrant's document changes
+            DatabaseHandler.getInstance().setEntrantStatus(eventId, userId, oldStatus, newStatus)
+                    .addOnFailureListener(e -> {
+                        Log.e("WaitingList", "Failed to update status of " + userId, e);
+                        if (waitList.statusOf(userId) == newStatus)
+                            waitList.setStatus(userId, oldStatus);
+                    });
         }
     }
 
@@ -152,28 +254,54 @@ public class WaitingList {
     }
 
     public void drawLottery(OnLotteryDrawnListener listener) {
+        drawLottery(LotteryEngine.newSeed(), listener);
+    }
+
+    /**
+     * Draw with an explicit seed. When persisted, the draw runs in
+     * DatabaseHandler.drawLottery against the current entrants, so concurrent
+     * draws and declines cannot over-allocate seats; its pool is the waiting
+     * entrants' user ids ordered by document id (as strings, so "10" comes
+     * before "9"), and the seed, pool size and pool digest are stored with
+     * the draw. A detached list draws its own waiting entrants in join order.
+     * Either way the same pool and seed give the same winners.
+     */
+    public void drawLottery(long seed, OnLotteryDrawnListener listener) {
         DatabaseHandler.getInstance().getEvent(eventId, e -> {
+            // getEvent succeeds with null when the event document is missing
+            if (e == null) {
+                Log.e("WaitingList", "Event " + eventId + " not found");
+                if (listener != null) listener.onFailure(new IllegalStateException("Event not found"));
+                return;
+            }
             int capacity = e.getCapacity();
 
-            if (waitList == null) waitList = new ArrayList<>();
-
             if (capacity <= 0) {
                 if (listener != null) listener.onFailure(new IllegalArgumentException("Capacity must be positive"));
                 return;
             }
-            // Count users who are already chosen (1) or already accepted (2)
-            int occupied = 0;
-            java.util.List<Integer> waitingIndices = new java.util.ArrayList<>();
-            for (int i = 0; i < waitList.size(); i++) {
-                WaitlistUser user = waitList.get(i);
-                int st = user.getStatus();
-                if (st == 1 || st == 2) {
-                    occupied++;
-                } else if (st == 0) {
-                    waitingIndices.add(i);
-                }
+            if (autoUpdateDatabase && eventId > 0) {
+                // Decided and committed against the stored entrants, not this snapshot
+                DatabaseHandler.getInstance().drawLottery(eventId, capacity, seed)
+                        .addOnSuccessListener(result -> {
+                            for (Integer winner : result.getWinners()) {
+                                waitList.setStatus(winner, 1); // mark as chosen
+                            }
+                            status = "drawn";
+                            // Send notifications to winners and losers (US 01.04.01, 01.04.02)
+                            sendLotteryNotifications(e.getTitle(), result.getWinners(), result.getLosers());
+                            if (listener != null) listener.onSuccess(result.getWinners().size());
+                        })
+                        .addOnFailureListener(err -> {
+                            if (listener != null) listener.onFailure(err);
+                        });
+                return;
             }
 
+            // Detached: draw on this snapshot only
+            // Users who are already chosen (1) or already accepted (2)
+            int occupied = waitList.countStatus(1) + waitList.countStatus(2);
+
             if (occupied >= capacity) {
                 Log.d("WaitingList", "Lottery already drawn or capacity full.");
                 if (listener != null) listener.onFailure(new IllegalStateException("Lottery already drawn or capacity full"));
@@ -182,31 +310,22 @@ public class WaitingList {
 
             int slotsAvailable = capacity - occupied;
 
-            if (waitingIndices.isEmpty()) {
+            if (waitList.countStatus(0) == 0) {
                 if (listener != null) listener.onFailure(new IllegalStateException("No participants in the waiting list to draw from"));
                 return;
             }
 
-            int numberToDraw = Math.min(slotsAvailable, waitingIndices.size());
-
-            // Shuffle indices to pick random waiting users and update in-place
-            Collections.shuffle(waitingIndices);
-            for (int i = 0; i < numberToDraw; i++) {
-                int idx = waitingIndices.get(i);
-                WaitlistUser winner = waitList.get(idx);
-                winner.setStatus(1); // mark as chosen
+            int[] waitingIndices = waitList.indicesWithStatus(0);
+            int[] pool = new int[waitingIndices.length];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = waitList.userIdAt(waitingIndices[i]);
+            }
+            LotteryEngine.Draw draw = LotteryEngine.draw(pool, slotsAvailable, seed);
+            for (int i = 0; i < draw.winnerCount(); i++) {
+                waitList.setStatus(draw.winnerAt(i), 1); // mark as chosen
             }
-
-            // Update database
-            updateDatabase("waitList", waitList);
-
             status = "drawn";
-            updateDatabase("status", status);
-            
-            // Send notifications to winners and losers (US 01.04.01, 01.04.02)
-            sendLotteryNotifications(e.getTitle(), waitingIndices, numberToDraw);
-            
-            if (listener != null) listener.onSuccess(numberToDraw);
+            if (listener != null) listener.onSuccess(draw.winnerCount());
         }, e -> {
             Log.e("WaitingList", "Failed to get event", e);
             if (listener != null) listener.onFailure(e);
@@ -214,29 +333,22 @@ public class WaitingList {
     }
 
     public void setMaxWaitlistSize(int maxWaitlistSize) {
-        if (maxWaitlistSize <= 0) {
-            throw new IllegalArgumentException("Max waitlist size must be positive");
-        }
-        this.maxWaitlistSize = maxWaitlistSize;
-        updateDatabase("maxWaitlistSize", maxWaitlistSize);
+        updateDatabase(edit().setMaxWaitlistSize(maxWaitlistSize));
     }
 
-    private void updateDatabase(String fieldName, Object value) {
-        // Only update database if auto-update is enabled and event has valid ID
-        if (!autoUpdateDatabase || this.eventId <= 0) {
-            return;
-        }
+    /**
+     * Start an edit session; staged changes are applied and written in one
+     * update on commit().
+     */
+    public Editor edit() {
+        return new Editor();
+    }
 
+    private void updateDatabase(Editor edit) {
+        String fields = edit.getDirtyFields().toString();
         try {
-            Map<String, Object> updates = new HashMap<>();
-            updates.put(fieldName, value);
-
-            DatabaseHandler.getInstance().modify(DatabaseHandler.getInstance().getWaitListCollection(),
-                    this.eventId, updates, error -> {
-                if (error != null) {
-                    Log.e("WaitingList", "Failed to update " + fieldName + ": " + error);
-                }
-            });
+            edit.commitDebounced()
+                    .addOnFailureListener(e -> Log.e("WaitingList", "Failed to update " + fields + ": " + e.getMessage()));
         } catch (Exception e) {
             Log.e("WaitingList", "Failed to access database for update", e);
         }
@@ -247,20 +359,50 @@ public class WaitingList {
      * US 01.04.01 - Notify winners
      * US 01.04.02 - Notify losers
      */
-    private void sendLotteryNotifications(String eventTitle, java.util.List<Integer> waitingIndices, int numberDrawn) {
-        DatabaseHandler db = DatabaseHandler.getInstance();
-        
-        for (int i = 0; i < waitingIndices.size(); i++) {
-            int idx = waitingIndices.get(i);
-            WaitlistUser user = waitList.get(idx);
-            
-            if (i < numberDrawn) {
-                // Winner
-                db.sendWinNotification(eventId, eventTitle, user.getUserId());
-            } else {
-                // Loser
-                db.sendLossNotification(eventId, eventTitle, user.getUserId());
+    private void sendLotteryNotifications(String eventTitle, java.util.List<Integer> winners,
+            java.util.List<Integer> losers) {
+        DatabaseHandler.getInstance()
+                .sendLotteryResultNotifications(eventId, eventTitle, winners, losers)
+                .addOnFailureListener(e -> Log.e("WaitingList", "Failed to send lottery notifications", e));
+    }
+
+    /**
+     * Edit session for a WaitingList document.
+     */
+    public class Editor extends DocumentEditor<Editor> {
+        private Editor() {
+        }
+
+        @Override
+        protected Editor self() {
+            return this;
+        }
+
+        @Override
+        protected CollectionReference collection(DatabaseHandler db) {
+            return db.getWaitListCollection();
+        }
+
+        @Override
+        protected Object documentId() {
+            return eventId;
+        }
+
+        @Override
+        protected boolean isPersistent() {
+            return autoUpdateDatabase && eventId > 0;
+        }
+
+        public Editor setStatus(String status) {
+            return stage("status", status, () -> WaitingList.this.status = status);
+        }
+
+        public Editor setMaxWaitlistSize(int maxWaitlistSize) {
+            if (maxWaitlistSize <= 0) {
+                throw new IllegalArgumentException("Max waitlist size must be positive");
             }
+            return stage("maxWaitlistSize", maxWaitlistSize,
+                    () -> WaitingList.this.maxWaitlistSize = maxWaitlistSize);
         }
     }
 }
@@ -14,6 +14,7 @@ import com.example.pixel_events.R;
 import com.example.pixel_events.profile.Profile;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * WaitingListAdapter
@@ -24,7 +25,7 @@ import java.util.List;
  *
  * Collaborators:
  * - Profile: Entrant data display
- * - WaitingList: Status information
+ * - WaitlistUser: Status information, keyed by user id
  * - WaitingListFragment: Parent fragment
  */
 public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.VH> {
@@ -34,12 +35,15 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
     }
 
     private final List<Profile> items;
-    private final WaitingList waitingList;
+    private final Map<Integer, Integer> statuses;
     private final OnItemClick listener;
 
-    public WaitingListAdapter(List<Profile> items, WaitingList waitingList, OnItemClick listener) {
+    /**
+     * @param statuses each listed user's status, kept up to date by the caller
+     */
+    public WaitingListAdapter(List<Profile> items, Map<Integer, Integer> statuses, OnItemClick listener) {
         this.items = items;
-        this.waitingList = waitingList;
+        this.statuses = statuses;
         this.listener = listener;
     }
 
@@ -59,15 +63,8 @@ public class WaitingListAdapter extends RecyclerView.Adapter<WaitingListAdapter.
         holder.deleteButton.setVisibility(View.VISIBLE);
 
         // Find status for this user
-        int status = 0;
-        if (waitingList != null && waitingList.getWaitList() != null) {
-            for (WaitlistUser user : waitingList.getWaitList()) {
-                if (user.getUserId() == p.getUserId()) {
-                    status = user.getStatus();
-                    break;
-                }
-            }
-        }
+        Integer known = statuses.get(p.getUserId());
+        int status = known != null ? known : 0;
 
         // Show status with color: 1-Selected(white), 2-Accepted(green),
         // 3-Declined(red). 0=Waiting (gray)
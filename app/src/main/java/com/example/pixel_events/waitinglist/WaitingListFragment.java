@@ -1,5 +1,6 @@
 package com.example.pixel_events.waitinglist;
 
+import android.content.Context;
 import android.location.Address;
 import android.location.Geocoder;
 import android.os.Bundle;
@@ -14,14 +15,21 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AlertDialog.Builder;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.example.pixel_events.R;
 import com.example.pixel_events.database.DatabaseHandler;
 import com.example.pixel_events.profile.Profile;
 import com.example.pixel_events.profile.ViewProfileFragment;
-import com.example.pixel_events.utils.SavingData;
+import com.example.pixel_events.utils.ExportFormat;
+import com.example.pixel_events.utils.ExportWorker;
 import com.google.android.material.button.MaterialButtonToggleGroup;
+import com.google.firebase.firestore.DocumentSnapshot;
 
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
@@ -31,12 +39,10 @@ import org.osmdroid.views.overlay.Marker;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * WaitingListFragment
@@ -44,7 +50,10 @@ import java.util.Set;
  * Fragment displaying and managing entrants for a specific event.
  * Supports filtering by status (waiting, selected, accepted, declined).
  * Allows organizers to export lists, send notifications, and remove entrants.
- * Displays entrant profiles with status indicators.
+ * Displays entrant profiles with status indicators. Entrants are read a
+ * page at a time, ordered by status then join time, and their profiles are
+ * resolved in batches through the shared profile cache, so opening a large
+ * waitlist costs one page of reads.
  *
  * Implements:
  * - US 02.02.01 (View list of entrants)
@@ -56,13 +65,17 @@ import java.util.Set;
  * - US 02.07.01, 02.07.02, 02.07.03 (Send notifications)
  *
  * Collaborators:
- * - WaitingList: Source data for entrants
+ * - WaitingList: Waitlist settings and draw state
+ * - DatabaseHandler: Entrant pages and batched profile reads
  * - WaitlistUser: Individual entrant status
  * - Profile: Entrant information display
- * - SavingData: CSV export functionality
+ * - ExportWorker: Background CSV, NDJSON and roster export
  * - OrganizerNotificationDialog: Send custom messages
  */
 public class WaitingListFragment extends Fragment {
+    private static final int PAGE_SIZE = 50;
+    // Start reading the next page this many rows before the end of the list
+    private static final int PREFETCH_ROWS = 10;
     private WaitingList waitingList;
     // Filter which statuses to include (e.g., {0} for waiting, {1,0} for
     // selected+waiting, {2} for accepted, {3} for declined)
@@ -79,6 +92,13 @@ public class WaitingListFragment extends Fragment {
 
     private WaitingListAdapter adapter;
     private final List<Profile> profiles = new ArrayList<>();
+    // Status of every listed user, for the adapter and removals
+    private final Map<Integer, Integer> statuses = new HashMap<>();
+    private DocumentSnapshot entrantCursor;
+    private boolean hasMoreEntrants;
+    private boolean loadingPage;
+    // Bumped on every reload so pages from an earlier load are dropped
+    private int loadGeneration;
 
     public WaitingListFragment() {
     }
@@ -128,7 +148,7 @@ public class WaitingListFragment extends Fragment {
             }
         }
         recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-        adapter = new WaitingListAdapter(profiles, waitingList, new WaitingListAdapter.OnItemClick() {
+        adapter = new WaitingListAdapter(profiles, statuses, new WaitingListAdapter.OnItemClick() {
             @Override
             public void onClick(Profile profile) {
                 // Open ViewProfileFragment when user taps a profile
@@ -167,45 +187,23 @@ public class WaitingListFragment extends Fragment {
                         .setTitle("Remove from waitlist")
                         .setMessage("Remove this user from the waitlist and mark them as declined?")
                         .setPositiveButton("Remove", (dialog, which) -> {
-                            if (waitingList == null || waitingList.getWaitList() == null) {
-                                showInfoDialog("Waitlist not loaded");
-                                return;
-                            }
-                            // Find corresponding WaitlistUser
-                            WaitlistUser target = null;
-                            for (WaitlistUser u : waitingList.getWaitList()) {
-                                if (u.getUserId() == profile.getUserId()) {
-                                    target = u;
-                                    break;
-                                }
-                            }
-                            if (target == null) {
+                            Integer currentStatus = statuses.get(profile.getUserId());
+                            if (currentStatus == null) {
                                 showInfoDialog("User not found in waitlist");
                                 return;
                             }
+                            WaitlistUser target = new WaitlistUser(profile.getUserId(), currentStatus);
 
                             // Update status to declined (3)
                             target.updateStatusInDb(eventId, 3, new WaitlistUser.OnStatusUpdateListener() {
                                 @Override
                                 public void onSuccess() {
-                                    // Reload waitlist and refresh UI
-                                    db.getWaitingList(eventId, wl -> {
-                                        if (wl != null) {
-                                            waitingList = wl;
-                                            // refresh profiles list
-                                            requireActivity().runOnUiThread(() -> {
-                                                profiles.clear();
-                                                adapter.notifyDataSetChanged();
-                                                loadProfilesFromWaitingList();
-                                                showInfoDialog("User removed and marked as declined.");
-                                            });
-                                        }
-                                    }, e -> {
-                                        Log.e("WaitingListFragment", "Failed to reload waitlist after remove", e);
-                                        if (isAdded())
-                                            requireActivity().runOnUiThread(() -> showInfoDialog(
-                                                    "Removed user but failed to reload waitlist."));
-                                    });
+                                    // Re-read from the first page; profiles come from the cache
+                                    if (isAdded())
+                                        requireActivity().runOnUiThread(() -> {
+                                            reloadEntrants();
+                                            showInfoDialog("User removed and marked as declined.");
+                                        });
                                 }
 
                                 @Override
@@ -222,53 +220,33 @@ public class WaitingListFragment extends Fragment {
             }
         });
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                maybeLoadMore();
+            }
+        });
 
-        // Load waitlist state if needed
+        // Load the waitlist settings if needed; entrants are paged separately
         if (waitingList == null && eventId >= 0) {
-            db.getWaitingList(eventId, wlst -> {
+            db.getWaitingListInfo(eventId, wlst -> {
                 if (wlst != null) {
                     waitingList = wlst;
-                    loadProfilesFromWaitingList();
+                    reloadEntrants();
                 }
             }, e -> Log.e("WaitingListFragment", "Failed to fetch waitlist", e));
         } else {
-            loadProfilesFromWaitingList();
+            reloadEntrants();
         }
 
         backButton.setOnClickListener(v -> requireActivity().getSupportFragmentManager().popBackStack());
 
         shareButton.setOnClickListener(v -> {
-            if (waitingList == null || waitingList.getWaitList() == null || waitingList.getWaitList().isEmpty()) {
+            if (waitingList == null) {
                 showInfoDialog("Nothing to export");
                 return;
             }
-
-            // Filter users based on lottery status
-            List<WaitlistUser> usersToExport;
-            if ("drawn".equals(waitingList.getStatus())) {
-                // If lottery drawn, only export accepted people (status == 2)
-                usersToExport = new ArrayList<>();
-                for (WaitlistUser user : waitingList.getWaitList()) {
-                    if (user.getStatus() == 2) {
-                        usersToExport.add(user);
-                    }
-                }
-                if (usersToExport.isEmpty()) {
-                    showInfoDialog("No accepted participants to export");
-                    return;
-                }
-            } else {
-                // If lottery not drawn, export all people in waitlist
-                usersToExport = waitingList.getWaitList();
-            }
-
-            // Use utility to export
-            new SavingData(usersToExport)
-                    .exportProfiles(requireContext(), eventId, message -> {
-                        if (isAdded()) {
-                            requireActivity().runOnUiThread(() -> showInfoDialog(message));
-                        }
-                    });
+            exportEntrants();
         });
 
         notificationButton.setOnClickListener(v -> {
@@ -319,22 +297,15 @@ public class WaitingListFragment extends Fragment {
         }
     }
 
-    private void loadProfilesFromWaitingList() {
+    /**
+     * Drop the loaded rows and read the first page of entrants again.
+     */
+    private void reloadEntrants() {
         if (waitingList == null) {
             return;
         }
 
-        List<WaitlistUser> ids = waitingList.getWaitList();
-        if (ids == null || ids.isEmpty()) {
-            return;
-        }
-
-        // Clear existing
-        profiles.clear();
-        adapter.notifyDataSetChanged();
-
         // Build filtered list of user IDs based on filterStatuses
-        List<WaitlistUser> filtered = new ArrayList<>();
         if (filterStatuses == null || filterStatuses.length == 0) {
             // Default: if lottery drawn, show selected+waiting; else show waiting only
             if ("drawn".equals(waitingList.getStatus())) {
@@ -345,50 +316,184 @@ public class WaitingListFragment extends Fragment {
             }
         }
 
-        Set<Integer> allowed = new HashSet<>();
-        for (int s : filterStatuses)
-            allowed.add(s);
+        loadGeneration++;
+        profiles.clear();
+        statuses.clear();
+        adapter.notifyDataSetChanged();
+        entrantCursor = null;
+        hasMoreEntrants = true;
+        loadingPage = false;
+        loadNextPage();
+    }
 
-        for (WaitlistUser user : ids) {
-            if (user == null)
-                continue;
-            if (!allowed.contains(user.getStatus()))
-                continue;
-            filtered.add(user);
+    private void maybeLoadMore() {
+        LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (layout != null && layout.findLastVisibleItemPosition() >= profiles.size() - PREFETCH_ROWS) {
+            loadNextPage();
         }
+    }
 
-        if (sortSelectedFirst) {
-            filtered.sort(Comparator.comparingInt(a -> a.getStatus() == 1 ? 0 : 1));
+    /**
+     * Read the next page of entrants (selected first when sortSelectedFirst,
+     * then by join time) and append their profiles.
+     */
+    private void loadNextPage() {
+        if (loadingPage || !hasMoreEntrants) {
+            return;
         }
-
-        // Fetch profiles sequentially to preserve filtered order
-        loadProfilesSorted(filtered);
+        loadingPage = true;
+        int generation = loadGeneration;
+        db.getEntrantPage(eventId, listedStatuses(), PAGE_SIZE, entrantCursor)
+                .addOnSuccessListener(page -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (WaitlistUser w : page.getEntrants()) {
+                        ids.add(w.getUserId());
+                    }
+                    db.getProfiles(ids).addOnSuccessListener(found -> {
+                        if (generation != loadGeneration || !isAdded()) {
+                            return;
+                        }
+                        int start = profiles.size();
+                        for (WaitlistUser w : page.getEntrants()) {
+                            Profile p = found.get(w.getUserId());
+                            if (p != null) {
+                                statuses.put(w.getUserId(), w.getStatus());
+                                profiles.add(p);
+                            }
+                        }
+                        entrantCursor = page.getCursor();
+                        hasMoreEntrants = page.hasMore();
+                        loadingPage = false;
+                        adapter.notifyItemRangeInserted(start, profiles.size() - start);
+                        // Keep going while the loaded rows do not fill the screen
+                        recyclerView.post(this::maybeLoadMore);
+                    }).addOnFailureListener(e -> onPageFailed(generation, e));
+                })
+                .addOnFailureListener(e -> onPageFailed(generation, e));
     }
 
-    private void loadProfilesSorted(List<WaitlistUser> filtered) {
-        db.getAllProfile(allProfiles -> {
-            // Map <id, Profile>
-            Map<Integer, Profile> map = new HashMap<>();
-            for (Profile p : allProfiles) {
-                map.put(p.getUserId(), p);
+    /**
+     * The filtered statuses in list order: ascending, or descending so that
+     * selected (1) comes before waiting (0) when sortSelectedFirst.
+     */
+    private int[] listedStatuses() {
+        int[] order = filterStatuses.clone();
+        Arrays.sort(order);
+        if (sortSelectedFirst) {
+            for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
             }
+        }
+        return order;
+    }
 
-            profiles.clear();
+    private void onPageFailed(int generation, Exception e) {
+        Log.e("WaitingListFragment", "Failed to load entrants", e);
+        if (generation == loadGeneration) {
+            loadingPage = false;
+        }
+    }
 
-            // Sort by filtered list order
-            for (WaitlistUser w : filtered) {
-                Profile p = map.get(w.getUserId());
-                if (p != null) {
-                    profiles.add(p);
+    private void exportEntrants() {
+        Context context = requireContext().getApplicationContext();
+        LiveData<List<WorkInfo>> work = WorkManager.getInstance(context)
+                .getWorkInfosForUniqueWorkLiveData(ExportWorker.workName(eventId));
+        // Only one export per event runs at a time; a new request would be dropped
+        work.observe(getViewLifecycleOwner(), new Observer<List<WorkInfo>>() {
+            @Override
+            public void onChanged(List<WorkInfo> infos) {
+                work.removeObserver(this);
+                if (!isAdded())
+                    return;
+                if (ExportWorker.isActive(infos)) {
+                    new Builder(requireContext())
+                            .setMessage("An export of this event is already running")
+                            .setPositiveButton("Show progress", (d, w) -> showExportProgress())
+                            .setNegativeButton("OK", null)
+                            .show();
+                    return;
                 }
+                chooseExportFormat();
             }
+        });
+    }
 
-            if (isAdded()) {
-                requireActivity().runOnUiThread(() -> adapter.notifyDataSetChanged());
-            }
+    private void chooseExportFormat() {
+        int[] exported;
+        if ("drawn".equals(waitingList.getStatus())) {
+            // If lottery drawn, only export accepted people (status == 2)
+            exported = new int[] { 2 };
+        } else {
+            // If lottery not drawn, export all people in waitlist
+            exported = new int[] { 0, 1, 2, 3 };
+        }
+
+        ExportFormat[] formats = ExportFormat.values();
+        String[] labels = new String[formats.length];
+        for (int i = 0; i < formats.length; i++) {
+            labels[i] = formats[i].getLabel();
+        }
+        new Builder(requireContext())
+                .setTitle("Export format")
+                .setItems(labels, (dialog, which) -> {
+                    // Runs in the background and survives leaving this screen
+                    ExportWorker.enqueue(requireContext(), eventId, exported, formats[which]);
+                    showExportProgress();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Show the running export's progress until it finishes. Hiding the
+     * dialog leaves the export running; its notification reports the file.
+     */
+    private void showExportProgress() {
+        Context context = requireContext().getApplicationContext();
+        int exportedEvent = eventId;
+        AlertDialog dialog = new Builder(requireContext())
+                .setTitle("Exporting entrants")
+                .setMessage("Starting export…")
+                .setPositiveButton("Hide", null)
+                .setNegativeButton("Cancel export", (d, w) -> ExportWorker.cancel(context, exportedEvent))
+                .show();
 
-        }, e -> {
-            Log.e("WaitingListFragment", "Failed to load profiles", e);
+        LiveData<List<WorkInfo>> work = WorkManager.getInstance(context)
+                .getWorkInfosForUniqueWorkLiveData(ExportWorker.workName(eventId));
+        work.observe(getViewLifecycleOwner(), new Observer<List<WorkInfo>>() {
+            // Ignore a finished earlier export until this one shows up
+            private boolean started;
+
+            @Override
+            public void onChanged(List<WorkInfo> infos) {
+                if (infos == null || infos.isEmpty())
+                    return;
+                WorkInfo info = infos.get(infos.size() - 1);
+                if (!info.getState().isFinished()) {
+                    started = true;
+                    int written = info.getProgress().getInt(ExportWorker.KEY_ROWS_WRITTEN, 0);
+                    int fetched = info.getProgress().getInt(ExportWorker.KEY_ROWS_FETCHED, 0);
+                    dialog.setMessage(info.getState() == WorkInfo.State.RUNNING
+                            ? written + " rows written (" + fetched + " entrants read)"
+                            : "Waiting to start…");
+                    return;
+                }
+                if (!started)
+                    return;
+                work.removeObserver(this);
+                dialog.dismiss();
+                if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                    String path = info.getOutputData().getString(ExportWorker.KEY_FILE_PATH);
+                    showInfoDialog(path != null ? "Exported to: " + path : "Nothing to export");
+                } else if (info.getState() == WorkInfo.State.CANCELLED) {
+                    showInfoDialog("Export cancelled");
+                } else {
+                    String error = info.getOutputData().getString(ExportWorker.KEY_ERROR);
+                    showInfoDialog(error != null ? error : "Failed to export");
+                }
+            }
         });
     }
 
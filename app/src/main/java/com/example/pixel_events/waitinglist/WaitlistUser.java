@@ -2,7 +2,9 @@ package com.example.pixel_events.waitinglist;
 
 import android.util.Log;
 import com.example.pixel_events.database.DatabaseHandler;
+import com.example.pixel_events.utils.FieldCoercion;
 import java.util.List;
+import java.util.Map;
 
 /**
  * WaitlistUser
@@ -39,6 +41,22 @@ public class WaitlistUser {
         this.status = status;
     }
 
+    /**
+     * Decode one waitList array entry. Accepts {userId, status} maps and the
+     * legacy bare user id (Number or String), which decodes as waiting.
+     *
+     * @return the entrant, or null when the entry has no usable user id
+     */
+    public static WaitlistUser fromValue(Object raw) {
+        if (raw instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) raw;
+            int userId = FieldCoercion.asInt(map.get("userId"), 0);
+            return userId <= 0 ? null : new WaitlistUser(userId, FieldCoercion.asInt(map.get("status"), 0));
+        }
+        int userId = FieldCoercion.asInt(raw, 0);
+        return userId <= 0 ? null : new WaitlistUser(userId, 0);
+    }
+
     public int getUserId() {
         return userId;
     }
@@ -54,45 +72,41 @@ public class WaitlistUser {
         this.status = status;
     }
 
+    /**
+     * Status changes an entrant can make: drawn (0 to 1), accept or decline
+     * an invitation (1 to 2, 1 to 3), and the organizer cancelling a waiting
+     * or accepted entrant (0 to 3, 2 to 3).
+     */
+    public static boolean canTransition(int from, int to) {
+        switch (from) {
+            case 0:
+                return to == 1 || to == 3;
+            case 1:
+                return to == 2 || to == 3;
+            case 2:
+                return to == 3;
+            default:
+                return false;
+        }
+    }
+
     public interface OnStatusUpdateListener {
         void onSuccess();
         void onFailure(Exception e);
     }
 
     public void updateStatusInDb(int eventId, int newStatus, OnStatusUpdateListener listener) {
-        // Load the waitlist document, update the existing waitList array in-place
-        DatabaseHandler.getInstance().getWaitingList(eventId, waitingList -> {
-            if (waitingList != null && waitingList.getWaitList() != null) {
-                boolean found = false;
-                for (WaitlistUser u : waitingList.getWaitList()) {
-                    if (u.getUserId() == this.userId) {
-                        u.setStatus(newStatus);
-                        found = true;
-                        break;
-                    }
-                }
-                if (found) {
-                    DatabaseHandler.getInstance().getWaitListCollection()
-                            .document(String.valueOf(eventId))
-                            .update("waitList", waitingList.getWaitList())
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "Waitlist status updated for user in event " + eventId);
-                                this.status = newStatus;
-                                if (listener != null) listener.onSuccess();
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Failed to update waitlist status", e);
-                                if (listener != null) listener.onFailure(e);
-                            });
-                } else {
-                    if (listener != null) listener.onFailure(new Exception("User not found in waitList"));
-                }
-            } else {
-                if (listener != null) listener.onFailure(new Exception("Waitlist not found or empty"));
-            }
-        }, e -> {
-            Log.e(TAG, "Failed to get waitlist for status update", e);
-            if (listener != null) listener.onFailure(e);
-        });
+        // Rewrites only this entrant's document (WaitListData/{eventId}/Entrants/{userId}),
+        // and only if it still has the status this object was read with
+        DatabaseHandler.getInstance().setEntrantStatus(eventId, this.userId, this.status, newStatus)
+                .addOnSuccessListener(unused -> {
+                    Log.d(TAG, "Waitlist status updated for user in event " + eventId);
+                    this.status = newStatus;
+                    if (listener != null) listener.onSuccess();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to update waitlist status", e);
+                    if (listener != null) listener.onFailure(e);
+                });
     }
 }
@@ -0,0 +1,49 @@
+package com.example.pixel_events.database;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ModelCodecBenchmark
+ *
+ * Compares the hand-written Event codec against the reflection fallback
+ * DatabaseHandler used before (getDeclaredField + setAccessible per field
+ * per document) on 10k synthetic documents with mixed Long/String numeric
+ * encodings, and prints ns/document for both paths. Ignored in the normal
+ * test run; remove @Ignore to run it locally. ModelCodecTest checks that
+ * both paths decode the same values.
+ */
+@Ignore("Benchmark; run manually")
+public class ModelCodecBenchmark {
+    private static final int DOCS = 10_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void eventCodecVersusReflection() throws Exception {
+        List<Map<String, Object>> docs = ModelCodecTest.syntheticEvents(DOCS);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            ModelCodecTest.decodeAllWithCodec(docs);
+            ModelCodecTest.decodeAllWithReflection(docs);
+        }
+        long codecNs = 0;
+        long reflectionNs = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            ModelCodecTest.decodeAllWithCodec(docs);
+            long t1 = System.nanoTime();
+            ModelCodecTest.decodeAllWithReflection(docs);
+            long t2 = System.nanoTime();
+            codecNs += t1 - t0;
+            reflectionNs += t2 - t1;
+        }
+        System.out.printf("Event decode, %d docs x %d rounds: codec %.1f ns/doc, reflection %.1f ns/doc%n",
+                DOCS, MEASURED_ROUNDS,
+                codecNs / (double) (DOCS * MEASURED_ROUNDS),
+                reflectionNs / (double) (DOCS * MEASURED_ROUNDS));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.pixel_events.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.example.pixel_events.events.Event;
+import com.example.pixel_events.waitinglist.WaitingList;
+import com.example.pixel_events.waitinglist.WaitlistUser;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ModelCodecTest
+ *
+ * Unit tests for the hand-written Event/WaitingList codecs: they decode the
+ * same values as the reflection fallback DatabaseHandler used before, coerce
+ * legacy String numbers, and read every legacy waitList entry shape.
+ */
+public class ModelCodecTest {
+    private static final String[] EVENT_FIELDS = {
+            "eventId", "title", "imageUrl", "location", "capacity", "description",
+            "organizerId", "qrCode", "eventStartDate", "eventEndDate",
+            "registrationStartDate", "registrationEndDate", "eventStartTime",
+            "eventEndTime", "fee", "tags", "geoLocation"
+    };
+
+    @Test
+    public void eventCodecMatchesReflectionDecoding() throws Exception {
+        List<Map<String, Object>> docs = syntheticEvents(200);
+        List<Event> fast = decodeAllWithCodec(docs);
+        List<Event> slow = decodeAllWithReflection(docs);
+        for (int i = 0; i < docs.size(); i++) {
+            Event expected = slow.get(i);
+            Event actual = fast.get(i);
+            assertEquals(expected.getEventId(), actual.getEventId());
+            assertEquals(expected.getOrganizerId(), actual.getOrganizerId());
+            assertEquals(expected.getCapacity(), actual.getCapacity());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getLocation(), actual.getLocation());
+            assertEquals(expected.getEventStartDate(), actual.getEventStartDate());
+            assertEquals(expected.getRegistrationEndDate(), actual.getRegistrationEndDate());
+            assertEquals(expected.getEventEndTime(), actual.getEventEndTime());
+            assertEquals(expected.getFee(), actual.getFee());
+            assertEquals(expected.getTags(), actual.getTags());
+            assertEquals(expected.getGeoLocation(), actual.getGeoLocation());
+        }
+    }
+
+    @Test
+    public void eventCodecCoercesLegacyEncodings() {
+        Map<String, Object> d = new HashMap<>();
+        d.put("organizerId", "1234");
+        d.put("capacity", 25L);
+        d.put("title", "Legacy");
+        Event ev = Event.fromMap("77", d);
+        assertNotNull(ev);
+        // eventId falls back to the document id
+        assertEquals(77, ev.getEventId());
+        assertEquals(1234, ev.getOrganizerId());
+        assertEquals(25, ev.getCapacity());
+        assertEquals("Legacy", ev.getTitle());
+        assertNull(Event.fromMap("1", null));
+    }
+
+    @Test
+    public void waitingListCodecDecodesLegacyEntries() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "42");
+        data.put("status", "waiting");
+        List<Object> entries = new ArrayList<>();
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("userId", 7L);
+        entry.put("status", "1");
+        entries.add(entry);
+        entries.add(9L);
+        entries.add("11");
+        // Entries without a usable user id are dropped
+        entries.add(new HashMap<>(Map.of("status", 2L)));
+        entries.add(new HashMap<>(Map.of("userId", -3L)));
+        entries.add("0");
+        data.put("waitList", entries);
+
+        WaitingList wl = WaitingList.fromMap("42", data);
+        assertNotNull(wl);
+        assertEquals(42, wl.getEventId());
+        assertEquals(3, wl.getWaitList().size());
+        assertEquals(7, wl.getWaitList().get(0).getUserId());
+        assertEquals(1, wl.getWaitList().get(0).getStatus());
+        assertEquals(9, wl.getWaitList().get(1).getUserId());
+        assertEquals(11, wl.getWaitList().get(2).getUserId());
+        assertNull(WaitlistUser.fromValue(new HashMap<>(Map.of("status", 1L))));
+    }
+
+    /**
+     * Synthetic EventData documents alternating Long and legacy String
+     * encodings for the numeric fields.
+     */
+    static List<Map<String, Object>> syntheticEvents(int count) {
+        List<Map<String, Object>> docs = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> d = new HashMap<>();
+            d.put("eventId", i % 2 == 0 ? (Object) (long) i : String.valueOf(i));
+            d.put("organizerId", i % 3 == 0 ? String.valueOf(1000 + i) : (Object) (long) (1000 + i));
+            d.put("capacity", (long) (10 + i % 50));
+            d.put("title", "Event " + i);
+            d.put("imageUrl", "");
+            d.put("location", "Edmonton");
+            d.put("description", "Synthetic event " + i);
+            d.put("qrCode", "qr-" + i);
+            d.put("eventStartDate", "2030-01-15");
+            d.put("eventEndDate", "2030-01-16");
+            d.put("registrationStartDate", "2029-12-01");
+            d.put("registrationEndDate", "2030-01-10");
+            d.put("eventStartTime", "09:00");
+            d.put("eventEndTime", "17:00");
+            d.put("fee", "Free");
+            d.put("tags", new ArrayList<>(Arrays.asList("Workshop", "Educational")));
+            d.put("geoLocation", i % 2 == 0);
+            docs.add(d);
+        }
+        return docs;
+    }
+
+    static List<Event> decodeAllWithCodec(List<Map<String, Object>> docs) {
+        List<Event> out = new ArrayList<>(docs.size());
+        for (Map<String, Object> d : docs) {
+            out.add(Event.fromMap(null, d));
+        }
+        return out;
+    }
+
+    // The pre-codec fallback: coerce ids, then reflectively set each field
+    static List<Event> decodeAllWithReflection(List<Map<String, Object>> docs) throws Exception {
+        List<Event> out = new ArrayList<>(docs.size());
+        for (Map<String, Object> original : docs) {
+            Map<String, Object> data = new HashMap<>(original);
+            Event ev = new Event();
+            ev.setAutoUpdateDatabase(false);
+            for (String name : EVENT_FIELDS) {
+                if (!data.containsKey(name))
+                    continue;
+                Field f = Event.class.getDeclaredField(name);
+                f.setAccessible(true);
+                Object value = data.get(name);
+                if (f.getType() == int.class) {
+                    if (value instanceof String) {
+                        value = Integer.parseInt((String) value);
+                    } else if (value instanceof Long) {
+                        value = ((Long) value).intValue();
+                    }
+                }
+                f.set(ev, value);
+            }
+            out.add(ev);
+        }
+        return out;
+    }
+}
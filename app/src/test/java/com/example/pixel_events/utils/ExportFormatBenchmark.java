@@ -0,0 +1,45 @@
+package com.example.pixel_events.utils;
+
+import com.example.pixel_events.profile.Profile;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * ExportFormatBenchmark
+ *
+ * Writes 10k and 100k synthetic entrant rows in every ExportFormat and
+ * prints the bytes written and wall time per format. Ignored in the normal
+ * test run; remove @Ignore to run it locally. ExportFormatTest checks that
+ * every format round-trips.
+ */
+@Ignore("Benchmark; run manually")
+public class ExportFormatBenchmark {
+    private static final int[] ROW_COUNTS = {10_000, 100_000};
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Test
+    public void bytesAndTimePerFormat() throws IOException {
+        for (int rows : ROW_COUNTS) {
+            Profile[] profiles = ExportFormatTest.profiles(rows);
+            for (ExportFormat format : ExportFormat.values()) {
+                File out = File.createTempFile("export", format.getExtension());
+                try {
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                        ExportFormatTest.write(format, profiles, out);
+                    }
+                    long t0 = System.nanoTime();
+                    ExportFormatTest.write(format, profiles, out);
+                    long elapsedNs = System.nanoTime() - t0;
+                    System.out.printf("rows=%d %-13s %,12d bytes %8.1f ms%n",
+                            rows, format, out.length(), elapsedNs / 1e6);
+                } finally {
+                    out.delete();
+                }
+            }
+        }
+    }
+}
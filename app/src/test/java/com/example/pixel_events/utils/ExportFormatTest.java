@@ -0,0 +1,188 @@
+package com.example.pixel_events.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.pixel_events.profile.Profile;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * ExportFormatTest
+ *
+ * Unit tests for the export writers: the gzip formats decompress to exactly
+ * the plain output, NDJSON writes one object per line, a roster file reads
+ * back through the memory-mapped RosterFile.Reader, and an export cut back
+ * to a checkpoint and resumed matches one written straight through.
+ */
+public class ExportFormatTest {
+
+    @Test
+    public void gzipMatchesPlainOutput() throws IOException {
+        Profile[] profiles = profiles(5_000);
+        assertArrayEquals(plainBytes(ExportFormat.CSV, profiles), gunzipBytes(ExportFormat.CSV_GZIP, profiles));
+        assertArrayEquals(plainBytes(ExportFormat.NDJSON, profiles), gunzipBytes(ExportFormat.NDJSON_GZIP, profiles));
+    }
+
+    @Test
+    public void ndjsonWritesOneObjectPerLine() throws IOException {
+        Profile[] profiles = profiles(1_000);
+        byte[] ndjson = plainBytes(ExportFormat.NDJSON, profiles);
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(ndjson), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                assertEquals('{', line.charAt(0));
+                assertEquals('}', line.charAt(line.length() - 1));
+            }
+        }
+        assertEquals(profiles.length, lines);
+    }
+
+    @Test
+    public void resumedExportMatchesUninterrupted() throws IOException {
+        Profile[] profiles = profiles(5_000);
+        int checkpointRow = 3_000;
+        for (ExportFormat format : ExportFormat.values()) {
+            if (!format.isResumable())
+                continue;
+            File out = File.createTempFile("export", format.getExtension());
+            try {
+                long committed;
+                try (FileOutputStream file = new FileOutputStream(out);
+                     EntrantWriter writer = format.open(file)) {
+                    for (int i = 0; i < checkpointRow; i++) {
+                        writer.write(profiles[i], status(i));
+                    }
+                    writer.checkpoint();
+                    committed = file.getChannel().size();
+                    // Rows written after the checkpoint are lost when the export is interrupted
+                    for (int i = checkpointRow; i < checkpointRow + 500; i++) {
+                        writer.write(profiles[i], status(i));
+                    }
+                }
+                try (RandomAccessFile file = new RandomAccessFile(out, "rw")) {
+                    file.setLength(committed);
+                }
+                try (EntrantWriter writer = format.open(new FileOutputStream(out, true), true)) {
+                    for (int i = checkpointRow; i < profiles.length; i++) {
+                        writer.write(profiles[i], status(i));
+                    }
+                }
+                ExportFormat plain = format.isCompressed()
+                        ? ExportFormat.valueOf(format.name().replace("_GZIP", "")) : format;
+                byte[] expected = plainBytes(plain, profiles);
+                byte[] actual = format.isCompressed() ? gunzip(out) : Files.readAllBytes(out.toPath());
+                assertArrayEquals(format.name(), expected, actual);
+            } finally {
+                out.delete();
+            }
+        }
+    }
+
+    @Test
+    public void rosterReadsBackMemoryMapped() throws IOException {
+        Profile[] profiles = profiles(10_000);
+        File out = File.createTempFile("export", ".roster");
+        try {
+            write(ExportFormat.ROSTER, profiles, out);
+            RosterFile.Reader roster = RosterFile.Reader.open(out);
+            assertEquals(profiles.length, roster.size());
+            for (int i = 0; i < profiles.length; i += 97) {
+                Profile p = profiles[i];
+                assertEquals(status(i), roster.statusOf(p.getUserId()));
+                assertEquals(p.getUserName(), roster.nameOf(p.getUserId()));
+            }
+            assertEquals(-1, roster.statusOf(-5));
+            assertNull(roster.nameOf(Integer.MAX_VALUE));
+            for (int i = 1; i < roster.size(); i++) {
+                assertTrue(roster.userIdAt(i - 1) < roster.userIdAt(i));
+            }
+        } finally {
+            out.delete();
+        }
+    }
+
+    static void write(ExportFormat format, Profile[] profiles, File out) throws IOException {
+        try (EntrantWriter writer = format.open(new FileOutputStream(out))) {
+            for (int i = 0; i < profiles.length; i++) {
+                writer.write(profiles[i], status(i));
+            }
+        }
+    }
+
+    private static byte[] plainBytes(ExportFormat format, Profile[] profiles) throws IOException {
+        File out = File.createTempFile("export", format.getExtension());
+        try {
+            write(format, profiles, out);
+            return Files.readAllBytes(out.toPath());
+        } finally {
+            out.delete();
+        }
+    }
+
+    private static byte[] gunzipBytes(ExportFormat format, Profile[] profiles) throws IOException {
+        File out = File.createTempFile("export", format.getExtension());
+        try {
+            write(format, profiles, out);
+            return gunzip(out);
+        } finally {
+            out.delete();
+        }
+    }
+
+    private static byte[] gunzip(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static int status(int row) {
+        return row % 4;
+    }
+
+    // Ids are shuffled relative to write order so the roster index has to sort
+    static Profile[] profiles(int n) {
+        Profile[] profiles = new Profile[n];
+        for (int i = 0; i < n; i++) {
+            int id = 1_000_000 + (int) ((i * 7919L) % n);
+            Map<String, Object> doc = new HashMap<>();
+            doc.put("userId", id);
+            doc.put("userName", "Entrant " + id + (i % 10 == 0 ? ", \"Jr.\"" : ""));
+            doc.put("email", "entrant" + id + "@example.com");
+            doc.put("phoneNum", i % 3 == 0 ? null : "780-555-" + (1000 + i % 9000));
+            doc.put("gender", i % 2 == 0 ? "Female" : "Male");
+            doc.put("city", "Edmonton");
+            doc.put("province", "AB");
+            doc.put("postalcode", "T6G 2R3");
+            profiles[i] = Profile.fromMap(String.valueOf(id), doc);
+        }
+        return profiles;
+    }
+}
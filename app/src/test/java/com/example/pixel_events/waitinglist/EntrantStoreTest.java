@@ -0,0 +1,193 @@
+package com.example.pixel_events.waitinglist;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * EntrantStoreTest
+ *
+ * Unit tests for EntrantStore: adding entrants, duplicate handling, status
+ * changes and removal from per-status buckets, counts, join order and growth
+ * past the initial capacity. Entrants are never deleted from a loaded store;
+ * leaving a waitlist moves them to another status.
+ */
+public class EntrantStoreTest {
+
+    @Test
+    public void addKeepsJoinOrderAndIgnoresDuplicates() {
+        EntrantStore store = new EntrantStore();
+        assertTrue(store.isEmpty());
+        assertTrue(store.add(30, 0));
+        assertTrue(store.add(10, 1));
+        assertTrue(store.add(20, 0));
+        // The first entry wins
+        assertFalse(store.add(10, 3));
+
+        assertEquals(3, store.size());
+        assertArrayEquals(new int[]{30, 10, 20}, store.copyUserIds());
+        assertEquals(1, store.statusOf(10));
+        assertEquals(1, store.indexOf(10));
+        assertTrue(store.contains(20));
+        assertFalse(store.contains(40));
+        assertEquals(-1, store.indexOf(40));
+        assertEquals(-1, store.statusOf(40));
+    }
+
+    @Test
+    public void setStatusMovesEntrantBetweenBuckets() {
+        EntrantStore store = new EntrantStore();
+        store.add(1, 0);
+        store.add(2, 0);
+        store.add(3, 0);
+
+        assertTrue(store.setStatus(2, 1));
+        assertEquals(1, store.statusOf(2));
+        assertEquals(2, store.countStatus(0));
+        assertEquals(1, store.countStatus(1));
+
+        // Setting the same status again changes nothing
+        assertTrue(store.setStatus(2, 1));
+        assertEquals(1, store.countStatus(1));
+
+        store.setStatusAt(0, 3);
+        assertEquals(3, store.statusAt(0));
+        assertEquals(1, store.countStatus(0));
+        assertEquals(1, store.countStatus(3));
+
+        assertFalse(store.setStatus(99, 2));
+        assertEquals(0, store.countStatus(2));
+    }
+
+    @Test
+    public void removalFromABucketKeepsTheRestOfIt() {
+        EntrantStore store = new EntrantStore();
+        for (int userId = 0; userId < 50; userId++) {
+            store.add(userId, 0);
+        }
+        // Entrants leave the waiting bucket from the front, middle and back
+        for (int userId = 0; userId < 50; userId += 3) {
+            store.setStatus(userId, 3);
+        }
+
+        Set<Integer> waiting = new HashSet<>();
+        store.forEachWithStatus(0, (userId, status) -> waiting.add(userId));
+        assertEquals(store.countStatus(0), waiting.size());
+        for (int userId = 0; userId < 50; userId++) {
+            assertEquals(userId % 3 != 0, waiting.contains(userId));
+        }
+        assertEquals(17, store.countStatus(3));
+        assertEquals(50, store.size());
+    }
+
+    @Test
+    public void countsCoverEveryStatus() {
+        EntrantStore store = new EntrantStore();
+        int[] statuses = {0, 1, 2, 3, 0, 0, 1, 2};
+        for (int i = 0; i < statuses.length; i++) {
+            store.add(100 + i, statuses[i]);
+        }
+        assertEquals(3, store.countStatus(0));
+        assertEquals(2, store.countStatus(1));
+        assertEquals(2, store.countStatus(2));
+        assertEquals(1, store.countStatus(3));
+        assertEquals(0, store.countStatus(4));
+        assertEquals(0, store.countStatus(-1));
+
+        int total = 0;
+        for (int status = 0; status < 4; status++) {
+            total += store.countStatus(status);
+        }
+        assertEquals(store.size(), total);
+    }
+
+    @Test
+    public void indicesWithStatusAreInJoinOrder() {
+        EntrantStore store = new EntrantStore();
+        store.add(5, 0);
+        store.add(6, 1);
+        store.add(7, 0);
+        store.add(8, 1);
+        store.add(9, 2);
+        // Shuffle bucket positions with a few transitions
+        store.setStatus(5, 1);
+        store.setStatus(6, 0);
+        store.setStatus(5, 0);
+
+        assertArrayEquals(new int[]{0, 1, 2}, store.indicesWithStatus(0));
+        assertArrayEquals(new int[]{3}, store.indicesWithStatus(1));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, store.indicesWithStatus(1, 0, 0));
+        assertArrayEquals(new int[0], store.indicesWithStatus(3));
+    }
+
+    @Test
+    public void forEachWithStatusVisitsOnlyThatBucket() {
+        EntrantStore store = new EntrantStore();
+        store.add(1, 0);
+        store.add(2, 1);
+        store.add(3, 0);
+        store.add(4, 2);
+
+        Set<Integer> waiting = new HashSet<>();
+        store.forEachWithStatus(0, (userId, status) -> {
+            assertEquals(0, status);
+            waiting.add(userId);
+        });
+        assertEquals(new HashSet<>(List.of(1, 3)), waiting);
+
+        List<Integer> all = new ArrayList<>();
+        store.forEach((userId, status) -> all.add(userId));
+        assertEquals(List.of(1, 2, 3, 4), all);
+    }
+
+    @Test
+    public void asListIsADetachedView() {
+        EntrantStore store = new EntrantStore();
+        store.add(11, 0);
+        store.add(12, 2);
+
+        List<WaitlistUser> view = store.asList();
+        assertEquals(2, view.size());
+        assertEquals(12, view.get(1).getUserId());
+        assertEquals(2, view.get(1).getStatus());
+
+        store.add(13, 1);
+        assertEquals(3, view.size());
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        EntrantStore store = new EntrantStore(4);
+        int n = 10_000;
+        for (int i = 0; i < n; i++) {
+            assertTrue(store.add(i * 7919, i % 4));
+        }
+        assertEquals(n, store.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, store.indexOf(i * 7919));
+            assertEquals(i % 4, store.statusOf(i * 7919));
+        }
+        assertEquals(n / 4, store.countStatus(0));
+        assertEquals(n / 4, store.countStatus(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeStatus() {
+        new EntrantStore().add(1, -1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexPastEnd() {
+        EntrantStore store = new EntrantStore();
+        store.add(1, 0);
+        store.statusAt(1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.pixel_events.waitinglist;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * LotteryEngineBenchmark
+ *
+ * Times LotteryEngine draws of k in {10, 1k, 100k} winners from pools of
+ * n in {1k, 1M} entrants against the previous approach (box every waiting
+ * index and Collections.shuffle the whole list). Prints ns/draw for both.
+ * Ignored in the normal test run; remove @Ignore to run it locally. The
+ * engine's behaviour is covered by LotteryEngineTest.
+ */
+@Ignore("Benchmark; run manually")
+public class LotteryEngineBenchmark {
+    private static final int[] POOL_SIZES = {1_000, 1_000_000};
+    private static final int[] DRAW_SIZES = {10, 1_000, 100_000};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void partialFisherYatesVersusFullShuffle() {
+        for (int n : POOL_SIZES) {
+            int[] pool = pool(n);
+            for (int k : DRAW_SIZES) {
+                if (k > n)
+                    continue;
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    LotteryEngine.draw(pool, k, i);
+                    fullShuffle(pool, k, i);
+                }
+                long engineNs = 0;
+                long shuffleNs = 0;
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    long t0 = System.nanoTime();
+                    LotteryEngine.draw(pool, k, i);
+                    long t1 = System.nanoTime();
+                    fullShuffle(pool, k, i);
+                    long t2 = System.nanoTime();
+                    engineNs += t1 - t0;
+                    shuffleNs += t2 - t1;
+                }
+                System.out.printf("n=%d k=%d: engine %.0f ns/draw, full shuffle %.0f ns/draw%n",
+                        n, k, engineNs / (double) MEASURED_ROUNDS, shuffleNs / (double) MEASURED_ROUNDS);
+            }
+        }
+    }
+
+    private static int[] pool(int n) {
+        int[] pool = new int[n];
+        for (int i = 0; i < n; i++) {
+            pool[i] = i + 1;
+        }
+        return pool;
+    }
+
+    // The pre-engine draw: box every waiting index, shuffle all, take k
+    private static List<Integer> fullShuffle(int[] pool, int k, long seed) {
+        List<Integer> indices = new ArrayList<>(pool.length);
+        for (int i = 0; i < pool.length; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices, new Random(seed));
+        List<Integer> winners = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            winners.add(pool[indices.get(i)]);
+        }
+        return winners;
+    }
+}
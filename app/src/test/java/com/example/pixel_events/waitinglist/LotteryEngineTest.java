@@ -0,0 +1,131 @@
+package com.example.pixel_events.waitinglist;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * LotteryEngineTest
+ *
+ * Unit tests for LotteryEngine: a seed replays the same draw, extend()
+ * continues the same permutation however the draw is split, winners never
+ * repeat, winners plus losers are always exactly the pool, and the pool
+ * digest identifies the pool in its original order.
+ */
+public class LotteryEngineTest {
+    private static final int POOL_SIZE = 10_000;
+
+    @Test
+    public void sameSeedGivesSameDraw() {
+        long seed = LotteryEngine.newSeed();
+        LotteryEngine.Draw first = LotteryEngine.draw(pool(POOL_SIZE), 250, seed);
+        LotteryEngine.Draw replay = LotteryEngine.draw(pool(POOL_SIZE), 250, first.getSeed());
+
+        assertEquals(seed, first.getSeed());
+        assertArrayEquals(first.getWinners(), replay.getWinners());
+        assertArrayEquals(first.getLosers(), replay.getLosers());
+    }
+
+    @Test
+    public void poolDigestIdentifiesThePoolBeforeTheShuffle() {
+        String digest = LotteryEngine.poolDigest(pool(POOL_SIZE));
+        LotteryEngine.Draw draw = LotteryEngine.draw(pool(POOL_SIZE), 500, 7L);
+
+        assertEquals(digest, draw.getPoolDigest());
+        assertEquals(64, digest.length());
+        // The same ids in another order are a different pool
+        int[] swapped = pool(POOL_SIZE);
+        swapped[0] = 2;
+        swapped[1] = 1;
+        assertFalse(digest.equals(LotteryEngine.poolDigest(swapped)));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                LotteryEngine.poolDigest(new int[0]));
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentDraws() {
+        LotteryEngine.Draw a = LotteryEngine.draw(pool(POOL_SIZE), 100, 1L);
+        LotteryEngine.Draw b = LotteryEngine.draw(pool(POOL_SIZE), 100, 2L);
+        assertFalse(Arrays.equals(a.getWinners(), b.getWinners()));
+    }
+
+    @Test
+    public void extendContinuesTheSamePermutation() {
+        long seed = 42L;
+        LotteryEngine.Draw whole = LotteryEngine.draw(pool(POOL_SIZE), 300, seed);
+
+        LotteryEngine.Draw split = LotteryEngine.draw(pool(POOL_SIZE), 0, seed);
+        assertEquals(0, split.winnerCount());
+        assertEquals(100, split.extend(100));
+        assertEquals(101, split.extend(1));
+        assertEquals(101, split.extend(0));
+        assertEquals(300, split.extend(199));
+
+        assertArrayEquals(whole.getWinners(), split.getWinners());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(whole.winnerAt(i), split.winnerAt(i));
+        }
+    }
+
+    @Test
+    public void winnersAreDistinctAndWithLosersFormThePool() {
+        LotteryEngine.Draw draw = LotteryEngine.draw(pool(POOL_SIZE), 2_500, 7L);
+        int[] winners = draw.getWinners();
+        int[] losers = draw.getLosers();
+        assertEquals(2_500, winners.length);
+        assertEquals(POOL_SIZE - 2_500, losers.length);
+
+        Set<Integer> seen = new HashSet<>();
+        for (int winner : winners) {
+            assertTrue("Duplicate winner " + winner, seen.add(winner));
+        }
+        for (int loser : losers) {
+            assertTrue("Loser also drawn " + loser, seen.add(loser));
+        }
+        for (int id = 1; id <= POOL_SIZE; id++) {
+            assertTrue(seen.contains(id));
+        }
+    }
+
+    @Test
+    public void drawIsCappedAtPoolSize() {
+        LotteryEngine.Draw draw = LotteryEngine.draw(pool(5), 10, 42L);
+        assertEquals(5, draw.winnerCount());
+        assertEquals(5, draw.getPoolSize());
+        assertEquals(0, draw.getLosers().length);
+        assertEquals(5, draw.extend(3));
+        assertEquals(5, Arrays.stream(draw.getWinners()).distinct().count());
+    }
+
+    @Test
+    public void emptyPoolDrawsNothing() {
+        LotteryEngine.Draw draw = LotteryEngine.draw(new int[0], 3, 1L);
+        assertEquals(0, draw.winnerCount());
+        assertEquals(0, draw.getWinners().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeExtendIsRejected() {
+        LotteryEngine.draw(pool(10), 1, 1L).extend(-1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void winnerAtPastTheDrawIsRejected() {
+        LotteryEngine.draw(pool(10), 2, 1L).winnerAt(2);
+    }
+
+    private static int[] pool(int n) {
+        int[] pool = new int[n];
+        for (int i = 0; i < n; i++) {
+            pool[i] = i + 1;
+        }
+        return pool;
+    }
+}